@@ -1,13 +1,17 @@
 import controller.CalendarController;
 import controller.IController;
 import model.Calendar;
+import model.FsyncPolicy;
 import model.ICalendar;
+import model.JournaledCalendar;
 import view.IView;
 import view.View;
 
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 
 /**
@@ -23,9 +27,12 @@ public class CalendarApp {
   public static void main(String[] args) {
     System.out.println("CalendarApp");
     if (args.length < 2) {
-      System.err.println("Usage: java CalendarApp --mode <interactive|headless> [filename]");
+      System.err.println("Usage: java CalendarApp --mode <interactive|headless> [filename]"
+              + " [--journal <file> [--fsync <always|group|never>]] [--image <file>]");
       System.err.println("  For interactive mode: java CalendarApp --mode interactive");
       System.err.println("  For headless mode: java CalendarApp --mode headless commands.txt");
+      System.err.println("  With --journal, the calendar is kept in <file> between runs");
+      System.err.println("  With --image, it is loaded from and saved to a binary image");
       System.exit(1);
     }
 
@@ -35,27 +42,76 @@ public class CalendarApp {
     }
 
     String mode = args[1].toLowerCase();
-    
-    // Create the model
-    ICalendar model = new Calendar();
-    
+    int options = mode.equals("headless") ? 3 : 2;   // where --journal may start
+
+    String journal = null;
+    String image = null;
+    FsyncPolicy fsync = FsyncPolicy.GROUP;
+    for (int i = options; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        System.err.println("Error: " + args[i] + " needs a value");
+        System.exit(1);
+      }
+      if (args[i].equalsIgnoreCase("--journal")) {
+        journal = args[i + 1];
+      } else if (args[i].equalsIgnoreCase("--image")) {
+        image = args[i + 1];
+      } else if (args[i].equalsIgnoreCase("--fsync")) {
+        try {
+          fsync = FsyncPolicy.valueOf(args[i + 1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+          System.err.println("Error: --fsync must be 'always', 'group' or 'never'");
+          System.exit(1);
+        }
+      } else {
+        System.err.println("Error: Unknown option '" + args[i] + "'");
+        System.exit(1);
+      }
+    }
+
     try {
-      switch (mode) {
-        case "interactive":
-          runInteractiveMode(model);
-          break;
-        case "headless":
-          if (args.length < 3) {
-            System.err.println("Error: Headless mode requires a filename");
+      // Create the model from the image and journal, whichever there are
+      ICalendar model;
+      if (journal != null && image != null) {
+        model = JournaledCalendar.open(Paths.get(journal), Paths.get(image), fsync);
+      } else if (journal != null) {
+        model = JournaledCalendar.open(Paths.get(journal), new Calendar(), fsync);
+      } else if (image != null && Files.exists(Paths.get(image))) {
+        model = Calendar.readImage(Paths.get(image));
+      } else {
+        model = new Calendar();
+      }
+      try {
+        switch (mode) {
+          case "interactive":
+            runInteractiveMode(model);
+            break;
+          case "headless":
+            if (args.length < 3) {
+              System.err.println("Error: Headless mode requires a filename");
+              System.exit(1);
+            }
+            runHeadlessMode(model, args[2]);
+            break;
+          default:
+            System.err.println("Error: Mode must be 'interactive' or 'headless'");
             System.exit(1);
+        }
+      } finally {
+        // Saving the image empties the journal, so the next start has nothing to replay
+        if (model instanceof JournaledCalendar) {
+          try {
+            if (image != null) {
+              ((JournaledCalendar) model).checkpoint();
+            }
+          } finally {
+            ((JournaledCalendar) model).close();
           }
-          runHeadlessMode(model, args[2]);
-          break;
-        default:
-          System.err.println("Error: Mode must be 'interactive' or 'headless'");
-          System.exit(1);
+        } else if (image != null) {
+          ((Calendar) model).writeImage(Paths.get(image));
+        }
       }
-    } catch (IOException e) {
+    } catch (IOException | IllegalStateException e) {
       System.err.println("Error: " + e.getMessage());
       System.exit(1);
     }
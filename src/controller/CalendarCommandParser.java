@@ -1,11 +1,14 @@
 package controller;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import model.CsvExporter;
 
 /**
  * Parses text commands into executable command objects using simple string operations.
@@ -59,6 +62,20 @@ public class CalendarCommandParser {
       return parseShowStatus(trimmed);
     }
 
+    if (trimmed.startsWith("find free ")) {
+      return parseFindFreeSlots(trimmed);
+    }
+
+    // File commands
+    if (trimmed.startsWith("import ics ")) {
+      return parseImport(trimmed);
+    }
+
+    if (trimmed.startsWith("export ics ") || trimmed.startsWith("export csv ")
+            || trimmed.startsWith("export tsv ")) {
+      return parseExport(trimmed);
+    }
+
     return null; // Unknown command
   }
 
@@ -269,20 +286,38 @@ public class CalendarCommandParser {
   }
 
   private static IControllerCommand parsePrintEventsInRange(String command) {
-    // print events from YYYY-MM-DDThh:mm to YYYY-MM-DDThh:mm
+    // print events from YYYY-MM-DDThh:mm to YYYY-MM-DDThh:mm [limit <N> [after <token>]]
     String remainder = command.substring(18).trim(); // Remove "print events from "
     
     int toIndex = remainder.indexOf(" to ");
     if (toIndex == -1) return null;
 
     String startStr = remainder.substring(0, toIndex);
-    String endStr = remainder.substring(toIndex + 4);
+    String[] rest = remainder.substring(toIndex + 4).trim().split("\\s+");
+    String endStr = rest[0];
 
     LocalDateTime start = parseDateTime(startStr);
     LocalDateTime end = parseDateTime(endStr);
     if (start == null || end == null) return null;
+    if (rest.length == 1) {
+      return new PrintEventsInRangeCommand(start, end);
+    }
+
+    if (!"limit".equals(rest[1]) || rest.length < 3) return null;
+    int limit;
+    try {
+      limit = Integer.parseInt(rest[2]);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (limit <= 0) return null;
+    String after = null;
+    if (rest.length > 3) {
+      if (rest.length != 5 || !"after".equals(rest[3])) return null;
+      after = rest[4];
+    }
 
-    return new PrintEventsInRangeCommand(start, end);
+    return new PrintEventsInRangeCommand(start, end, limit, after);
   }
 
   private static IControllerCommand parseShowStatus(String command) {
@@ -294,7 +329,103 @@ public class CalendarCommandParser {
     return new ShowStatusCommand(dateTime);
   }
 
+  private static IControllerCommand parseFindFreeSlots(String command) {
+    // find free <minutes> from YYYY-MM-DDThh:mm to YYYY-MM-DDThh:mm
+    //   [between hh:mm and hh:mm] [limit <N>]
+    String[] parts = command.substring(10).trim().split("\\s+");
+    if (parts.length < 5 || !"from".equals(parts[1]) || !"to".equals(parts[3])) return null;
+
+    int minutes;
+    int limit = 1;
+    try {
+      minutes = Integer.parseInt(parts[0]);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    LocalDateTime from = parseDateTime(parts[2]);
+    LocalDateTime to = parseDateTime(parts[4]);
+    if (minutes <= 0 || from == null || to == null || !to.isAfter(from)) return null;
+
+    LocalTime dayStart = null;
+    LocalTime dayEnd = null;
+    int i = 5;
+    if (i < parts.length && "between".equals(parts[i])) {
+      if (i + 3 >= parts.length || !"and".equals(parts[i + 2])) return null;
+      dayStart = parseTime(parts[i + 1]);
+      dayEnd = parseTime(parts[i + 3]);
+      if (dayStart == null || dayEnd == null) return null;
+      if (!dayEnd.equals(LocalTime.MIDNIGHT) && !dayEnd.isAfter(dayStart)) return null;
+      i += 4;
+    }
+    if (i < parts.length && "limit".equals(parts[i])) {
+      if (i + 1 >= parts.length) return null;
+      try {
+        limit = Integer.parseInt(parts[i + 1]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+      if (limit <= 0) return null;
+      i += 2;
+    }
+    if (i != parts.length) return null;
+
+    return new FindFreeSlotsCommand(from, to, Duration.ofMinutes(minutes), dayStart, dayEnd, limit);
+  }
+
+  private static IControllerCommand parseImport(String command) {
+    // "import ics <file>"
+    String remainder = command.substring(11).trim();
+    String file = extractPath(remainder);
+    if (file == null || !afterPath(remainder).isEmpty()) return null;
+    return new ImportCalendarCommand(file);
+  }
+
+  private static IControllerCommand parseExport(String command) {
+    // "export ics|csv|tsv <file>" or "export ics|csv|tsv <file> from <dateTime> to <dateTime>"
+    String format = command.substring(7, 10);
+    String remainder = command.substring(11).trim();
+    String file = extractPath(remainder);
+    if (file == null) return null;
+    String rest = afterPath(remainder);
+    LocalDateTime start = LocalDateTime.MIN;
+    LocalDateTime end = LocalDateTime.MAX;
+    if (!rest.isEmpty()) {
+      String[] parts = rest.split("\\s+");
+      if (parts.length != 4 || !"from".equals(parts[0]) || !"to".equals(parts[2])) return null;
+      start = parseDateTime(parts[1]);
+      end = parseDateTime(parts[3]);
+      if (start == null || end == null || !end.isAfter(start)) return null;
+    }
+    switch (format) {
+      case "csv":
+        return new ExportTableCommand(file, CsvExporter.Dialect.CSV, start, end);
+      case "tsv":
+        return new ExportTableCommand(file, CsvExporter.Dialect.TSV, start, end);
+      default:
+        return new ExportCalendarCommand(file, start, end);
+    }
+  }
+
   // Helper Methods
+
+  private static String extractPath(String remainder) {
+    if (remainder.startsWith("\"")) {
+      int endQuote = remainder.indexOf("\"", 1);
+      if (endQuote <= 1) return null;
+      return remainder.substring(1, endQuote);
+    }
+    int spaceIndex = remainder.indexOf(" ");
+    String path = (spaceIndex == -1) ? remainder : remainder.substring(0, spaceIndex);
+    return path.isEmpty() ? null : path;
+  }
+
+  private static String afterPath(String remainder) {
+    if (remainder.startsWith("\"")) {
+      return remainder.substring(remainder.indexOf("\"", 1) + 1).trim();
+    }
+    int spaceIndex = remainder.indexOf(" ");
+    return (spaceIndex == -1) ? "" : remainder.substring(spaceIndex + 1).trim();
+  }
   
   private static String extractSubject(String remainder) {
     if (remainder.startsWith("\"")) {
@@ -361,6 +492,14 @@ public class CalendarCommandParser {
     }
   }
 
+  private static LocalTime parseTime(String timeStr) {
+    try {
+      return LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("HH:mm"));
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
   private static List<DayOfWeek> parseDays(String daysStr) {
     List<DayOfWeek> days = new ArrayList<>();
     for (char c : daysStr.toCharArray()) {
@@ -0,0 +1,40 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import model.ICalendar;
+import model.IcsExporter;
+import view.IView;
+
+/**
+ * Command to write the events in a date/time range, or all of them, to an iCalendar (.ics)
+ * file, replacing the file if it exists.
+ */
+public class ExportCalendarCommand implements IControllerCommand {
+  private final String file;
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+
+  public ExportCalendarCommand(String file) {
+    this(file, LocalDateTime.MIN, LocalDateTime.MAX);
+  }
+
+  public ExportCalendarCommand(String file, LocalDateTime start, LocalDateTime end) {
+    this.file = file;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public void execute(ICalendar model, IView view) throws IOException {
+    int events;
+    try (FileChannel out = FileChannel.open(Paths.get(file), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      events = IcsExporter.export(model, start, end, out);
+    }
+    view.showExported(file, events);
+  }
+}
@@ -0,0 +1,43 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import model.CsvExporter;
+import model.ICalendar;
+import view.IView;
+
+/**
+ * Command to write the events in a date/time range, or all of them, to a CSV or TSV file with
+ * one row per event, replacing the file if it exists.
+ */
+public class ExportTableCommand implements IControllerCommand {
+  private final String file;
+  private final CsvExporter.Dialect dialect;
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+
+  public ExportTableCommand(String file, CsvExporter.Dialect dialect) {
+    this(file, dialect, LocalDateTime.MIN, LocalDateTime.MAX);
+  }
+
+  public ExportTableCommand(String file, CsvExporter.Dialect dialect, LocalDateTime start,
+                            LocalDateTime end) {
+    this.file = file;
+    this.dialect = dialect;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public void execute(ICalendar model, IView view) throws IOException {
+    int events;
+    try (FileChannel out = FileChannel.open(Paths.get(file), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      events = CsvExporter.export(model, start, end, dialect, out);
+    }
+    view.showExported(file, events);
+  }
+}
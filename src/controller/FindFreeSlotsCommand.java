@@ -0,0 +1,39 @@
+package controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import model.ICalendar;
+import model.TimeSlot;
+import view.IView;
+
+/**
+ * Command to find the earliest free slots of a given length in a date/time range, optionally
+ * only within working hours.
+ */
+public class FindFreeSlotsCommand implements IControllerCommand {
+  private final LocalDateTime from;
+  private final LocalDateTime to;
+  private final Duration length;
+  private final LocalTime dayStart;
+  private final LocalTime dayEnd;
+  private final int limit;
+
+  public FindFreeSlotsCommand(LocalDateTime from, LocalDateTime to, Duration length,
+                              LocalTime dayStart, LocalTime dayEnd, int limit) {
+    this.from = from;
+    this.to = to;
+    this.length = length;
+    this.dayStart = dayStart;
+    this.dayEnd = dayEnd;
+    this.limit = limit;
+  }
+
+  @Override
+  public void execute(ICalendar model, IView view) throws IOException {
+    List<TimeSlot> slots = model.findFreeSlots(from, to, length, dayStart, dayEnd, limit);
+    view.showFreeSlots(length, slots);
+  }
+}
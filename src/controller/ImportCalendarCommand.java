@@ -0,0 +1,34 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.ICalendar;
+import model.IcsImporter;
+import model.ImportReport;
+import view.IView;
+
+/**
+ * Command to add the events of an iCalendar (.ics) file to the calendar.
+ */
+public class ImportCalendarCommand implements IControllerCommand {
+  private final String file;
+
+  public ImportCalendarCommand(String file) {
+    this.file = file;
+  }
+
+  @Override
+  public void execute(ICalendar model, IView view) throws IOException {
+    ImportReport report;
+    try (FileChannel in = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+      report = IcsImporter.importEvents(in, model);
+    } catch (NoSuchFileException e) {
+      view.showError("No such file: " + file);
+      return;
+    }
+    view.showImported(file, report);
+  }
+}
@@ -2,9 +2,7 @@ package controller;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.List;
 import model.ICalendar;
-import model.IEvent;
 import view.IView;
 
 /**
@@ -13,15 +11,26 @@ import view.IView;
 public class PrintEventsInRangeCommand implements IControllerCommand {
   private final LocalDateTime start;
   private final LocalDateTime end;
+  private final int limit;      // 0 prints the whole range at once
+  private final String after;   // page token to resume from, or null for the first page
   
   public PrintEventsInRangeCommand(LocalDateTime start, LocalDateTime end) {
+    this(start, end, 0, null);
+  }
+
+  public PrintEventsInRangeCommand(LocalDateTime start, LocalDateTime end, int limit, String after) {
     this.start = start;
     this.end = end;
+    this.limit = limit;
+    this.after = after;
   }
 
   @Override
   public void execute(ICalendar model, IView view) throws IOException {
-    List<IEvent> events = model.getEventsInRange(start, end);
-    view.showEventsInRange(start, end, events);
+    if (limit > 0) {
+      view.showEventPage(start, end, model.getEventsInRange(start, end, limit, after));
+    } else {
+      view.showEventsInRange(start, end, action -> model.forEachEventInRange(start, end, action));
+    }
   }
 } 
\ No newline at end of file
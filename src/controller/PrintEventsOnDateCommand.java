@@ -2,9 +2,7 @@ package controller;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
 import model.ICalendar;
-import model.IEvent;
 import view.IView;
 
 /**
@@ -19,7 +17,6 @@ public class PrintEventsOnDateCommand implements IControllerCommand {
 
   @Override
   public void execute(ICalendar model, IView view) throws IOException {
-    List<IEvent> events = model.getEventsOnDate(date);
-    view.showEventsOnDate(date, events);
+    view.showEventsOnDate(date, action -> model.forEachEventOnDate(date, action));
   }
 } 
\ No newline at end of file
@@ -6,15 +6,35 @@ import java.util.Objects;
 /**
  * An abstract base class for any calendar event.  Location and Status are now
  * nullable; no default is filled in if the caller never sets them.
+ *
+ * <p>Start and end are packed into {@code long} epoch minutes (see {@link PackedTime}) rather
+ * than held as {@link LocalDateTime}s, which are three objects apiece; {@link #getStart()} and
+ * {@link #getEnd()} rebuild them on demand, for callers outside the model.  A time that does not
+ * fall on a whole minute also keeps its exact value, so nothing is rounded.  The hash is computed
+ * once, at construction, and equality, overlap, start order and the calendar's interval trees
+ * all work on the packed values.
+ *
+ * <p>An event a calendar stores or builds also carries the code its subject has in that
+ * calendar's {@link StringDictionary}, and two events coded by the same dictionary compare
+ * subjects by code.  Codes are never reused, so equal codes mean equal subjects; different
+ * codes still fall back to the strings, since a subject pruned and added again gets a new code.
  */
 public abstract class AbstractEvent implements IEvent {
+  private static final long NO_TIME = Long.MIN_VALUE;  // packed value of a missing end
+
   protected final String subject;
-  protected final LocalDateTime start;
-  protected final LocalDateTime end;
+  private final long start;                // epoch minute, rounded down
+  private final long end;                  // epoch minute, rounded down, or NO_TIME
+  private final LocalDateTime exactStart;  // only when start is not a whole minute
+  private final LocalDateTime exactEnd;    // only when end is not a whole minute
+  private final int hash;
+  private final StringDictionary strings;  // the dictionary subjectCode is from, or null
+  private final int subjectCode;
   protected final String description;
   protected final Location location; // may be null
   protected final Status status;     // may be null
-  protected final Integer seriesId;  // null if not part of a series
+  protected final Long seriesId;     // null if not part of a series
+  protected final long id;           // 0 until a calendar stores the event
 
   protected AbstractEvent(
           String subject,
@@ -23,7 +43,24 @@ public abstract class AbstractEvent implements IEvent {
           String description,
           Location location,
           Status status,
-          Integer seriesId
+          Long seriesId,
+          long id
+  ) {
+    this(subject, start, end, description, location, status, seriesId, id, null,
+            StringDictionary.ABSENT);
+  }
+
+  AbstractEvent(
+          String subject,
+          LocalDateTime start,
+          LocalDateTime end,
+          String description,
+          Location location,
+          Status status,
+          Long seriesId,
+          long id,
+          StringDictionary strings,
+          int subjectCode
   ) {
     if (subject == null || subject.trim().isEmpty()) {
       throw new IllegalArgumentException("Subject cannot be null or empty");
@@ -32,12 +69,19 @@ public abstract class AbstractEvent implements IEvent {
       throw new IllegalArgumentException("Start time cannot be null");
     }
     this.subject = subject;
-    this.start = start;
-    this.end = end; // may be null for “all‐day” logic upstream
+    this.start = PackedTime.pack(start);
+    // end may be null for “all‐day” logic upstream
+    this.end = (end == null) ? NO_TIME : PackedTime.pack(end);
+    this.exactStart = PackedTime.exact(start);
+    this.exactEnd = (end == null) ? null : PackedTime.exact(end);
+    this.hash = Objects.hash(subject, start, end);
+    this.strings = (subjectCode >= 0) ? strings : null;
+    this.subjectCode = subjectCode;
     this.description = (description == null) ? "" : description;
     this.location = location; // now simply accept whatever caller passed (even null)
     this.status   = status;   // likewise, can remain null
     this.seriesId = seriesId;
+    this.id = id;
   }
 
   @Override
@@ -47,12 +91,12 @@ public abstract class AbstractEvent implements IEvent {
 
   @Override
   public LocalDateTime getStart() {
-    return start;
+    return PackedTime.unpack(start, exactStart);
   }
 
   @Override
   public LocalDateTime getEnd() {
-    return end;
+    return (end == NO_TIME) ? null : PackedTime.unpack(end, exactEnd);
   }
 
   @Override
@@ -71,25 +115,134 @@ public abstract class AbstractEvent implements IEvent {
   }
 
   @Override
-  public Integer getSeriesId() {
+  public Long getSeriesId() {
     return seriesId;
   }
 
+  @Override
+  public long getId() {
+    return id;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
+    if (o instanceof AbstractEvent) {
+      AbstractEvent other = (AbstractEvent) o;
+      return hash == other.hash
+              && start == other.start && end == other.end
+              && Objects.equals(exactStart, other.exactStart)
+              && Objects.equals(exactEnd, other.exactEnd)
+              && hasSubject(other, strings, subjectCode, subject);
+    }
     if (!(o instanceof IEvent)) return false;
     IEvent other = (IEvent) o;
     return Objects.equals(subject, other.getSubject())
-            && Objects.equals(start, other.getStart())
-            && Objects.equals(end, other.getEnd());
+            && Objects.equals(getStart(), other.getStart())
+            && Objects.equals(getEnd(), other.getEnd());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(subject, start, end);
+    return hash;
+  }
+
+  /**
+   * @return true if this event and {@code other} share some instant: each starts before the
+   *         other ends.  False if either has no end.
+   */
+  protected boolean overlapsInTime(IEvent other) {
+    if (other instanceof AbstractEvent) {
+      AbstractEvent o = (AbstractEvent) other;
+      return end != NO_TIME && o.end != NO_TIME
+              && PackedTime.compare(start, exactStart, o.end, o.exactEnd) < 0
+              && PackedTime.compare(o.start, o.exactStart, end, exactEnd) < 0;
+    }
+    if (end == NO_TIME || other.getEnd() == null) {
+      return false;
+    }
+    return getStart().isBefore(other.getEnd()) && other.getStart().isBefore(getEnd());
+  }
+
+  /**
+   * @return true if the subject of {@code event} is {@code subject}, whose code in
+   *         {@code strings} (which may be null) is {@code code}.
+   */
+  static boolean hasSubject(IEvent event, StringDictionary strings, int code, String subject) {
+    if (strings != null && event instanceof AbstractEvent) {
+      AbstractEvent e = (AbstractEvent) event;
+      if (e.strings == strings && e.subjectCode == code) {
+        return true;
+      }
+    }
+    return subject.equals(event.getSubject());
+  }
+
+  /**
+   * @return the dictionary this event's subject code is from, or null if it has none.
+   */
+  StringDictionary codedBy() {
+    return strings;
   }
 
+  /**
+   * @return the code of this event's subject in {@link #codedBy()}.
+   */
+  int subjectCode() {
+    return subjectCode;
+  }
+
+  /**
+   * @return the code of this event's subject in {@code strings}, interning it there unless
+   *         the event was coded by that dictionary and the subject has not been pruned since.
+   */
+  int subjectCodeIn(StringDictionary strings) {
+    return (this.strings == strings && strings.decode(subjectCode) == subject)
+            ? subjectCode : strings.intern(subject);
+  }
+
+  /**
+   * Order two events by start, on the packed values when both are AbstractEvents.
+   */
+  static int compareStarts(IEvent a, IEvent b) {
+    if (a instanceof AbstractEvent && b instanceof AbstractEvent) {
+      AbstractEvent x = (AbstractEvent) a;
+      AbstractEvent y = (AbstractEvent) b;
+      return PackedTime.compare(x.start, x.exactStart, y.start, y.exactStart);
+    }
+    return a.getStart().compareTo(b.getStart());
+  }
+
+  /**
+   * How an {@link IntervalTree} of events reads their spans: straight from the packed fields of
+   * an AbstractEvent, without building a {@link LocalDateTime}.
+   */
+  static final IntervalTree.Span<IEvent> SPAN = new IntervalTree.Span<IEvent>() {
+    @Override
+    public long startMinute(IEvent e) {
+      return (e instanceof AbstractEvent)
+              ? ((AbstractEvent) e).start : PackedTime.pack(e.getStart());
+    }
+
+    @Override
+    public long endMinute(IEvent e) {
+      return (e instanceof AbstractEvent)
+              ? ((AbstractEvent) e).end : PackedTime.pack(e.getEnd());
+    }
+
+    @Override
+    public LocalDateTime exactStart(IEvent e) {
+      return (e instanceof AbstractEvent)
+              ? ((AbstractEvent) e).exactStart : PackedTime.exact(e.getStart());
+    }
+
+    @Override
+    public LocalDateTime exactEnd(IEvent e) {
+      return (e instanceof AbstractEvent)
+              ? ((AbstractEvent) e).exactEnd : PackedTime.exact(e.getEnd());
+    }
+  };
+
   /**
    * Abstract Builder for any concrete Event subclass.  Location and Status stay nullable.
    */
@@ -100,10 +253,29 @@ public abstract class AbstractEvent implements IEvent {
     protected String description;
     protected Location location; // remain null if caller never sets
     protected Status status;     // remain null if caller never sets
-    protected Integer seriesId;
+    protected Long seriesId;
+    protected long id;
+    StringDictionary strings;                        // where subjectCode is from, if set
+    int subjectCode = StringDictionary.ABSENT;
 
     public T subject(String subject) {
       this.subject = subject;
+      this.strings = null;
+      this.subjectCode = StringDictionary.ABSENT;
+      return self();
+    }
+
+    /**
+     * Take the subject from {@code strings} by its code, so the event compares subjects by
+     * code.  A negative code, such as {@link StringDictionary#ABSENT}, leaves the subject as
+     * it was set.
+     */
+    T coded(StringDictionary strings, int code) {
+      if (code >= 0) {
+        this.subject = strings.decode(code);
+        this.strings = strings;
+        this.subjectCode = code;
+      }
       return self();
     }
 
@@ -132,11 +304,16 @@ public abstract class AbstractEvent implements IEvent {
       return self();
     }
 
-    public T seriesId(Integer id) {
+    public T seriesId(long id) {
       this.seriesId = id;
       return self();
     }
 
+    public T id(long id) {
+      this.id = id;
+      return self();
+    }
+
     protected abstract T self();
     public abstract AbstractEvent build();
   }
@@ -0,0 +1,239 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per‐day occupancy bitmaps: 1440 bits (23 longs) per day, bit m set when some event covers the
+ * whole minute [m, m+1).  A point check is one bit test and "is this stretch free?" is a
+ * word‐wise OR, however many events the day holds.
+ *
+ * <p>Bitmaps are built lazily from a {@link CalendarSnapshot} the first time a day is asked
+ * about and cached with that snapshot.  When Calendar publishes the next snapshot the cache is
+ * carried over: added events are OR‐ed into the cached days they touch, and days that lost an
+ * event or whose recurring runs changed are dropped to be rebuilt on demand.  The cache is a
+ * persistent {@link LongMap} keyed by epoch day, so the next snapshot shares every untouched
+ * day with this one and carrying it over costs only the days a change touches.  A cached bitmap
+ * is never modified, so older snapshots keep seeing their own.
+ */
+final class BusyDays {
+
+  static final int MINUTES_PER_DAY = 24 * 60;
+  private static final int CAPACITY = 1024;   // cached days; the farthest goes when full
+
+  /**
+   * The occupancy of one day.  {@code exact} is false when some event on the day starts or ends
+   * off a minute boundary or has no positive length; the bits cannot answer for such a day, and
+   * callers fall back to the event trees.
+   */
+  static final class Day {
+    final long[] words;
+    final boolean exact;
+
+    private Day(long[] words, boolean exact) {
+      this.words = words;
+      this.exact = exact;
+    }
+
+    static Day of(LocalDate date, List<IEvent> events) {
+      long[] words = new long[(MINUTES_PER_DAY + 63) / 64];
+      boolean exact = true;
+      for (IEvent e : events) {
+        exact &= mark(words, date, e);
+      }
+      return new Day(words, exact);
+    }
+
+    /**
+     * @return a copy of this day with {@code event} marked busy.
+     */
+    Day with(LocalDate date, IEvent event) {
+      long[] copy = words.clone();
+      boolean aligned = mark(copy, date, event);
+      return new Day(copy, exact && aligned);
+    }
+
+    /**
+     * Set the minutes of {@code date} that {@code event} covers completely, reading its packed
+     * times.
+     * @return false if the event starts or ends off a minute boundary or has no positive length.
+     */
+    private static boolean mark(long[] words, LocalDate date, IEvent event) {
+      long start = AbstractEvent.SPAN.startMinute(event);
+      long end = AbstractEvent.SPAN.endMinute(event);
+      boolean startAligned = AbstractEvent.SPAN.exactStart(event) == null;
+      long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+      // Only minutes the event covers completely; the floor of a ragged end already stops short
+      long lo = Math.max(startAligned ? start : start + 1, dayStart);
+      long hi = Math.min(end, dayStart + MINUTES_PER_DAY);
+      if (lo < hi) {
+        set(words, (int) (lo - dayStart), (int) (hi - dayStart));
+      }
+      return startAligned && AbstractEvent.SPAN.exactEnd(event) == null && end > start;
+    }
+
+    boolean busyAt(int minute) {
+      return (words[minute >>> 6] & (1L << minute)) != 0;
+    }
+
+    /**
+     * @return true if any minute in [lo, hi) is busy.
+     */
+    boolean anyBusy(int lo, int hi) {
+      for (int w = lo >>> 6; lo < hi; w++) {
+        int end = Math.min(hi, (w + 1) << 6);
+        if ((words[w] & mask(lo, end)) != 0) {
+          return true;
+        }
+        lo = end;
+      }
+      return false;
+    }
+
+    /**
+     * @return the first busy minute in [lo, hi), or hi if they are all free.
+     */
+    int nextBusy(int lo, int hi) {
+      for (int w = lo >>> 6; lo < hi; w++) {
+        int end = Math.min(hi, (w + 1) << 6);
+        long hits = words[w] & mask(lo, end);
+        if (hits != 0) {
+          return (w << 6) + Long.numberOfTrailingZeros(hits);
+        }
+        lo = end;
+      }
+      return hi;
+    }
+
+    /**
+     * @return the first free minute in [lo, hi), or hi if they are all busy.
+     */
+    int nextFree(int lo, int hi) {
+      for (int w = lo >>> 6; lo < hi; w++) {
+        int end = Math.min(hi, (w + 1) << 6);
+        long gaps = ~words[w] & mask(lo, end);
+        if (gaps != 0) {
+          return (w << 6) + Long.numberOfTrailingZeros(gaps);
+        }
+        lo = end;
+      }
+      return hi;
+    }
+
+    private static void set(long[] words, int lo, int hi) {
+      for (int w = lo >>> 6; lo < hi; w++) {
+        int end = Math.min(hi, (w + 1) << 6);
+        words[w] |= mask(lo, end);
+        lo = end;
+      }
+    }
+
+    /**
+     * @return the bits for minutes [lo, hi) of the word holding lo; both lie in one word.
+     */
+    private static long mask(int lo, int hi) {
+      long upper = (hi - (lo & ~63) == 64) ? -1L : (1L << (hi & 63)) - 1;
+      return upper & (-1L << (lo & 63));
+    }
+  }
+
+  /**
+   * What one mutation did to the calendar, collected until Calendar publishes it.
+   */
+  static final class Changes {
+    private final List<IEvent> added = new ArrayList<>();
+    private final List<long[]> dropped = new ArrayList<>();  // epoch day ranges, inclusive
+
+    void added(IEvent event) {
+      added.add(event);
+    }
+
+    void dropped(LocalDate first, LocalDate last) {
+      long a = first.toEpochDay();
+      long b = last.toEpochDay();
+      dropped.add(new long[] {Math.min(a, b), Math.max(a, b)});
+    }
+  }
+
+  private final AtomicReference<LongMap<Day>> days;   // epoch day -> bitmap
+
+  BusyDays() {
+    this(LongMap.empty());
+  }
+
+  private BusyDays(LongMap<Day> days) {
+    this.days = new AtomicReference<>(days);
+  }
+
+  Day get(LocalDate date) {
+    return days.get().get(date.toEpochDay());
+  }
+
+  /**
+   * Cache {@code day}.  Readers of one snapshot may race to fill its cache; the last to land
+   * wins, which is harmless since they all built the same bitmap.
+   */
+  void put(LocalDate date, Day day) {
+    long key = date.toEpochDay();
+    while (true) {
+      LongMap<Day> cached = days.get();
+      LongMap<Day> updated = cached;
+      if (updated.size() >= CAPACITY && updated.get(key) == null) {
+        // Evict whichever end of the cache lies farther from the day coming in
+        long first = updated.firstKey();
+        long last = updated.lastKey();
+        updated = updated.without((key - first > last - key) ? first : last);
+      }
+      if (days.compareAndSet(cached, updated.with(key, day))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the cache for the snapshot that follows these {@code changes}.  Each added event and
+   *         dropped range costs O((d + 1) log c) for the d of the c cached days it touches.
+   */
+  BusyDays next(Changes changes) {
+    LongMap<Day> cached = days.get();
+    for (long[] range : changes.dropped) {
+      if (cached.size() == 0) {
+        break;
+      }
+      List<Long> hit = new ArrayList<>();
+      cached.forEachBetween(range[0], range[1], (d, day) -> hit.add(d));
+      for (long d : hit) {
+        cached = cached.without(d);
+      }
+    }
+    for (IEvent e : changes.added) {
+      if (cached.size() == 0) {
+        break;
+      }
+      long first = Math.floorDiv(AbstractEvent.SPAN.startMinute(e), MINUTES_PER_DAY);
+      long last = Math.max(first,
+              Math.floorDiv(AbstractEvent.SPAN.endMinute(e), MINUTES_PER_DAY));
+      List<Long> hit = new ArrayList<>();
+      List<Day> marked = new ArrayList<>();
+      cached.forEachBetween(first, last, (d, day) -> {
+        hit.add(d);
+        marked.add(day.with(LocalDate.ofEpochDay(d), e));
+      });
+      for (int i = 0; i < hit.size(); i++) {
+        cached = cached.with(hit.get(i), marked.get(i));
+      }
+    }
+    return new BusyDays(cached);
+  }
+
+  static int minuteOf(LocalDateTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  static boolean isMinuteAligned(LocalDateTime time) {
+    return time.getSecond() == 0 && time.getNano() == 0;
+  }
+}
@@ -1,35 +1,302 @@
 package model;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * A single‐calendar implementation.  Location and Status are now passed in
  * as enums (or null). If null, the event simply has no location/status.
+ *
+ * <p>Recurring series are not stored occurrence by occurrence.  Each series is kept as one or
+ * more {@link SeriesSegment}s over a shared {@link RecurrenceRule}, and queries expand the
+ * occurrences they need on the fly.  Only events that cannot be described that way (single
+ * events, occurrences whose times were edited, series events handed to addEvent) are stored
+ * individually.
+ *
+ * <p>The event stores are persistent trees.  After every successful mutation the calendar
+ * publishes them as a {@link CalendarSnapshot} through one volatile field, and every query is
+ * answered from the latest snapshot.  Queries may therefore run on any thread, without locks,
+ * while mutations happen elsewhere; mutations themselves must come from one thread at a time
+ * (see {@link ConcurrentCalendar}).  ID lookups are the exception: they use hash indexes kept
+ * by the writer and must not race with mutations.
  */
 public class Calendar implements ICalendar {
 
-  private static int series_num = 1;
-  private final ArrayList<IEvent> events;
+  private final AtomicLong seriesIds;            // next series ID, numbered per calendar
+  private final AtomicLong eventIds;             // next event ID, numbered per calendar
+  private long nextSeq;                          // ties between equal starts go by this order
+  private IntervalTree<IEvent> timeline;         // every stored event, ordered by start
+  private IntervalTree<SeriesSegment> recurring; // recurring runs, by the span they cover
+  private volatile CalendarSnapshot current;     // what queries see: the trees as last published
+  private BusyDays.Changes changes;              // what to tell the bitmaps at the next publish
+  private final Map<IEvent, Entry> keys;         // (subject, start, end) -> stored event
+  private final Map<Long, IEvent> byId;          // stored event ID -> stored event
+  private LongMap<IEvent> ids;                   // the same, persistent, for snapshots
+  private LongMap<SeriesSegment> byFirstId;      // first ID of a series -> its first run
+  private final SeriesIndex series;              // seriesId -> stored members in start order
+  private final Map<Long, List<SeriesSegment>> runs;  // seriesId -> its recurring runs
+  private final StringDictionary strings;        // one shared instance per subject/description
+  private OverlapPolicy overlapPolicy;           // how makeEvent treats overlapping events
+  private List<IEvent> lastOverlaps;             // what the last makeEvent overlapped
 
   public Calendar() {
-    this.events = new ArrayList<>();
+    this(16);
+  }
+
+  /**
+   * @param capacity how many stored events the lookup indexes should hold without resizing.
+   */
+  private Calendar(int capacity) {
+    this.seriesIds = new AtomicLong(1);
+    this.eventIds = new AtomicLong(1);
+    this.timeline = IntervalTree.empty(AbstractEvent.SPAN);
+    this.recurring = IntervalTree.empty(SeriesSegment.SPAN);
+    this.current = CalendarSnapshot.empty();
+    this.changes = new BusyDays.Changes();
+    this.keys = new HashMap<>(capacity);
+    this.byId = new HashMap<>(capacity);
+    this.ids = LongMap.empty();
+    this.byFirstId = LongMap.empty();
+    this.series = new SeriesIndex();
+    this.runs = new HashMap<>();
+    this.strings = new StringDictionary();
+    this.overlapPolicy = OverlapPolicy.ALLOW;
+    this.lastOverlaps = Collections.emptyList();
+  }
+
+  /**
+   * Choose whether makeEvent checks new events and series for overlaps.  The check reads the
+   * interval tree, so it costs O(log n) per event plus the overlaps it finds.
+   */
+  public void setOverlapPolicy(OverlapPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Overlap policy cannot be null");
+    }
+    this.overlapPolicy = policy;
+  }
+
+  public OverlapPolicy getOverlapPolicy() {
+    return this.overlapPolicy;
+  }
+
+  /**
+   * @return the existing events the last makeEvent call overlapped, in start order; empty
+   *         under {@link OverlapPolicy#ALLOW}.  Under REJECT these are why it returned false.
+   */
+  public List<IEvent> getLastOverlaps() {
+    return this.lastOverlaps;
+  }
+
+  /**
+   * @return an immutable view of the calendar as it stands now, unaffected by later changes.
+   */
+  public CalendarSnapshot snapshot() {
+    return this.current;
+  }
+
+  /**
+   * Save the whole calendar, IDs still to be handed out included, as a binary image that
+   * {@link #readImage} loads back far faster than the commands or journal that built it.
+   * The file is replaced only once the new image is complete.  Like the ID lookups, this reads
+   * the writer's indexes and must not race with mutations.
+   */
+  public void writeImage(Path file) throws IOException {
+    writeImage(file, 0);
+  }
+
+  /**
+   * Load a calendar saved by {@link #writeImage}.  The file is mapped rather than parsed, and
+   * the stored events go straight back into their trees in order, so loading costs little
+   * more than touching each page once.  Images are limited to 2 GB.
+   * @throws IOException if the file cannot be read, is not a calendar image, or is damaged.
+   */
+  public static Calendar readImage(Path file) throws IOException {
+    return fromImage(new CalendarImage.Reader(file));
+  }
+
+  /**
+   * Like {@link #writeImage(Path)}, also noting how many journal entries the image covers.
+   */
+  void writeImage(Path file, long journalMark) throws IOException {
+    // Every run and rule is written once, however many places refer to it
+    Map<SeriesSegment, Boolean> segments = new IdentityHashMap<>();
+    Map<RecurrenceRule, Integer> rules = new IdentityHashMap<>();
+    List<RecurrenceRule> ruleList = new ArrayList<>();
+    for (List<SeriesSegment> list : this.runs.values()) {
+      for (SeriesSegment run : list) {
+        segments.put(run, Boolean.FALSE);
+      }
+    }
+    this.byFirstId.forEach((id, first) -> segments.put(first, Boolean.TRUE));
+    for (SeriesSegment run : segments.keySet()) {
+      if (rules.putIfAbsent(run.rule, ruleList.size()) == null) {
+        ruleList.add(run.rule);
+      }
+    }
+    // Strings are written renumbered from 0, without the empty slots pruned ones left behind
+    StringDictionary live = new StringDictionary();
+    for (SeriesSegment run : segments.keySet()) {
+      live.encode(run.subject);
+      live.encode(run.description);
+    }
+    this.timeline.forEach((event, seq) -> {
+      live.encode(event.getSubject());
+      live.encode(event.getDescription());
+    });
+
+    try (CalendarImage.Writer out = new CalendarImage.Writer(file)) {
+      out.header(journalMark, this.seriesIds.get(), this.eventIds.get(), this.nextSeq,
+              this.overlapPolicy, live.size(), ruleList.size(), segments.size(),
+              this.timeline.size());
+      for (int code = 0; code < live.size(); code++) {
+        out.string(live.decode(code));
+      }
+      for (RecurrenceRule rule : ruleList) {
+        out.rule(rule);
+      }
+      // Live runs go in series order, so each series gets its runs back in the same order
+      Set<SeriesSegment> written = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (List<SeriesSegment> list : this.runs.values()) {
+        for (SeriesSegment run : list) {
+          writeSegment(out, live, run, rules, true, segments.get(run));
+          written.add(run);
+        }
+      }
+      List<SeriesSegment> firsts = new ArrayList<>();
+      this.byFirstId.forEach((id, first) -> firsts.add(first));
+      for (SeriesSegment first : firsts) {
+        if (written.add(first)) {
+          writeSegment(out, live, first, rules, false, true);
+        }
+      }
+      IOException[] failure = new IOException[1];
+      this.timeline.forEach((event, seq) -> {
+        if (failure[0] == null) {
+          try {
+            out.event(event, seq, live.codeOf(event.getSubject()),
+                    live.codeOf(event.getDescription()));
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        }
+      });
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+      out.commit();
+    }
+  }
+
+  private static void writeSegment(CalendarImage.Writer out, StringDictionary strings,
+                                   SeriesSegment run, Map<RecurrenceRule, Integer> rules,
+                                   boolean indexed, boolean firstOfSeries) throws IOException {
+    out.segment(run, rules.get(run.rule), strings.codeOf(run.subject),
+            strings.codeOf(run.description), indexed, firstOfSeries);
+  }
+
+  /**
+   * Rebuild a calendar from an image opened by {@link CalendarImage.Reader}.
+   */
+  static Calendar fromImage(CalendarImage.Reader image) throws IOException {
+    Calendar cal = new Calendar((int) Math.min(Integer.MAX_VALUE, image.events() / 3L * 4 + 16));
+    image.readStrings(cal.strings);
+    List<RecurrenceRule> rules = image.readRules();
+    image.readSegments(rules, cal.strings, (run, indexed, firstOfSeries) -> {
+      if (indexed) {
+        cal.indexRun(run);
+      }
+      if (firstOfSeries) {
+        cal.byFirstId = cal.byFirstId.with(run.rule.idOf(0), run);
+      }
+    });
+    List<IEvent> events = new ArrayList<>(image.events());
+    long[] seqs = new long[image.events()];
+    image.readEvents(cal.strings, (event, seq) -> {
+      seqs[events.size()] = seq;
+      events.add(event);
+      cal.register(event, seq);
+    });
+    cal.timeline = IntervalTree.ofSorted(AbstractEvent.SPAN, events, seqs);
+    List<IEvent> byIdOrder = new ArrayList<>(events);
+    byIdOrder.sort(Comparator.comparingLong(IEvent::getId));
+    cal.ids = LongMap.<IEvent>empty().withAll(idsOf(byIdOrder), byIdOrder);
+    cal.seriesIds.set(image.nextSeriesId());
+    cal.eventIds.set(image.nextEventId());
+    cal.nextSeq = image.nextSeq();
+    cal.overlapPolicy = image.overlapPolicy();
+    cal.publish();
+    return cal;
   }
 
   @Override
   public boolean addEvent(IEvent event) {
-    for (IEvent e : this.events) {
-      if (e.equals(event)) {
-        return false;
-      }
+    if (isTaken(event)) {
+      return false;
     }
-    this.events.add(event);
+    // IDs are per calendar, so the stored copy gets one of ours
+    index(recreateWithProperty(event, "id", this.eventIds.getAndIncrement()));
+    publish();
     return true;
   }
 
+  /**
+   * {@inheritDoc}  Duplicates are found by hashing, the batch is sorted once, and a large
+   * batch is merged into the timeline in a single pass; the result is published as one
+   * snapshot.  Like addEvent, this ignores the overlap policy.
+   */
+  @Override
+  public ImportReport addAll(Collection<? extends IEvent> events) {
+    ImportReport.Builder report = ImportReport.getBuilder();
+    Set<IEvent> batch = new HashSet<>();
+    List<IEvent> accepted = new ArrayList<>(events.size());
+    int index = 0;
+    for (IEvent event : events) {
+      if (event == null || event.getSubject() == null
+              || event.getStart() == null || event.getEnd() == null) {
+        report.reject(index, event, ImportReport.Reason.INVALID);
+      } else if (isTaken(event)) {
+        report.reject(index, event, ImportReport.Reason.ALREADY_EXISTS);
+      } else if (!batch.add(event)) {
+        report.reject(index, event, ImportReport.Reason.DUPLICATE_IN_BATCH);
+      } else {
+        accepted.add(canonical(
+                recreateWithProperty(event, "id", this.eventIds.getAndIncrement())));
+      }
+      index++;
+    }
+    if (accepted.isEmpty()) {
+      return report.build();
+    }
+    // Accepted events got their IDs in batch order, above every ID stored so far
+    this.ids = this.ids.withAll(idsOf(accepted), accepted);
+    accepted.sort(AbstractEvent::compareStarts);   // stable, so equal starts keep batch order
+    long firstSeq = this.nextSeq;
+    for (IEvent event : accepted) {
+      register(event, this.nextSeq++);
+    }
+    this.timeline = this.timeline.insertAll(accepted, firstSeq);
+    publish();
+    return report.added(accepted.size()).build();
+  }
+
   /**
    * Create a single (possibly multi‐hour) event. If end == null, defaults to 08:00→17:00.
    * Location and Status may be null (no defaults).
@@ -55,7 +322,9 @@ public class Calendar implements ICalendar {
     }
 
     IEvent candidate = SingleEvent.getBuilder()
+            .id(this.eventIds.getAndIncrement())
             .subject(subject)
+            .coded(this.strings, this.strings.codeOf(subject))
             .description(description)
             .start(start)
             .end(end)
@@ -64,14 +333,13 @@ public class Calendar implements ICalendar {
             .build();
 
     // Duplicate‐check
-    for (IEvent e : this.events) {
-      if (e.equals(candidate)) {
-        return false;
-      }
+    this.lastOverlaps = Collections.emptyList();
+    if (isTaken(candidate) || !overlapsAllowed(overlapsOf(candidate))) {
+      return false;
     }
 
-    this.events.add(candidate);
-    this.events.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    index(candidate);
+    publish();
     return true;
   }
 
@@ -91,6 +359,11 @@ public class Calendar implements ICalendar {
     if (subject == null || start == null || days == null || days.isEmpty() || count <= 0) {
       throw new IllegalArgumentException("Invalid arguments for makeEvent(series by count)");
     }
+    // A weekday listed twice still means one occurrence a week
+    days = RecurrenceRule.distinct(days);
+    // Interned strings leave again at the next publish unless the run is stored
+    int subjectCode = this.strings.intern(subject);
+    description = this.strings.decode(this.strings.intern(description));
 
     // If no end, default each to 08:00→17:00
     if (end == null) {
@@ -99,42 +372,32 @@ public class Calendar implements ICalendar {
       end   = base.withHour(17).withMinute(0);
     }
 
-    List<IEvent> toAdd = new ArrayList<>();
-    int occurrences = 0;
-    LocalDate cursor = start.toLocalDate();
-
-    while (occurrences < count) {
-      for (java.time.DayOfWeek d : days) {
-        if (occurrences >= count) break;
-        LocalDate nextDate = getNextOrSame(cursor, d);
-        LocalDateTime nextStart = nextDate.atTime(start.toLocalTime());
-        LocalDateTime nextEnd   = nextDate.atTime(end.toLocalTime());
-
-        IEvent candidate = SeriesEvent.getBuilder()
-                .seriesId(series_num)
-                .subject(subject)
-                .description(description)
-                .start(nextStart)
-                .end(nextEnd)
-                .location(null) // remain null
-                .status(null)   // remain null
-                .build();
-
-        // Duplicate check against existing events
-        for (IEvent e : this.events) {
-          if (e.equals(candidate)) {
-            return false; // abort entire series
-          }
-        }
-        toAdd.add(candidate);
-        occurrences++;
-      }
-      cursor = cursor.plusWeeks(1);
+    // One template stands in for every occurrence; the rule says which dates it lands on.
+    IEvent template = SeriesEvent.getBuilder()
+            .seriesId(this.seriesIds.getAndIncrement())
+            .subject(subject)
+            .coded(this.strings, subjectCode)
+            .description(description)
+            .start(start)
+            .end(start.toLocalDate().atTime(end.toLocalTime()))
+            .location(null) // remain null
+            .status(null)   // remain null
+            .build();
+    RecurrenceRule rule = new RecurrenceRule(
+            start.toLocalDate(), days, count, this.eventIds.getAndAdd(count));
+    SeriesSegment run = SeriesSegment.of(
+            rule, template, start.toLocalDate(), LocalDate.MAX, this.nextSeq++);
+
+    // Duplicate check against existing events
+    this.lastOverlaps = Collections.emptyList();
+    if (runClashes(run, new HashSet<>(), new ArrayList<>(), LocalDateTime.MIN, null)
+            || !overlapsAllowed(overlapsOf(run))) {
+      return false; // abort entire series
     }
 
-    this.events.addAll(toAdd);
-    this.events.sort((a, b) -> a.getStart().compareTo(b.getStart()));
-    series_num++;
+    indexRun(run);
+    this.byFirstId = this.byFirstId.with(rule.idOf(0), run);
+    publish();
     return true;
   }
 
@@ -162,21 +425,13 @@ public class Calendar implements ICalendar {
       end   = base.withHour(17).withMinute(0);
     }
 
-    // Count occurrences up to endDate
-    int occurrences = 0;
-    java.time.LocalDate cursor = start.toLocalDate();
-    java.time.LocalDate last    = endDate.toLocalDate();
-
-    while (!cursor.isAfter(last)) {
-      for (java.time.DayOfWeek d : days) {
-        java.time.LocalDate nextDate = getNextOrSame(cursor, d);
-        if (!nextDate.isAfter(last)) occurrences++;
-      }
-      cursor = cursor.plusWeeks(1);
-    }
+    // A weekday listed twice still means one occurrence a week
+    days = RecurrenceRule.distinct(days);
+    // Count occurrences up to endDate without walking the weeks
+    long occurrences = RecurrenceRule.countThrough(start.toLocalDate(), days, endDate.toLocalDate());
     if (occurrences == 0) return false;
 
-    return makeEvent(subject, description, start, end, days, occurrences);
+    return makeEvent(subject, description, start, end, days, Math.toIntExact(occurrences));
   }
 
   /**
@@ -189,20 +444,21 @@ public class Calendar implements ICalendar {
     }
     LocalDateTime base = start.toLocalDate().atStartOfDay();
     IEvent candidate = SingleEvent.getBuilder()
+            .id(this.eventIds.getAndIncrement())
             .subject(subject)
+            .coded(this.strings, this.strings.codeOf(subject))
             .start(base.withHour(8).withMinute(0))
             .end(base.withHour(17).withMinute(0))
             .location(null) // stay null
             .status(null)   // stay null
             .build();
 
-    for (IEvent e : this.events) {
-      if (e.equals(candidate)) {
-        return false;
-      }
+    this.lastOverlaps = Collections.emptyList();
+    if (isTaken(candidate) || !overlapsAllowed(overlapsOf(candidate))) {
+      return false;
     }
-    this.events.add(candidate);
-    this.events.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    index(candidate);
+    publish();
     return true;
   }
 
@@ -226,82 +482,119 @@ public class Calendar implements ICalendar {
       return false; // not found or not unique
     }
 
-    if (target.getSeriesId() == null) {
-      return editSingleEvent(target, property, newValue);
-    } else {
-      return editEventSeries(target, property, newValue, type);
+    boolean changed = (target.getSeriesId() == null)
+            ? editSingleEvent(target, property, newValue)
+            : editEventSeries(target, property, newValue, type);
+    if (changed) {
+      publish();
     }
+    return changed;
   }
 
   private boolean editSingleEvent(IEvent original, String property, String newValue) {
-    this.events.remove(original);
     IEvent updated = createUpdatedEvent(original, property, newValue);
     if (updated == null) {
-      this.events.add(original);
       return false;
     }
-    for (IEvent e : this.events) {
-      if (e.equals(updated)) {
-        this.events.add(original);
-        return false;
-      }
+    // The original is being replaced, so only a clash with some other event counts
+    if (!updated.equals(original) && isTaken(updated)) {
+      return false;
     }
-    this.events.add(updated);
-    this.events.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    unindex(original);
+    index(updated);
     return true;
   }
 
-  @SuppressWarnings("unchecked")
   private boolean editEventSeries(
           IEvent target,
           String property,
           String newValue,
           char type
   ) {
-    Integer sid = target.getSeriesId();
-    List<IEvent> seriesEvents = this.events.stream()
-            .filter(e -> sid.equals(e.getSeriesId()))
-            .collect(Collectors.toList());
-
-    List<IEvent> toEdit = new ArrayList<>();
+    Long sid = target.getSeriesId();
+    LocalDateTime from;
     switch (type) {
       case 'f':
-        toEdit = seriesEvents.stream()
-                .filter(e -> !e.getStart().isBefore(target.getStart()))
-                .collect(Collectors.toList());
+        from = target.getStart();
         break;
       case 'e':
-        toEdit = new ArrayList<>(seriesEvents);
+        from = LocalDateTime.MIN;
         break;
       default:
         return false;
     }
 
-    this.events.removeAll(toEdit);
-
+    // Stored members (exceptions) are edited one by one, as before
+    List<IEvent> toEdit = new ArrayList<>(this.series.from(sid, from));
     List<IEvent> updatedList = new ArrayList<>();
     for (IEvent evt : toEdit) {
       IEvent updated = createUpdatedEvent(evt, property, newValue);
       if (updated == null) {
-        this.events.addAll(toEdit);
         return false;
       }
       updatedList.add(updated);
     }
-    for (IEvent upd : updatedList) {
-      for (IEvent ex : this.events) {
-        if (ex.equals(upd)) {
-          this.events.addAll(toEdit);
+
+    // Recurring runs with occurrences at or after 'from' are cut there
+    List<SeriesSegment> affected = new ArrayList<>();
+    for (SeriesSegment run : this.runs.getOrDefault(sid, new ArrayList<>())) {
+      LocalDate cut = run.firstDateFrom(from);
+      LocalDate firstEdited = run.rule.firstOnOrAfter(cut);
+      if (firstEdited != null && !firstEdited.isAfter(run.last)) {
+        affected.add(run);
+      }
+    }
+
+    int storedCount = toEdit.size();
+    boolean retimed = "start".equalsIgnoreCase(property) || "end".equalsIgnoreCase(property);
+    List<SeriesSegment> retemplated = new ArrayList<>();
+    if (retimed) {
+      // New times cannot be expressed by the rule, so the affected occurrences become stored
+      for (SeriesSegment run : affected) {
+        run.forEachBetween(run.firstDateFrom(from), run.last, toEdit::add);
+      }
+      for (int i = storedCount; i < toEdit.size(); i++) {
+        IEvent updated = createUpdatedEvent(toEdit.get(i), property, newValue);
+        if (updated == null) {
+          return false;
+        }
+        updatedList.add(updated);
+      }
+    } else {
+      // Everything else is a new template for the rest of each run
+      for (SeriesSegment run : affected) {
+        LocalDate cut = run.firstDateFrom(from);
+        IEvent sample = run.occurrence(run.rule.firstOnOrAfter(cut));
+        IEvent updated = createUpdatedEvent(sample, property, newValue);
+        if (updated == null) {
           return false;
         }
+        retemplated.add(run.retemplate(canonical(updated), cut, this.nextSeq++));
+      }
+    }
+
+    Set<IEvent> replaced = new HashSet<>(toEdit);
+    Set<IEvent> seen = new HashSet<>();
+    for (IEvent upd : updatedList) {
+      if (storedClashes(upd, replaced, affected, from) || !seen.add(upd)) {
+        return false;
+      }
+    }
+    for (int i = 0; i < retemplated.size(); i++) {
+      SeriesSegment run = retemplated.get(i);
+      // Only a new subject can make an occurrence collide with something else
+      boolean renamed = run != null && !run.sameSubject(affected.get(i));
+      if (renamed && runClashes(run, replaced, affected, from, seen)) {
+        return false;
       }
     }
 
     if ("start".equalsIgnoreCase(property)) {
-      int newSid = series_num++;
+      long newSid = this.seriesIds.getAndIncrement();
       List<IEvent> reassign = new ArrayList<>();
       for (IEvent upd : updatedList) {
         reassign.add(SeriesEvent.getBuilder()
+                .id(upd.getId())
                 .subject(upd.getSubject())
                 .start(upd.getStart())
                 .end(upd.getEnd())
@@ -314,17 +607,40 @@ public class Calendar implements ICalendar {
       updatedList = reassign;
     }
 
-    this.events.addAll(updatedList);
-    this.events.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    for (int i = 0; i < storedCount; i++) {
+      unindex(toEdit.get(i));
+    }
+    for (SeriesSegment run : affected) {
+      unindexRun(run);
+      SeriesSegment kept = run.window(run.first, run.firstDateFrom(from).minusDays(1));
+      if (kept != null) {
+        indexRun(kept);
+      }
+    }
+    for (SeriesSegment run : retemplated) {
+      if (run != null) {
+        indexRun(run);
+      }
+    }
+    // Store the updates in the order their originals started, as the members were kept
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < toEdit.size(); i++) {
+      order.add(i);
+    }
+    order.sort((i, j) -> AbstractEvent.compareStarts(toEdit.get(i), toEdit.get(j)));
+    for (int i : order) {
+      index(updatedList.get(i));
+    }
     return true;
   }
 
   /**
    * Rebuild a SingleEvent or SeriesEvent but with one field changed.
    * Returns null on failure (invalid property or parse failure, etc.).
+   * Shared with {@link ColumnarCalendar}, which edits the same way.
    */
   @SuppressWarnings("unchecked")
-  private IEvent createUpdatedEvent(IEvent original, String property, String newValue) {
+  static IEvent createUpdatedEvent(IEvent original, String property, String newValue) {
     try {
       switch (property.toLowerCase()) {
         case "subject":
@@ -359,7 +675,7 @@ public class Calendar implements ICalendar {
   /**
    * Helper to rebuild either a SingleEvent or SeriesEvent from 'original', changing one property.
    */
-  private IEvent recreateWithProperty(IEvent original, String property, Object value) {
+  static IEvent recreateWithProperty(IEvent original, String property, Object value) {
     if (original.getSeriesId() != null) {
       SeriesEvent.Builder b = SeriesEvent.getBuilder()
               .subject(original.getSubject())
@@ -368,7 +684,8 @@ public class Calendar implements ICalendar {
               .description(original.getDescription())
               .location(original.getLocation())
               .status(original.getStatus())
-              .seriesId(original.getSeriesId());
+              .seriesId(original.getSeriesId())
+              .id(original.getId());
 
       switch (property) {
         case "subject":     b.subject((String) value); break;
@@ -377,6 +694,7 @@ public class Calendar implements ICalendar {
         case "description": b.description((String) value); break;
         case "location":    b.location((Location) value); break;
         case "status":      b.status((Status) value); break;
+        case "id":          b.id((Long) value); break;
       }
       return b.build();
     } else {
@@ -386,7 +704,8 @@ public class Calendar implements ICalendar {
               .end(original.getEnd())
               .description(original.getDescription())
               .location(original.getLocation())
-              .status(original.getStatus());
+              .status(original.getStatus())
+              .id(original.getId());
 
       switch (property) {
         case "subject":     b.subject((String) value); break;
@@ -395,6 +714,7 @@ public class Calendar implements ICalendar {
         case "description": b.description((String) value); break;
         case "location":    b.location((Location) value); break;
         case "status":      b.status((Status) value); break;
+        case "id":          b.id((Long) value); break;
       }
       return b.build();
     }
@@ -402,50 +722,421 @@ public class Calendar implements ICalendar {
 
   @Override
   public List<IEvent> getEventsOnDate(LocalDate date) {
-    return this.events.stream()
-            .filter(e -> {
-              LocalDate s = e.getStart().toLocalDate();
-              LocalDate en = e.getEnd().toLocalDate();
-              return !date.isBefore(s) && !date.isAfter(en);
-            })
-            .collect(Collectors.toList());
+    return this.current.getEventsOnDate(date);
   }
 
   @Override
   public List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end) {
-    return this.events.stream()
-            .filter(e -> e.getStart().isBefore(end) && e.getEnd().isAfter(start))
-            .collect(Collectors.toList());
+    return this.current.getEventsInRange(start, end);
+  }
+
+  @Override
+  public void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action) {
+    this.current.forEachEventOnDate(date, action);
+  }
+
+  @Override
+  public void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                                  Consumer<? super IEvent> action) {
+    this.current.forEachEventInRange(start, end, action);
+  }
+
+  @Override
+  public EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit,
+                                    String after) {
+    return this.current.getEventsInRange(start, end, limit, after);
+  }
+
+  @Override
+  public Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end) {
+    return this.current.spliterator(start, end);
   }
 
   @Override
   public boolean isBusyAt(LocalDateTime dateTime) {
-    return this.events.stream()
-            .anyMatch(e -> !dateTime.isBefore(e.getStart()) && dateTime.isBefore(e.getEnd()));
+    return this.current.isBusyAt(dateTime);
+  }
+
+  @Override
+  public boolean isFree(LocalDateTime start, LocalDateTime end) {
+    return this.current.isFree(start, end);
+  }
+
+  @Override
+  public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                                      LocalTime dayStart, LocalTime dayEnd, int limit) {
+    return this.current.findFreeSlots(from, to, length, dayStart, dayEnd, limit);
   }
 
   @Override
   public IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end) {
-    List<IEvent> found = this.events.stream()
-            .filter(e ->
-                    e.getSubject().equals(subject) &&
-                            e.getStart().equals(start) &&
-                            e.getEnd().equals(end)
-            )
-            .collect(Collectors.toList());
-    return (found.size() == 1) ? found.get(0) : null;
+    return this.current.findEvent(subject, start, end);
   }
 
   @Override
   public boolean removeEvent(IEvent event) {
-    return this.events.remove(event);
+    if (this.keys.containsKey(event)) {
+      unindex(event);
+      publish();
+      return true;
+    }
+    SeriesSegment run = this.current.runProducing(event);
+    if (run == null) {
+      return false;
+    }
+    dropOccurrence(run, event.getStart().toLocalDate());
+    publish();
+    return true;
   }
 
-  private static java.time.LocalDate getNextOrSame(
-          java.time.LocalDate from,
-          java.time.DayOfWeek desired
-  ) {
-    int diff = (desired.getValue() - from.getDayOfWeek().getValue() + 7) % 7;
-    return from.plusDays(diff);
+  /**
+   * Look up a stored event in O(1).  An occurrence that was never stored is found through the
+   * ID block its series reserved, in O(log s) for s series.
+   */
+  @Override
+  public IEvent getEventById(long id) {
+    IEvent stored = this.byId.get(id);
+    if (stored != null) {
+      return stored;
+    }
+    OccurrenceRef ref = occurrenceById(id);
+    return (ref == null) ? null : ref.run.occurrence(ref.date);
+  }
+
+  /**
+   * Change one property of the event with this ID, leaving the rest of its series alone.  An
+   * occurrence of a recurring series becomes a stored exception.
+   */
+  @Override
+  public boolean editEventById(long id, String property, String newValue) {
+    IEvent stored = this.byId.get(id);
+    if (stored != null) {
+      boolean changed = editSingleEvent(stored, property, newValue);
+      if (changed) {
+        publish();
+      }
+      return changed;
+    }
+    OccurrenceRef ref = occurrenceById(id);
+    if (ref == null) {
+      return false;
+    }
+    IEvent original = ref.run.occurrence(ref.date);
+    IEvent updated = createUpdatedEvent(original, property, newValue);
+    if (updated == null || (!updated.equals(original) && isTaken(updated))) {
+      return false;
+    }
+    dropOccurrence(ref.run, ref.date);
+    index(updated);
+    publish();
+    return true;
+  }
+
+  @Override
+  public boolean removeEventById(long id) {
+    IEvent target = getEventById(id);
+    return target != null && removeEvent(target);
+  }
+
+  /**
+   * Find the recurring run still producing the occurrence with this ID, if any.
+   */
+  private OccurrenceRef occurrenceById(long id) {
+    SeriesSegment block = this.byFirstId.floor(id);
+    if (block == null) {
+      return null;
+    }
+    RecurrenceRule rule = block.rule;
+    long index = rule.indexOfId(id);
+    if (index < 0) {
+      return null;
+    }
+    LocalDate date = rule.dateOf(index);
+    for (SeriesSegment run : this.runs.getOrDefault(block.seriesId,
+            new ArrayList<>())) {
+      if (run.rule == rule && run.occurrenceOn(date) != null) {
+        return new OccurrenceRef(run, date);
+      }
+    }
+    return null; // removed, or replaced by a stored exception
+  }
+
+  /**
+   * Stop {@code run} producing its occurrence on {@code date}.  Runs are immutable, so the run
+   * is replaced by the windows on either side of that date.
+   */
+  private void dropOccurrence(SeriesSegment run, LocalDate date) {
+    unindexRun(run);
+    SeriesSegment before = run.window(run.first, date.minusDays(1));
+    SeriesSegment after = run.window(date.plusDays(1), run.last);
+    if (before != null) {
+      indexRun(before);
+    }
+    if (after != null) {
+      indexRun(after);
+    }
+  }
+
+  /**
+   * @return true if an event equal to {@code candidate} is stored or produced by a series.
+   */
+  private boolean isTaken(IEvent candidate) {
+    // Every stored event and run holds its subject in the dictionary
+    if (this.strings.codeOf(candidate.getSubject()) == StringDictionary.ABSENT) {
+      return false;
+    }
+    return this.keys.containsKey(candidate) || this.current.runProducing(candidate) != null;
+  }
+
+  /**
+   * Record {@code overlaps} for {@link #getLastOverlaps}.
+   * @return false if the policy forbids creating the event.
+   */
+  private boolean overlapsAllowed(List<IEvent> overlaps) {
+    this.lastOverlaps = overlaps;
+    return overlaps.isEmpty() || this.overlapPolicy != OverlapPolicy.REJECT;
+  }
+
+  /**
+   * @return the events a new event would overlap, found through the interval trees.
+   */
+  private List<IEvent> overlapsOf(IEvent candidate) {
+    if (this.overlapPolicy == OverlapPolicy.ALLOW) {
+      return Collections.emptyList();
+    }
+    List<IEvent> overlaps = new ArrayList<>();
+    for (IEvent e : this.current.getEventsInRange(candidate.getStart(), candidate.getEnd())) {
+      if (candidate.overlapsWith(e)) {
+        overlaps.add(e);
+      }
+    }
+    return overlaps;
+  }
+
+  /**
+   * @return the events some occurrence of a new run would overlap.  The occurrences come in
+   *         start order and all last equally long, so one pass merges them with the events
+   *         under the run's span: events that have started are queued by end, and those that
+   *         end before an occurrence starts cannot reach any later one either.
+   */
+  private List<IEvent> overlapsOf(SeriesSegment candidate) {
+    if (this.overlapPolicy == OverlapPolicy.ALLOW) {
+      return Collections.emptyList();
+    }
+    List<IEvent> existing = this.current.getEventsInRange(
+            candidate.spanStart(), candidate.spanEnd());
+    PriorityQueue<IEvent> started = new PriorityQueue<>(
+            Comparator.comparing(IEvent::getEnd));
+    Set<IEvent> overlaps = new HashSet<>();
+    int[] next = {0};
+    candidate.forEachBetween(candidate.first, candidate.last, occurrence -> {
+      while (next[0] < existing.size()
+              && existing.get(next[0]).getStart().isBefore(occurrence.getEnd())) {
+        started.add(existing.get(next[0]++));
+      }
+      while (!started.isEmpty() && !started.peek().getEnd().isAfter(occurrence.getStart())) {
+        started.poll();
+      }
+      overlaps.addAll(started);
+    });
+    List<IEvent> ordered = new ArrayList<>();
+    for (IEvent e : existing) {
+      if (overlaps.contains(e)) {
+        ordered.add(e);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Check an updated stored event against everything except what the edit replaces: the
+   * stored events in {@code replaced} and the occurrences of {@code replacedRuns} starting at
+   * or after {@code replacedFrom}.
+   */
+  private boolean storedClashes(IEvent updated, Set<IEvent> replaced,
+                                List<SeriesSegment> replacedRuns, LocalDateTime replacedFrom) {
+    if (this.keys.containsKey(updated) && !replaced.contains(updated)) {
+      return true;
+    }
+    SeriesSegment run = this.current.runProducing(updated);
+    return run != null
+            && !(replacedRuns.contains(run) && !updated.getStart().isBefore(replacedFrom));
+  }
+
+  /**
+   * Check every occurrence of a new run the way {@link #storedClashes} checks a stored event.
+   * Occurrences are also added to {@code seen}, when given, to catch clashes within the edit.
+   */
+  private boolean runClashes(SeriesSegment candidate, Set<IEvent> replaced,
+                             List<SeriesSegment> replacedRuns, LocalDateTime replacedFrom,
+                             Set<IEvent> seen) {
+    // Only runs with the same subject and times can produce an equal occurrence
+    List<SeriesSegment> rivals = new ArrayList<>();
+    for (SeriesSegment run : this.current.segmentsTouching(candidate.first, candidate.last)) {
+      if (run.sameSubject(candidate)
+              && run.startTime.equals(candidate.startTime)
+              && run.endTime.equals(candidate.endTime)) {
+        rivals.add(run);
+      }
+    }
+    boolean[] clash = {false};
+    candidate.forEachBetween(candidate.first, candidate.last, occurrence -> {
+      if (clash[0]) {
+        return;
+      }
+      if (this.keys.containsKey(occurrence) && !replaced.contains(occurrence)) {
+        clash[0] = true;
+      }
+      for (SeriesSegment run : rivals) {
+        if (run.produces(occurrence)
+                && !(replacedRuns.contains(run)
+                && !occurrence.getStart().isBefore(replacedFrom))) {
+          clash[0] = true;
+        }
+      }
+      if (seen != null && !seen.add(occurrence)) {
+        clash[0] = true;
+      }
+    });
+    return clash[0];
+  }
+
+  /**
+   * Store an event and register it with the lookup indexes.  Nothing is touched until a
+   * mutation has passed every check, so a rejected edit leaves the calendar exactly as it was.
+   * The checks read the published snapshot, which matches the trees until the first change.
+   */
+  private void index(IEvent event) {
+    event = canonical(event);
+    long seq = this.nextSeq++;
+    register(event, seq);
+    this.ids = this.ids.with(event.getId(), event);
+    this.timeline = this.timeline.insert(event, seq);
+  }
+
+  /**
+   * Register a stored event with everything but the timeline, which the caller updates.
+   */
+  private void register(IEvent event, long seq) {
+    this.keys.put(event, new Entry(event, seq));
+    this.byId.put(event.getId(), event);
+    this.changes.added(event);
+    this.series.add(event, seq);
+    this.strings.retain(subjectCode(event));
+    this.strings.retain(this.strings.codeOf(event.getDescription()));
+  }
+
+  /**
+   * @return {@code event} coded by this calendar's dictionary, with the dictionary's shared
+   *         instances of its subject and description; rebuilt only if it is not so already.
+   *         The strings are interned, so those of an event that ends up rejected leave again
+   *         at the next publish.
+   */
+  private IEvent canonical(IEvent event) {
+    int code = this.strings.intern(event.getSubject());
+    String description = this.strings.decode(this.strings.intern(event.getDescription()));
+    if (event instanceof AbstractEvent && ((AbstractEvent) event).codedBy() == this.strings
+            && ((AbstractEvent) event).subjectCodeIn(this.strings) == code
+            && description == event.getDescription()) {
+      return event;
+    }
+    AbstractEvent.Builder<?> b = (event.getSeriesId() == null) ? SingleEvent.getBuilder()
+            : SeriesEvent.getBuilder().seriesId(event.getSeriesId());
+    return b.id(event.getId())
+            .subject(event.getSubject())
+            .coded(this.strings, code)
+            .description(description)
+            .start(event.getStart())
+            .end(event.getEnd())
+            .location(event.getLocation())
+            .status(event.getStatus())
+            .build();
+  }
+
+  private int subjectCode(IEvent event) {
+    return (event instanceof AbstractEvent)
+            ? ((AbstractEvent) event).subjectCodeIn(this.strings)
+            : this.strings.intern(event.getSubject());
+  }
+
+  private int subjectCode(SeriesSegment run) {
+    return (run.strings == this.strings && this.strings.decode(run.subjectCode) == run.subject)
+            ? run.subjectCode : this.strings.intern(run.subject);
+  }
+
+  private void unindex(IEvent event) {
+    Entry stored = this.keys.remove(event);
+    this.byId.remove(stored.event.getId());
+    this.ids = this.ids.without(stored.event.getId());
+    this.timeline = this.timeline.remove(event, stored.seq);
+    this.changes.dropped(event.getStart().toLocalDate(), event.getEnd().toLocalDate());
+    this.series.remove(event, stored.seq);
+    this.strings.release(subjectCode(stored.event));
+    this.strings.release(this.strings.codeOf(stored.event.getDescription()));
+  }
+
+  private void indexRun(SeriesSegment run) {
+    this.strings.retain(subjectCode(run));
+    this.strings.retain(this.strings.intern(run.description));
+    this.recurring = this.recurring.insert(run, run.seq);
+    this.changes.dropped(run.first, run.last);
+    this.runs.computeIfAbsent(run.seriesId, k -> new ArrayList<>()).add(run);
+  }
+
+  private void unindexRun(SeriesSegment run) {
+    this.strings.release(subjectCode(run));
+    this.strings.release(this.strings.codeOf(run.description));
+    this.recurring = this.recurring.remove(run, run.seq);
+    this.changes.dropped(run.first, run.last);
+    List<SeriesSegment> list = this.runs.get(run.seriesId);
+    list.remove(run);
+    if (list.isEmpty()) {
+      this.runs.remove(run.seriesId);
+    }
+  }
+
+  /**
+   * Make the current trees visible to queries as one consistent snapshot, and let the
+   * dictionary drop the strings the change left unused.
+   */
+  private void publish() {
+    this.current = this.current.next(this.timeline, this.recurring, this.ids, this.byFirstId,
+            this.changes);
+    this.changes = new BusyDays.Changes();
+    this.strings.prune();
+  }
+
+  private static long[] idsOf(List<IEvent> events) {
+    long[] ids = new long[events.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = events.get(i).getId();
+    }
+    return ids;
+  }
+
+  /**
+   * A stored event with the sequence number it was indexed under.
+   */
+  private static final class Entry {
+    final IEvent event;
+    final long seq;
+
+    Entry(IEvent event, long seq) {
+      this.event = event;
+      this.seq = seq;
+    }
+  }
+
+  /**
+   * The recurring run producing an occurrence, and the occurrence's date.
+   */
+  private static final class OccurrenceRef {
+    final SeriesSegment run;
+    final LocalDate date;
+
+    OccurrenceRef(SeriesSegment run, LocalDate date) {
+      this.run = run;
+      this.date = date;
+    }
   }
 }
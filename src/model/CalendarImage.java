@@ -0,0 +1,382 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The on‐disk format of a whole {@link Calendar}, written by {@link Calendar#writeImage} and
+ * read back by {@link Calendar#readImage}.  Calendar decides what goes in; this class only knows
+ * how each piece is laid out.
+ *
+ * <p>After a fixed header come four sections: the string dictionary, the recurrence rules, the
+ * series segments and the stored events, and a CRC‐32 of everything before it.  Events are
+ * fixed‐width records in timeline order, with subjects and descriptions as dictionary codes, so
+ * reading one is a handful of fixed‐width gets from a {@link MappedByteBuffer} and the
+ * timeline can be rebuilt without a single comparison.  A file is written beside its target and
+ * moved over it once complete, so a crash leaves either the old image or the new one.
+ */
+final class CalendarImage {
+
+  private static final int MAGIC = 0x43414C49;   // "CALI"
+  private static final int VERSION = 1;
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private static final byte INDEXED = 1;           // the segment is one of the live runs
+  private static final byte FIRST_OF_SERIES = 2;   // the segment a series was created as
+
+  private static final Location[] LOCATIONS = Location.values();
+  private static final Status[] STATUSES = Status.values();
+  private static final OverlapPolicy[] POLICIES = OverlapPolicy.values();
+
+  /**
+   * Receives a series segment read back from an image.
+   */
+  interface SegmentSink {
+    void accept(SeriesSegment segment, boolean indexed, boolean firstOfSeries);
+  }
+
+  private CalendarImage() {
+  }
+
+  /**
+   * Writes one image, section by section, in the order the header announces.
+   */
+  static final class Writer implements Closeable {
+    private final Path file;
+    private final Path partial;
+    private final CheckedOutputStream checked;
+    private final DataOutputStream out;
+    private final FileChannel channel;
+    private boolean committed;
+
+    Writer(Path file) throws IOException {
+      this.file = file;
+      this.partial = file.resolveSibling(file.getFileName() + ".partial");
+      this.channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      this.checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+      this.out = new DataOutputStream(new BufferedOutputStream(checked, BUFFER_BYTES));
+    }
+
+    void header(long journalMark, long nextSeriesId, long nextEventId, long nextSeq,
+                OverlapPolicy policy, int strings, int rules, int segments, int events)
+            throws IOException {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(journalMark);
+      out.writeLong(nextSeriesId);
+      out.writeLong(nextEventId);
+      out.writeLong(nextSeq);
+      out.writeByte(policy.ordinal());
+      out.writeInt(strings);
+      out.writeInt(rules);
+      out.writeInt(segments);
+      out.writeInt(events);
+    }
+
+    void string(String s) throws IOException {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    void rule(RecurrenceRule rule) throws IOException {
+      out.writeLong(rule.anchor().toEpochDay());
+      out.writeLong(rule.count());
+      out.writeLong(rule.idOf(0));
+      List<DayOfWeek> days = rule.days();
+      out.writeInt(days.size());
+      for (DayOfWeek day : days) {
+        out.writeByte(day.getValue());
+      }
+    }
+
+    void segment(SeriesSegment segment, int rule, int subject, int description,
+                 boolean indexed, boolean firstOfSeries) throws IOException {
+      out.writeByte((indexed ? INDEXED : 0) | (firstOfSeries ? FIRST_OF_SERIES : 0));
+      out.writeInt(rule);
+      out.writeLong(segment.seriesId);
+      out.writeLong(segment.seq);
+      out.writeInt(subject);
+      out.writeInt(description);
+      out.writeByte(segment.location == null ? -1 : segment.location.ordinal());
+      out.writeByte(segment.status == null ? -1 : segment.status.ordinal());
+      out.writeLong(segment.startTime.toNanoOfDay());
+      out.writeLong(segment.endTime.toNanoOfDay());
+      out.writeLong(segment.first.toEpochDay());
+      out.writeLong(segment.last.toEpochDay());
+    }
+
+    void event(IEvent event, long seq, int subject, int description) throws IOException {
+      out.writeLong(seq);
+      out.writeLong(event.getId());
+      out.writeBoolean(event.getSeriesId() != null);
+      out.writeLong(event.getSeriesId() == null ? 0 : event.getSeriesId());
+      out.writeInt(subject);
+      out.writeInt(description);
+      out.writeLong(event.getStart().toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(event.getStart().getNano());
+      out.writeLong(event.getEnd().toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(event.getEnd().getNano());
+      out.writeByte(event.getLocation() == null ? -1 : event.getLocation().ordinal());
+      out.writeByte(event.getStatus() == null ? -1 : event.getStatus().ordinal());
+    }
+
+    /**
+     * Seal the image and move it over the target file.
+     */
+    void commit() throws IOException {
+      out.flush();
+      out.writeInt((int) checked.getChecksum().getValue());
+      out.flush();
+      channel.force(true);
+      channel.close();
+      Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+      committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        channel.close();
+        Files.deleteIfExists(partial);
+      }
+    }
+  }
+
+  /**
+   * Reads one image back, section by section, from a read‐only mapping of the file.
+   */
+  static final class Reader {
+    private final ByteBuffer in;
+    private final long journalMark;
+    private final long nextSeriesId;
+    private final long nextEventId;
+    private final long nextSeq;
+    private final OverlapPolicy policy;
+    private final int strings;
+    private final int rules;
+    private final int segments;
+    private final int events;
+
+    /**
+     * Map {@code file} and check its header and checksum.
+     * @throws IOException if it cannot be read, is not a calendar image, or is damaged.
+     */
+    Reader(Path file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+          throw new IOException("Calendar image too large to map: " + size + " bytes");
+        }
+        this.in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      try {
+        if (in.getInt() != MAGIC) {
+          throw new IOException("Not a calendar image");
+        }
+        if (in.getInt() != VERSION) {
+          throw new IOException("Unsupported calendar image version");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer body = in.duplicate();
+        body.position(0).limit(in.limit() - 4);
+        crc.update(body);
+        if (in.getInt(in.limit() - 4) != (int) crc.getValue()) {
+          throw new IOException("Calendar image is damaged");
+        }
+        this.journalMark = in.getLong();
+        this.nextSeriesId = in.getLong();
+        this.nextEventId = in.getLong();
+        this.nextSeq = in.getLong();
+        this.policy = POLICIES[in.get()];
+        this.strings = in.getInt();
+        this.rules = in.getInt();
+        this.segments = in.getInt();
+        this.events = in.getInt();
+      } catch (BufferUnderflowException | DateTimeException | IllegalArgumentException
+              | IndexOutOfBoundsException e) {
+        throw damaged(e);
+      }
+    }
+
+    long journalMark() {
+      return journalMark;
+    }
+
+    long nextSeriesId() {
+      return nextSeriesId;
+    }
+
+    long nextEventId() {
+      return nextEventId;
+    }
+
+    long nextSeq() {
+      return nextSeq;
+    }
+
+    OverlapPolicy overlapPolicy() {
+      return policy;
+    }
+
+    int events() {
+      return events;
+    }
+
+    /**
+     * Encode every string into {@code into}, which must be empty, so each gets its old code.
+     */
+    void readStrings(StringDictionary into) throws IOException {
+      try {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < strings; i++) {
+          int length = in.getInt();
+          if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+          }
+          in.get(bytes, 0, length);
+          into.encode(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+      } catch (BufferUnderflowException | DateTimeException | IllegalArgumentException
+              | IndexOutOfBoundsException e) {
+        throw damaged(e);
+      }
+    }
+
+    List<RecurrenceRule> readRules() throws IOException {
+      try {
+        List<RecurrenceRule> list = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+          LocalDate anchor = LocalDate.ofEpochDay(in.getLong());
+          long count = in.getLong();
+          long firstId = in.getLong();
+          int size = in.getInt();
+          List<DayOfWeek> days = new ArrayList<>(size);
+          for (int d = 0; d < size; d++) {
+            days.add(DayOfWeek.of(in.get()));
+          }
+          list.add(new RecurrenceRule(anchor, days, count, firstId));
+        }
+        return list;
+      } catch (BufferUnderflowException | DateTimeException | IllegalArgumentException
+              | IndexOutOfBoundsException e) {
+        throw damaged(e);
+      }
+    }
+
+    void readSegments(List<RecurrenceRule> ruleList, StringDictionary dictionary,
+                      SegmentSink sink) throws IOException {
+      try {
+        for (int i = 0; i < segments; i++) {
+          byte flags = in.get();
+          RecurrenceRule rule = ruleList.get(in.getInt());
+          long seriesId = in.getLong();
+          long seq = in.getLong();
+          int subjectCode = in.getInt();
+          String description = dictionary.decode(in.getInt());
+          Location location = location(in.get());
+          Status status = status(in.get());
+          LocalTime startTime = LocalTime.ofNanoOfDay(in.getLong());
+          LocalTime endTime = LocalTime.ofNanoOfDay(in.getLong());
+          LocalDate first = LocalDate.ofEpochDay(in.getLong());
+          LocalDate last = LocalDate.ofEpochDay(in.getLong());
+          IEvent template = SeriesEvent.getBuilder()
+                  .seriesId(seriesId)
+                  .subject(dictionary.decode(subjectCode))
+                  .coded(dictionary, subjectCode)
+                  .description(description)
+                  .start(first.atTime(startTime))
+                  .end(first.atTime(endTime))
+                  .location(location)
+                  .status(status)
+                  .build();
+          SeriesSegment segment = SeriesSegment.of(rule, template, first, last, seq);
+          if (segment == null) {
+            throw new IOException("Calendar image is damaged: empty series segment");
+          }
+          sink.accept(segment, (flags & INDEXED) != 0, (flags & FIRST_OF_SERIES) != 0);
+        }
+      } catch (BufferUnderflowException | DateTimeException | IllegalArgumentException
+              | IndexOutOfBoundsException e) {
+        throw damaged(e);
+      }
+    }
+
+    /**
+     * Hand every stored event to {@code sink} in timeline order, with its sequence number.
+     */
+    void readEvents(StringDictionary dictionary, IntervalTree.Visitor<IEvent> sink)
+            throws IOException {
+      try {
+        long lastSeconds = Long.MIN_VALUE;
+        int lastNano = -1;
+        LocalDateTime lastStart = null;   // events come in start order, so repeats are adjacent
+        for (int i = 0; i < events; i++) {
+          long seq = in.getLong();
+          long id = in.getLong();
+          boolean inSeries = in.get() != 0;
+          long seriesId = in.getLong();
+          AbstractEvent.Builder<?> b = inSeries
+                  ? SeriesEvent.getBuilder().seriesId(seriesId)
+                  : SingleEvent.getBuilder();
+          int subjectCode = in.getInt();
+          b.id(id)
+                  .subject(dictionary.decode(subjectCode))
+                  .coded(dictionary, subjectCode)
+                  .description(dictionary.decode(in.getInt()));
+          long startSeconds = in.getLong();
+          int startNano = in.getInt();
+          if (startSeconds != lastSeconds || startNano != lastNano) {
+            lastStart = LocalDateTime.ofEpochSecond(startSeconds, startNano, ZoneOffset.UTC);
+            lastSeconds = startSeconds;
+            lastNano = startNano;
+          }
+          b.start(lastStart);
+          long endSeconds = in.getLong();
+          b.end(LocalDateTime.ofEpochSecond(endSeconds, in.getInt(), ZoneOffset.UTC));
+          b.location(location(in.get())).status(status(in.get()));
+          sink.visit(b.build(), seq);
+        }
+      } catch (BufferUnderflowException | DateTimeException | IllegalArgumentException
+              | IndexOutOfBoundsException e) {
+        throw damaged(e);
+      }
+    }
+
+    private static IOException damaged(RuntimeException cause) {
+      return new IOException("Calendar image is damaged", cause);
+    }
+
+    private static Location location(byte ordinal) {
+      return (ordinal < 0) ? null : LOCATIONS[ordinal];
+    }
+
+    private static Status status(byte ordinal) {
+      return (ordinal < 0) ? null : STATUSES[ordinal];
+    }
+  }
+}
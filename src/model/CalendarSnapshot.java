@@ -0,0 +1,613 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An immutable view of a {@link Calendar} as it stood after one mutation.  Calendar publishes
+ * a new snapshot after every change and answers its own queries from the latest one, so
+ * readers never wait for writers and always see either all or none of a change.
+ *
+ * <p>A snapshot shares its persistent trees and ID maps with the calendar that produced it,
+ * so taking one costs nothing.  It answers the queries of {@link ReadableCalendar} and has no
+ * way to change the calendar.
+ */
+public final class CalendarSnapshot implements ReadableCalendar {
+
+  private final IntervalTree<IEvent> timeline;          // every stored event, ordered by start
+  private final IntervalTree<SeriesSegment> recurring;  // recurring runs, by the span they cover
+  private final LongMap<IEvent> ids;                    // stored event ID -> stored event
+  private final LongMap<SeriesSegment> firstIds;        // first ID of a series -> its first run
+  private final BusyDays busy;                          // occupancy bitmaps, filled on demand
+
+  CalendarSnapshot(IntervalTree<IEvent> timeline, IntervalTree<SeriesSegment> recurring,
+                   LongMap<IEvent> ids, LongMap<SeriesSegment> firstIds, BusyDays busy) {
+    this.timeline = timeline;
+    this.recurring = recurring;
+    this.ids = ids;
+    this.firstIds = firstIds;
+    this.busy = busy;
+  }
+
+  static CalendarSnapshot empty() {
+    return new CalendarSnapshot(IntervalTree.empty(AbstractEvent.SPAN),
+            IntervalTree.empty(SeriesSegment.SPAN), LongMap.empty(), LongMap.empty(),
+            new BusyDays());
+  }
+
+  /**
+   * @return the snapshot that follows this one once {@code changes} are applied to the trees.
+   */
+  CalendarSnapshot next(IntervalTree<IEvent> timeline, IntervalTree<SeriesSegment> recurring,
+                        LongMap<IEvent> ids, LongMap<SeriesSegment> firstIds,
+                        BusyDays.Changes changes) {
+    return new CalendarSnapshot(timeline, recurring, ids, firstIds, this.busy.next(changes));
+  }
+
+  @Override
+  public List<IEvent> getEventsOnDate(LocalDate date) {
+    List<IEvent> result = new ArrayList<>();
+    forEachEventOnDate(date, result::add);
+    return result;
+  }
+
+  @Override
+  public List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end) {
+    List<IEvent> result = new ArrayList<>();
+    forEachEventInRange(start, end, result::add);
+    return result;
+  }
+
+  @Override
+  public void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action) {
+    // An event touches the date if it starts before the next day and ends no earlier than
+    // midnight, which is exactly an overlap with the day widened by one nanosecond
+    forEachMerged(date.atStartOfDay().minusNanos(1), date.plusDays(1).atStartOfDay(),
+            segmentsTouching(date, date), (run, sink) -> {
+              IEvent occurrence = run.occurrenceOn(date);
+              if (occurrence != null) {
+                sink.accept(occurrence);
+              }
+            }, action);
+  }
+
+  @Override
+  public void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                                  Consumer<? super IEvent> action) {
+    List<SeriesSegment> hit = new ArrayList<>();
+    this.recurring.collectOverlapping(start, end, hit);
+    forEachMerged(start, end, hit, (run, sink) -> run.forEachOverlapping(start, end, sink),
+            action);
+  }
+
+  @Override
+  public EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit,
+                                    String after) {
+    EventPage.Collector page = new EventPage.Collector(limit, after);
+    LocalDateTime resume = page.resumeFrom();
+    LocalDateTime minStart = (resume == null) ? LocalDateTime.MIN : resume;
+    List<SeriesSegment> hit = new ArrayList<>();
+    this.recurring.collectOverlapping(start, end, hit);
+    List<Ranked> occurrences = new ArrayList<>();
+    LocalDate from = (resume != null && resume.isAfter(start)) ? resume.toLocalDate()
+            : start.toLocalDate();
+    for (SeriesSegment run : hit) {
+      // A run has an occurrence at least once a week from its first date on, so this many days
+      // hold a full page of them; later ones cannot make the page
+      LocalDate lo = run.spanStart().toLocalDate().isAfter(from)
+              ? run.spanStart().toLocalDate() : from;
+      long days = ChronoUnit.DAYS.between(lo, end.toLocalDate());
+      if (days < 0) {
+        continue;
+      }
+      run.forEachBetween(lo, lo.plusDays(Math.min(days, 7L * ((long) limit + 2))), e -> {
+        if (e.getStart().isBefore(end) && e.getEnd().isAfter(start)
+                && !e.getStart().isBefore(minStart)) {
+          occurrences.add(new Ranked(e, run.seq));
+        }
+      });
+    }
+    occurrences.sort(Ranked.ORDER);
+    int[] next = {0};
+    boolean open = this.timeline.scanOverlapping(start, end, minStart, (e, seq) -> {
+      while (next[0] < occurrences.size() && occurrences.get(next[0]).isBefore(e, seq)) {
+        if (!page.offer(occurrences.get(next[0]++).event)) {
+          return false;
+        }
+      }
+      return page.offer(e);
+    });
+    for (int i = next[0]; open && i < occurrences.size(); i++) {
+      open = page.offer(occurrences.get(i).event);
+    }
+    return page.page();
+  }
+
+  @Override
+  public Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end) {
+    return new RangeSpliterator(start, null, end);
+  }
+
+  @Override
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    BusyDays.Day day = day(dateTime.toLocalDate());
+    if (day.exact) {
+      return day.busyAt(BusyDays.minuteOf(dateTime));
+    }
+    if (this.timeline.anyContaining(dateTime)) {
+      return true;
+    }
+    List<SeriesSegment> hit = new ArrayList<>();
+    this.recurring.collectOverlapping(dateTime, dateTime.plusNanos(1), hit);
+    for (SeriesSegment run : hit) {
+      if (run.isBusyAt(dateTime)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isFree(LocalDateTime start, LocalDateTime end) {
+    if (!end.isAfter(start)
+            || !BusyDays.isMinuteAligned(start) || !BusyDays.isMinuteAligned(end)) {
+      return getEventsInRange(start, end).isEmpty();
+    }
+    // Whole minutes on both ends: OR the words of each day the window crosses
+    for (LocalDate d = start.toLocalDate(); d.atStartOfDay().isBefore(end); d = d.plusDays(1)) {
+      BusyDays.Day day = day(d);
+      if (!day.exact) {
+        return getEventsInRange(start, end).isEmpty();
+      }
+      int lo = d.equals(start.toLocalDate()) ? BusyDays.minuteOf(start) : 0;
+      int hi = d.equals(end.toLocalDate()) ? BusyDays.minuteOf(end) : BusyDays.MINUTES_PER_DAY;
+      if (day.anyBusy(lo, hi)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sweep the range a day at a time.  A day whose bitmap is exact is read as runs of free
+   * minutes; any other day falls back to walking its events in start order.
+   */
+  @Override
+  public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                                      LocalTime dayStart, LocalTime dayEnd, int limit) {
+    return FreeSlots.find(from, to, length, dayStart, dayEnd, limit, this::sweepDay);
+  }
+
+  /**
+   * Report the free stretches of [lo, hi), which lies within {@code date}, to {@code sweep}.
+   */
+  private void sweepDay(LocalDate date, LocalDateTime lo, LocalDateTime hi, FreeSlots sweep) {
+    BusyDays.Day day = day(date);
+    if (day.exact && BusyDays.isMinuteAligned(lo) && BusyDays.isMinuteAligned(hi)) {
+      LocalDateTime midnight = date.atStartOfDay();
+      int a = BusyDays.minuteOf(lo);
+      int b = hi.toLocalDate().equals(date) ? BusyDays.minuteOf(hi) : BusyDays.MINUTES_PER_DAY;
+      while (a < b) {
+        int busyAt = day.nextBusy(a, b);
+        if (busyAt > a) {
+          sweep.free(midnight.plusMinutes(a), midnight.plusMinutes(busyAt));
+        }
+        a = day.nextFree(busyAt, b);
+      }
+      return;
+    }
+    LocalDateTime cursor = lo;
+    for (IEvent e : getEventsInRange(lo, hi)) {
+      if (!e.getEnd().isAfter(e.getStart())) {
+        continue;   // covers no time, as in the bitmaps
+      }
+      if (e.getStart().isAfter(cursor)) {
+        sweep.free(cursor, e.getStart());
+      }
+      if (e.getEnd().isAfter(cursor)) {
+        cursor = e.getEnd();
+      }
+      if (!cursor.isBefore(hi)) {
+        return;
+      }
+    }
+    sweep.free(cursor, hi);
+  }
+
+  @Override
+  public IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end) {
+    if (start == null) {
+      return null;
+    }
+    List<IEvent> found = new ArrayList<>();
+    this.timeline.visitStartingIn(start, start.plusNanos(1), (e, seq) -> {
+      if (e.getSubject().equals(subject) && e.getEnd().equals(end)) {
+        found.add(e);
+      }
+    });
+    if (end != null) {
+      for (SeriesSegment run : segmentsTouching(start.toLocalDate(), start.toLocalDate())) {
+        if (run.produces(subject, start, end)) {
+          found.add(run.occurrence(start.toLocalDate()));
+        }
+      }
+    }
+    return (found.size() == 1) ? found.get(0) : null;
+  }
+
+  /**
+   * Look up a stored event in O(log n).  An occurrence that was never stored is found through
+   * the ID block its series reserved, then among the runs touching its date.
+   */
+  @Override
+  public IEvent getEventById(long id) {
+    IEvent stored = this.ids.get(id);
+    if (stored != null) {
+      return stored;
+    }
+    SeriesSegment block = this.firstIds.floor(id);
+    long index = (block == null) ? -1 : block.rule.indexOfId(id);
+    if (index < 0) {
+      return null;
+    }
+    LocalDate date = block.rule.dateOf(index);
+    for (SeriesSegment run : segmentsTouching(date, date)) {
+      if (run.rule == block.rule && run.occurrenceOn(date) != null) {
+        return run.occurrence(date);
+      }
+    }
+    return null; // removed, or replaced by a stored exception
+  }
+
+  /**
+   * @return the recurring run producing an occurrence equal to {@code event}, or null.
+   */
+  SeriesSegment runProducing(IEvent event) {
+    if (event.getStart() == null) {
+      return null;
+    }
+    LocalDate date = event.getStart().toLocalDate();
+    for (SeriesSegment run : segmentsTouching(date, date)) {
+      if (run.produces(event)) {
+        return run;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the occupancy bitmap of {@code date}, building and caching it on first use.
+   */
+  BusyDays.Day day(LocalDate date) {
+    BusyDays.Day day = this.busy.get(date);
+    if (day == null) {
+      day = BusyDays.Day.of(date, getEventsOnDate(date));
+      this.busy.put(date, day);
+    }
+    return day;
+  }
+
+  /**
+   * @return the recurring runs that may have an occurrence dated within [first, last].
+   */
+  List<SeriesSegment> segmentsTouching(LocalDate first, LocalDate last) {
+    List<SeriesSegment> hit = new ArrayList<>();
+    this.recurring.collectOverlapping(
+            first.atStartOfDay().minusNanos(1), last.plusDays(1).atStartOfDay(), hit);
+    return hit;
+  }
+
+  /**
+   * Hand {@code action} the stored events overlapping [from, to) merged with the occurrences
+   * {@code expand} draws from each run, ordered by start, ties in the order the events (or
+   * their runs) were stored.  Stored events go straight from the tree walk to {@code action};
+   * only the occurrences, which are built on the fly anyway, are sorted first and slotted in as
+   * the walk passes them.
+   */
+  private void forEachMerged(LocalDateTime from, LocalDateTime to, List<SeriesSegment> hit,
+                             BiConsumer<SeriesSegment, Consumer<IEvent>> expand,
+                             Consumer<? super IEvent> action) {
+    forEachMerged(from, to, LocalDateTime.MIN, hit, expand, action);
+  }
+
+  /**
+   * Like {@link #forEachMerged(LocalDateTime, LocalDateTime, List, BiConsumer, Consumer)}, but
+   * leave out stored events starting before {@code minStart}; {@code expand} must leave out
+   * such occurrences itself.
+   */
+  private void forEachMerged(LocalDateTime from, LocalDateTime to, LocalDateTime minStart,
+                             List<SeriesSegment> hit,
+                             BiConsumer<SeriesSegment, Consumer<IEvent>> expand,
+                             Consumer<? super IEvent> action) {
+    if (hit.isEmpty()) {
+      this.timeline.scanOverlapping(from, to, minStart, (e, seq) -> {
+        action.accept(e);
+        return true;
+      });
+      return;
+    }
+    List<Ranked> occurrences = new ArrayList<>();
+    for (SeriesSegment run : hit) {
+      expand.accept(run, occurrence -> occurrences.add(new Ranked(occurrence, run.seq)));
+    }
+    occurrences.sort(Ranked.ORDER);
+    int[] next = {0};
+    this.timeline.scanOverlapping(from, to, minStart, (e, seq) -> {
+      while (next[0] < occurrences.size() && occurrences.get(next[0]).isBefore(e, seq)) {
+        action.accept(occurrences.get(next[0]++).event);
+      }
+      action.accept(e);
+      return true;
+    });
+    for (int i = next[0]; i < occurrences.size(); i++) {
+      action.accept(occurrences.get(i).event);
+    }
+  }
+
+  /**
+   * Walks the events overlapping [from, hi) that start in [lo, hi); the first piece, with no
+   * {@code lo}, also owns those starting before {@code from}.  A piece splits at the median
+   * start of its stored events, so both halves hold about as many of them, or at a midnight
+   * halfway through once only series occurrences are left to share out.  A snapshot never
+   * changes, so the pieces can be walked on any threads.
+   *
+   * <p>{@link #tryAdvance} steps a cursor over the stored events and one per recurring run,
+   * taking whichever is next, so it holds O(log n + r) state for r runs however long the range
+   * is.  Only a split asked for after the walk has begun buffers what is left, to hand half of
+   * it off.
+   */
+  private final class RangeSpliterator implements Spliterator<IEvent> {
+    private final LocalDateTime from;
+    private LocalDateTime lo;        // null for the first piece
+    private final LocalDateTime hi;
+    private long estimate = -1;      // computed on first use
+    private IntervalTree<IEvent>.Cursor stored;  // set once the walk begins
+    private boolean storedLeft;                  // whether the cursor is on an entry
+    private PriorityQueue<Occurrences> due;      // runs with an occurrence left, next first
+    private List<IEvent> buffer;                 // what was left when a split came mid‐walk
+    private int next;
+
+    RangeSpliterator(LocalDateTime from, LocalDateTime lo, LocalDateTime hi) {
+      this.from = from;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super IEvent> action) {
+      IEvent e;
+      if (buffer != null) {
+        e = (next < buffer.size()) ? buffer.get(next++) : null;
+      } else {
+        e = pull();
+      }
+      if (e == null) {
+        return false;
+      }
+      action.accept(e);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super IEvent> action) {
+      if (stored == null && buffer == null) {
+        buffer = Collections.emptyList();
+        walk(action);
+        return;
+      }
+      while (tryAdvance(action)) {
+        // each call hands one event to action
+      }
+    }
+
+    @Override
+    public Spliterator<IEvent> trySplit() {
+      if (stored == null && buffer == null) {
+        LocalDateTime key = splitPoint();
+        if (key == null) {
+          return null;
+        }
+        RangeSpliterator prefix = new RangeSpliterator(from, lo, key);
+        this.lo = key;
+        this.estimate = -1;
+        return prefix;
+      }
+      if (buffer == null) {
+        buffer = new ArrayList<>();
+        for (IEvent e = pull(); e != null; e = pull()) {
+          buffer.add(e);
+        }
+      }
+      int half = (buffer.size() - next) / 2;
+      if (half == 0) {
+        return null;
+      }
+      Spliterator<IEvent> prefix = Spliterators.spliterator(
+              buffer.subList(next, next + half).toArray(), characteristics());
+      next += half;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      if (buffer != null) {
+        return buffer.size() - next;
+      }
+      if (estimate < 0) {
+        // Stored events counted exactly, plus up to one occurrence a day from each run
+        LocalDateTime low = low();
+        long stored = hi.isAfter(low) ? timeline.countStartingBefore(hi)
+                - timeline.countStartingBefore(low) : 0;
+        List<SeriesSegment> runs = new ArrayList<>();
+        recurring.collectOverlapping(low, hi, runs);
+        long days = Math.max(0, ChronoUnit.DAYS.between(low.toLocalDate(), hi.toLocalDate()));
+        estimate = stored + runs.size() * (days + 1);
+      }
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * @return where the starts this piece can split between begin.
+     */
+    private LocalDateTime low() {
+      return (lo == null || lo.isBefore(from)) ? from : lo;
+    }
+
+    private LocalDateTime minStart() {
+      return (lo == null) ? LocalDateTime.MIN : lo;
+    }
+
+    private LocalDateTime splitPoint() {
+      LocalDateTime low = low();
+      if (!hi.isAfter(low)) {
+        return null;
+      }
+      int first = timeline.countStartingBefore(low);
+      int last = timeline.countStartingBefore(hi);
+      if (last - first >= 2) {
+        LocalDateTime median = timeline.startAt(first + (last - first) / 2);
+        if (lo == null || median.isAfter(lo)) {
+          return median;
+        }
+      }
+      long days = ChronoUnit.DAYS.between(low.toLocalDate(), hi.toLocalDate());
+      if (days >= 2 && !recurring.scanOverlapping(low, hi, LocalDateTime.MIN, (r, seq) -> false)) {
+        return low.toLocalDate().plusDays(days / 2).atStartOfDay();
+      }
+      return null;
+    }
+
+    /**
+     * @return the next event of this piece in start order, or null once there is none.
+     */
+    private IEvent pull() {
+      if (stored == null) {
+        LocalDateTime minStart = minStart();
+        stored = timeline.cursor(from, hi, minStart);
+        storedLeft = stored.advance();
+        due = new PriorityQueue<>((a, b) -> Ranked.ORDER.compare(a.head, b.head));
+        LocalDate firstDate = low().toLocalDate();
+        recurring.visitOverlapping(from, hi, (run, seq) -> {
+          Occurrences occurrences = new Occurrences(run, firstDate, minStart);
+          if (occurrences.head != null) {
+            due.add(occurrences);
+          }
+        });
+      }
+      Occurrences run = due.peek();
+      if (storedLeft && (run == null || !run.head.isBefore(stored.item(), stored.seq()))) {
+        IEvent e = stored.item();
+        storedLeft = stored.advance();
+        return e;
+      }
+      if (run == null) {
+        return null;
+      }
+      due.poll();
+      IEvent e = run.head.event;
+      if (run.advance()) {
+        due.add(run);
+      }
+      return e;
+    }
+
+    private void walk(Consumer<? super IEvent> action) {
+      LocalDateTime minStart = minStart();
+      LocalDate firstDate = low().toLocalDate();
+      List<SeriesSegment> hit = new ArrayList<>();
+      recurring.collectOverlapping(from, hi, hit);
+      forEachMerged(from, hi, minStart, hit, (run, sink) ->
+              run.forEachBetween(firstDate, hi.toLocalDate(), e -> {
+                if (accepts(e, minStart)) {
+                  sink.accept(e);
+                }
+              }), action);
+    }
+
+    private boolean accepts(IEvent occurrence, LocalDateTime minStart) {
+      return !occurrence.getStart().isBefore(minStart) && occurrence.getStart().isBefore(hi)
+              && occurrence.getEnd().isAfter(from);
+    }
+
+    /**
+     * The occurrences of one run that belong to this piece, produced one at a time in date
+     * order; {@code head} is the next of them, or null once the run is used up.
+     */
+    private final class Occurrences {
+      private final SeriesSegment run;
+      private final LocalDateTime minStart;
+      private final LocalDate lastDate;
+      private LocalDate searchFrom;    // no occurrence before this date is left
+      Ranked head;
+
+      Occurrences(SeriesSegment run, LocalDate firstDate, LocalDateTime minStart) {
+        this.run = run;
+        this.minStart = minStart;
+        this.lastDate = hi.toLocalDate().isBefore(run.last) ? hi.toLocalDate() : run.last;
+        this.searchFrom = firstDate.isBefore(run.first) ? run.first : firstDate;
+        advance();
+      }
+
+      /**
+       * @return false if the run has no occurrence left for this piece.
+       */
+      boolean advance() {
+        head = null;
+        while (head == null) {
+          LocalDate date = run.rule.firstOnOrAfter(searchFrom);
+          if (date == null || date.isAfter(lastDate)) {
+            return false;
+          }
+          searchFrom = date.plusDays(1);
+          IEvent occurrence = run.occurrence(date);
+          if (!occurrence.getStart().isBefore(hi)) {
+            return false; // later dates start later still
+          }
+          if (accepts(occurrence, minStart)) {
+            head = new Ranked(occurrence, run.seq);
+          }
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * An event paired with the sequence number that orders it among events with the same start.
+   */
+  private static final class Ranked {
+    static final Comparator<Ranked> ORDER = ((Comparator<Ranked>)
+            (a, b) -> AbstractEvent.compareStarts(a.event, b.event))
+            .thenComparingLong(r -> r.seq);
+
+    final IEvent event;
+    final long seq;
+
+    Ranked(IEvent event, long seq) {
+      this.event = event;
+      this.seq = seq;
+    }
+
+    boolean isBefore(IEvent other, long otherSeq) {
+      int cmp = AbstractEvent.compareStarts(this.event, other);
+      return cmp < 0 || (cmp == 0 && this.seq < otherSeq);
+    }
+  }
+}
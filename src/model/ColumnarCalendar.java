@@ -0,0 +1,810 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A calendar that keeps its events in parallel primitive columns instead of one object per
+ * event: start and end as epoch minutes in {@code long[]}s, IDs and series IDs beside them, and
+ * subjects and descriptions as codes into a {@link StringDictionary}.  Rows are kept sorted by
+ * start, equal starts in the order they were stored, so a range query is a binary search
+ * followed by a linear scan over a few arrays.  Scans allocate nothing; only the events a query
+ * returns are built as {@link IEvent} objects.
+ *
+ * <p>Behaves like {@link Calendar} for every operation, with two differences that come from
+ * the storage.  Times are kept to the minute, so an event whose start or end has seconds is
+ * rejected with {@link IllegalArgumentException} (an edit to such a time just fails).  And a
+ * series is stored occurrence by occurrence, so it costs memory in proportion to its count.
+ *
+ * <p>Inserting or removing a row shifts the rows after it, which suits calendars that are
+ * loaded in bulk and then mostly queried.  Like Calendar, it is not thread‐safe.
+ */
+public class ColumnarCalendar implements ICalendar {
+
+  private static final long NO_SERIES = Long.MIN_VALUE;  // series column of a single event
+  private static final byte NONE = -1;                   // location/status column of a null
+  private static final long MINUTES_PER_DAY = 24 * 60;
+  private static final Location[] LOCATIONS = Location.values();
+  private static final Status[] STATUSES = Status.values();
+
+  private final AtomicLong nextSeriesId;   // numbered per calendar, as in Calendar
+  private final AtomicLong nextEventId;
+  private final StringDictionary strings;  // subject and description codes
+  private int size;
+  private long[] starts;                   // epoch minutes, ascending; ties in storage order
+  private long[] ends;                     // epoch minutes
+  private long[] ids;
+  private long[] seriesIds;                // NO_SERIES outside a series
+  private int[] subjects;
+  private int[] descriptions;
+  private byte[] locations;                // Location ordinal or NONE
+  private byte[] statuses;                 // Status ordinal or NONE
+  private long maxLength;                  // longest end - start stored, bounds backward scans
+
+  public ColumnarCalendar() {
+    this.nextSeriesId = new AtomicLong(1);
+    this.nextEventId = new AtomicLong(1);
+    this.strings = new StringDictionary();
+    this.starts = new long[16];
+    this.ends = new long[16];
+    this.ids = new long[16];
+    this.seriesIds = new long[16];
+    this.subjects = new int[16];
+    this.descriptions = new int[16];
+    this.locations = new byte[16];
+    this.statuses = new byte[16];
+  }
+
+  /**
+   * @return the number of events stored.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public boolean addEvent(IEvent event) {
+    long start = minuteOf(event.getStart());
+    long end = minuteOf(event.getEnd());
+    if (rowOf(event.getSubject(), start, end) >= 0) {
+      return false;
+    }
+    insert(Calendar.recreateWithProperty(event, "id", this.nextEventId.getAndIncrement()));
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}  Events whose times are not whole minutes are rejected as invalid.  The
+   * batch is sorted once and merged into the columns in one pass from the back.
+   */
+  @Override
+  public ImportReport addAll(Collection<? extends IEvent> events) {
+    ImportReport.Builder report = ImportReport.getBuilder();
+    Set<IEvent> batch = new HashSet<>();
+    List<IEvent> accepted = new ArrayList<>(events.size());
+    int index = 0;
+    for (IEvent event : events) {
+      if (event == null || event.getSubject() == null
+              || event.getStart() == null || event.getEnd() == null
+              || !isWholeMinute(event.getStart()) || !isWholeMinute(event.getEnd())) {
+        report.reject(index, event, ImportReport.Reason.INVALID);
+      } else if (rowOf(event.getSubject(), minuteOf(event.getStart()),
+              minuteOf(event.getEnd())) >= 0) {
+        report.reject(index, event, ImportReport.Reason.ALREADY_EXISTS);
+      } else if (!batch.add(event)) {
+        report.reject(index, event, ImportReport.Reason.DUPLICATE_IN_BATCH);
+      } else {
+        accepted.add(Calendar.recreateWithProperty(event, "id",
+                this.nextEventId.getAndIncrement()));
+      }
+      index++;
+    }
+    accepted.sort(AbstractEvent::compareStarts);   // stable, so equal starts keep batch order
+
+    // Merge from the back, so each row moves at most once; new rows go after equal starts
+    int n = accepted.size();
+    grow(this.size + n);
+    int i = this.size - 1;
+    int w = this.size + n - 1;
+    for (int j = n - 1; j >= 0; w--) {
+      IEvent event = accepted.get(j);
+      long start = minuteOf(event.getStart());
+      if (i >= 0 && this.starts[i] > start) {
+        moveRow(i--, w);
+      } else {
+        setRow(w, event, (event.getSeriesId() == null) ? NO_SERIES : event.getSeriesId());
+        j--;
+      }
+    }
+    this.size += n;
+    return report.added(n).build();
+  }
+
+  /**
+   * Create a single (possibly multi‐hour) event. If end == null, defaults to 08:00→17:00.
+   * Location and Status may be null (no defaults).
+   */
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          Location location,
+          Status status
+  ) {
+    if (subject == null || start == null) {
+      throw new IllegalArgumentException("Subject and start must be non‐null");
+    }
+
+    // If no end, default to 08:00→17:00 on that start date
+    if (end == null) {
+      LocalDateTime base = start.toLocalDate().atStartOfDay();
+      start = base.withHour(8).withMinute(0);
+      end   = base.withHour(17).withMinute(0);
+    }
+
+    IEvent candidate = SingleEvent.getBuilder()
+            .id(this.nextEventId.getAndIncrement())
+            .subject(subject)
+            .description(description)
+            .start(start)
+            .end(end)
+            .location(location) // may be null
+            .status(status)     // may be null
+            .build();
+    if (rowOf(subject, minuteOf(start), minuteOf(end)) >= 0) {
+      return false;
+    }
+    insert(candidate);
+    return true;
+  }
+
+  /**
+   * Create a recurring series specified by exact count, numbering its occurrences the way
+   * {@link RecurrenceRule} does.  The occurrences are merged into the columns in one pass.
+   */
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          List<DayOfWeek> days,
+          int count
+  ) {
+    if (subject == null || start == null || days == null || days.isEmpty() || count <= 0) {
+      throw new IllegalArgumentException("Invalid arguments for makeEvent(series by count)");
+    }
+    // A weekday listed twice still means one occurrence a week
+    days = RecurrenceRule.distinct(days);
+
+    // If no end, default each to 08:00→17:00
+    if (end == null) {
+      LocalDateTime base = start.toLocalDate().atStartOfDay();
+      start = base.withHour(8).withMinute(0);
+      end   = base.withHour(17).withMinute(0);
+    }
+    long startOfDay = minuteOf(start) - minuteOf(start.toLocalDate().atStartOfDay());
+    long endOfDay = minuteOf(start.toLocalDate().atTime(end.toLocalTime()))
+            - minuteOf(start.toLocalDate().atStartOfDay());
+
+    long seriesId = this.nextSeriesId.getAndIncrement();
+    long firstId = this.nextEventId.getAndAdd(count);
+
+    // Occurrence k falls on anchor + 7 * (k / m) + offset[k % m]; walking each week by offset
+    // yields them in date order.
+    int m = days.size();
+    int[] slotOf = new int[7];
+    Arrays.fill(slotOf, -1);
+    LocalDate anchor = start.toLocalDate();
+    for (int i = 0; i < m; i++) {
+      int off = (days.get(i).getValue() - anchor.getDayOfWeek().getValue() + 7) % 7;
+      slotOf[off] = i;
+    }
+    long anchorDay = anchor.toEpochDay();
+    long[] newStarts = new long[count];
+    long[] newIds = new long[count];
+    int n = 0;
+    for (long week = 0; week * m < count; week++) {
+      for (int off = 0; off < 7; off++) {
+        long k = week * m + slotOf[off];
+        if (slotOf[off] >= 0 && k < count) {
+          newStarts[n] = (anchorDay + 7 * week + off) * MINUTES_PER_DAY + startOfDay;
+          newIds[n] = firstId + k;
+          n++;
+        }
+      }
+    }
+
+    // Duplicate check against existing events
+    int subjectCode = this.strings.codeOf(subject);
+    for (int j = 0; j < n; j++) {
+      if (rowOf(subjectCode, newStarts[j], newStarts[j] - startOfDay + endOfDay) >= 0) {
+        return false; // abort entire series
+      }
+    }
+
+    // Merge from the back, so each row moves at most once; new rows go after equal starts
+    grow(this.size + n);
+    subjectCode = this.strings.encode(subject);
+    int descriptionCode = this.strings.encode(description);
+    int i = this.size - 1;
+    int w = this.size + n - 1;
+    for (int j = n - 1; j >= 0; w--) {
+      if (i >= 0 && this.starts[i] > newStarts[j]) {
+        moveRow(i--, w);
+      } else {
+        long s = newStarts[j];
+        setRow(w, s, s - startOfDay + endOfDay, newIds[j], seriesId, subjectCode,
+                descriptionCode, NONE, NONE);
+        j--;
+      }
+    }
+    this.size += n;
+    this.maxLength = Math.max(this.maxLength, endOfDay - startOfDay);
+    return true;
+  }
+
+  /**
+   * Create a recurring series until endDate (date‐bounded). Each occurrence is single‐day.
+   * If end == null, default each to 08:00→17:00. Location & Status stay null.
+   */
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          List<DayOfWeek> days,
+          LocalDateTime endDate
+  ) {
+    if (subject == null || start == null || days == null || days.isEmpty() || endDate == null) {
+      throw new IllegalArgumentException("Invalid arguments for makeEvent(series until endDate)");
+    }
+
+    // If no end, default each to 08:00→17:00
+    if (end == null) {
+      LocalDateTime base = start.toLocalDate().atStartOfDay();
+      start = base.withHour(8).withMinute(0);
+      end   = base.withHour(17).withMinute(0);
+    }
+
+    // A weekday listed twice still means one occurrence a week
+    days = RecurrenceRule.distinct(days);
+    long occurrences = RecurrenceRule.countThrough(start.toLocalDate(), days, endDate.toLocalDate());
+    if (occurrences == 0) return false;
+
+    return makeEvent(subject, description, start, end, days, Math.toIntExact(occurrences));
+  }
+
+  /**
+   * Create an all‐day event on a single date (08:00→17:00). Location & Status stay null.
+   */
+  @Override
+  public boolean makeEvent(String subject, LocalDateTime start) {
+    if (subject == null || start == null) {
+      throw new IllegalArgumentException("Invalid arguments for all‐day makeEvent");
+    }
+    LocalDateTime base = start.toLocalDate().atStartOfDay();
+    return makeEvent(subject, null, base.withHour(8).withMinute(0),
+            base.withHour(17).withMinute(0), (Location) null, (Status) null);
+  }
+
+  @Override
+  public boolean editEvent() {
+    // Not used directly; see editSeriesEvent(...) for actual editing logic.
+    return false;
+  }
+
+  @Override
+  public boolean editSeriesEvent(
+          String property,
+          String subject,
+          LocalDateTime start,
+          LocalDateTime end,
+          String newValue,
+          char type
+  ) {
+    int target = uniqueRow(subject, start, end);
+    if (target < 0) {
+      return false; // not found or not unique
+    }
+    if (this.seriesIds[target] == NO_SERIES) {
+      return editRow(target, property, newValue);
+    }
+    long from;
+    switch (type) {
+      case 'f':
+        from = this.starts[target];
+        break;
+      case 'e':
+        from = Long.MIN_VALUE;
+        break;
+      default:
+        return false;
+    }
+
+    // Check every edited member before touching the columns
+    long sid = this.seriesIds[target];
+    BitSet edited = new BitSet(this.size);
+    List<IEvent> updatedList = new ArrayList<>();
+    Set<IEvent> seen = new HashSet<>();
+    for (int row = 0; row < this.size; row++) {
+      if (this.seriesIds[row] != sid || this.starts[row] < from) {
+        continue;
+      }
+      IEvent updated = Calendar.createUpdatedEvent(event(row), property, newValue);
+      if (updated == null || !isWholeMinute(updated.getStart())
+              || !isWholeMinute(updated.getEnd())) {
+        return false;
+      }
+      edited.set(row);
+      updatedList.add(updated);
+      if (!seen.add(updated)) {
+        return false;
+      }
+    }
+    for (IEvent updated : updatedList) {
+      int clash = rowOf(updated.getSubject(),
+              minuteOf(updated.getStart()), minuteOf(updated.getEnd()));
+      if (clash >= 0 && !edited.get(clash)) {
+        return false;
+      }
+    }
+
+    // A new start makes the edited members a series of their own
+    long newSid = "start".equalsIgnoreCase(property) ? this.nextSeriesId.getAndIncrement() : sid;
+    for (int row = edited.length() - 1; row >= 0; row = edited.previousSetBit(row - 1)) {
+      removeRow(row);
+    }
+    for (IEvent updated : updatedList) {
+      insert(updated, newSid);
+    }
+    return true;
+  }
+
+  @Override
+  public List<IEvent> getEventsOnDate(LocalDate date) {
+    List<IEvent> found = new ArrayList<>();
+    forEachEventOnDate(date, found::add);
+    return found;
+  }
+
+  @Override
+  public List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end) {
+    List<IEvent> found = new ArrayList<>();
+    forEachEventInRange(start, end, found::add);
+    return found;
+  }
+
+  @Override
+  public void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action) {
+    long day = date.toEpochDay() * MINUTES_PER_DAY;
+    for (int row = lowerBound(day - this.maxLength);
+         row < this.size && this.starts[row] < day + MINUTES_PER_DAY; row++) {
+      if (this.ends[row] >= day) {
+        action.accept(event(row));
+      }
+    }
+  }
+
+  @Override
+  public void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                                  Consumer<? super IEvent> action) {
+    long from = minuteFloor(start);
+    long to = minuteCeiling(end);
+    for (int row = lowerBound(from - this.maxLength);
+         row < this.size && this.starts[row] < to; row++) {
+      if (this.ends[row] > from) {
+        action.accept(event(row));
+      }
+    }
+  }
+
+  @Override
+  public EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit,
+                                    String after) {
+    EventPage.Collector page = new EventPage.Collector(limit, after);
+    long from = minuteFloor(start);
+    long to = minuteCeiling(end);
+    int row = lowerBound(from - this.maxLength);
+    if (page.resumeFrom() != null) {
+      row = Math.max(row, lowerBound(minuteFloor(page.resumeFrom())));
+    }
+    for (; row < this.size && this.starts[row] < to; row++) {
+      if (this.ends[row] > from && !page.offer(event(row))) {
+        break;
+      }
+    }
+    return page.page();
+  }
+
+  /**
+   * {@inheritDoc}  The spliterator reads the columns as it goes, so the calendar must not be
+   * changed until the walk is done.
+   */
+  @Override
+  public Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end) {
+    long from = minuteFloor(start);
+    int first = lowerBound(from - this.maxLength);
+    return new RowSpliterator(first, Math.max(first, lowerBound(minuteCeiling(end))), from);
+  }
+
+  @Override
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    long at = minuteFloor(dateTime);
+    for (int row = lowerBound(at - this.maxLength);
+         row < this.size && this.starts[row] <= at; row++) {
+      if (this.ends[row] > at) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isFree(LocalDateTime start, LocalDateTime end) {
+    long from = minuteFloor(start);
+    long to = minuteCeiling(end);
+    for (int row = lowerBound(from - this.maxLength);
+         row < this.size && this.starts[row] < to; row++) {
+      if (this.ends[row] > from) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                                      LocalTime dayStart, LocalTime dayEnd, int limit) {
+    return FreeSlots.find(from, to, length, dayStart, dayEnd, limit, this::sweepDay);
+  }
+
+  /**
+   * Walk the rows under [lo, hi) in start order, reporting the gaps between them.  Rows that
+   * cover no time do not split a gap.
+   */
+  private void sweepDay(LocalDate date, LocalDateTime lo, LocalDateTime hi, FreeSlots sweep) {
+    long from = minuteFloor(lo);
+    long to = minuteCeiling(hi);
+    LocalDateTime cursor = lo;
+    long at = from;   // cursor rounded down; a whole minute is after cursor iff it is after this
+    for (int row = lowerBound(from - this.maxLength);
+         row < this.size && this.starts[row] < to; row++) {
+      if (this.ends[row] <= this.starts[row] || this.ends[row] <= at) {
+        continue;
+      }
+      if (this.starts[row] > at) {
+        sweep.free(cursor, timeOf(this.starts[row]));
+      }
+      at = this.ends[row];
+      cursor = timeOf(at);
+      if (!cursor.isBefore(hi)) {
+        return;
+      }
+    }
+    sweep.free(cursor, hi);
+  }
+
+  @Override
+  public IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end) {
+    int row = uniqueRow(subject, start, end);
+    return (row < 0) ? null : event(row);
+  }
+
+  @Override
+  public boolean removeEvent(IEvent event) {
+    if (event.getStart() == null || !isWholeMinute(event.getStart())
+            || event.getEnd() == null || !isWholeMinute(event.getEnd())) {
+      return false;
+    }
+    int row = rowOf(event.getSubject(), minuteOf(event.getStart()), minuteOf(event.getEnd()));
+    if (row < 0) {
+      return false;
+    }
+    removeRow(row);
+    return true;
+  }
+
+  /**
+   * Find an event by ID with a scan of the ID column.
+   */
+  @Override
+  public IEvent getEventById(long id) {
+    int row = rowOfId(id);
+    return (row < 0) ? null : event(row);
+  }
+
+  @Override
+  public boolean editEventById(long id, String property, String newValue) {
+    int row = rowOfId(id);
+    return row >= 0 && editRow(row, property, newValue);
+  }
+
+  @Override
+  public boolean removeEventById(long id) {
+    int row = rowOfId(id);
+    if (row < 0) {
+      return false;
+    }
+    removeRow(row);
+    return true;
+  }
+
+  /**
+   * Change one property of a single row, keeping its ID and series.
+   */
+  private boolean editRow(int row, String property, String newValue) {
+    IEvent original = event(row);
+    IEvent updated = Calendar.createUpdatedEvent(original, property, newValue);
+    if (updated == null || !isWholeMinute(updated.getStart())
+            || !isWholeMinute(updated.getEnd())) {
+      return false;
+    }
+    // The original is being replaced, so only a clash with some other event counts
+    if (!updated.equals(original) && rowOf(updated.getSubject(),
+            minuteOf(updated.getStart()), minuteOf(updated.getEnd())) >= 0) {
+      return false;
+    }
+    removeRow(row);
+    insert(updated);
+    return true;
+  }
+
+  /**
+   * @return the only row matching all three fields exactly, or -1 if there is none or several.
+   */
+  private int uniqueRow(String subject, LocalDateTime start, LocalDateTime end) {
+    if (start == null || end == null || !isWholeMinute(start) || !isWholeMinute(end)) {
+      return -1;
+    }
+    int code = this.strings.codeOf(subject);
+    long s = minuteOf(start);
+    long e = minuteOf(end);
+    int found = -1;
+    for (int row = lowerBound(s); row < this.size && this.starts[row] == s; row++) {
+      if (this.subjects[row] == code && this.ends[row] == e) {
+        if (found >= 0) {
+          return -1;
+        }
+        found = row;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @return the first row equal to (subject, start, end), or -1.
+   */
+  private int rowOf(String subject, long start, long end) {
+    return rowOf(this.strings.codeOf(subject), start, end);
+  }
+
+  private int rowOf(int subjectCode, long start, long end) {
+    if (subjectCode == StringDictionary.ABSENT) {
+      return -1;
+    }
+    for (int row = lowerBound(start); row < this.size && this.starts[row] == start; row++) {
+      if (this.subjects[row] == subjectCode && this.ends[row] == end) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  private int rowOfId(long id) {
+    for (int row = 0; row < this.size; row++) {
+      if (this.ids[row] == id) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the first row starting at or after {@code minute}.
+   */
+  private int lowerBound(long minute) {
+    int lo = 0;
+    int hi = this.size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.starts[mid] < minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Build the event stored in {@code row}.
+   */
+  private IEvent event(int row) {
+    AbstractEvent.Builder<?> b = (this.seriesIds[row] == NO_SERIES)
+            ? SingleEvent.getBuilder()
+            : SeriesEvent.getBuilder().seriesId(this.seriesIds[row]);
+    return b.id(this.ids[row])
+            .subject(this.strings.decode(this.subjects[row]))
+            .description(this.strings.decode(this.descriptions[row]))
+            .start(timeOf(this.starts[row]))
+            .end(timeOf(this.ends[row]))
+            .location(this.locations[row] == NONE ? null : LOCATIONS[this.locations[row]])
+            .status(this.statuses[row] == NONE ? null : STATUSES[this.statuses[row]])
+            .build();
+  }
+
+  private void insert(IEvent event) {
+    insert(event, (event.getSeriesId() == null) ? NO_SERIES : event.getSeriesId());
+  }
+
+  /**
+   * Store {@code event} under {@code seriesId}, after any row with the same start.
+   */
+  private void insert(IEvent event, long seriesId) {
+    long start = minuteOf(event.getStart());
+    minuteOf(event.getEnd());   // reject a bad end before any row moves
+    grow(this.size + 1);
+    int row = lowerBound(start + 1);
+    for (int i = this.size - 1; i >= row; i--) {
+      moveRow(i, i + 1);
+    }
+    setRow(row, event, seriesId);
+    this.size++;
+  }
+
+  /**
+   * Write {@code event} into {@code row} under {@code seriesId}.
+   */
+  private void setRow(int row, IEvent event, long seriesId) {
+    long start = minuteOf(event.getStart());
+    long end = minuteOf(event.getEnd());
+    setRow(row, start, end, event.getId(), seriesId,
+            this.strings.encode(event.getSubject()),
+            this.strings.encode(event.getDescription()),
+            event.getLocation() == null ? NONE : (byte) event.getLocation().ordinal(),
+            event.getStatus() == null ? NONE : (byte) event.getStatus().ordinal());
+    this.maxLength = Math.max(this.maxLength, end - start);
+  }
+
+  private void removeRow(int row) {
+    for (int i = row + 1; i < this.size; i++) {
+      moveRow(i, i - 1);
+    }
+    this.size--;
+  }
+
+  private void setRow(int row, long start, long end, long id, long seriesId, int subject,
+                      int description, byte location, byte status) {
+    this.starts[row] = start;
+    this.ends[row] = end;
+    this.ids[row] = id;
+    this.seriesIds[row] = seriesId;
+    this.subjects[row] = subject;
+    this.descriptions[row] = description;
+    this.locations[row] = location;
+    this.statuses[row] = status;
+  }
+
+  private void moveRow(int from, int to) {
+    setRow(to, this.starts[from], this.ends[from], this.ids[from], this.seriesIds[from],
+            this.subjects[from], this.descriptions[from], this.locations[from],
+            this.statuses[from]);
+  }
+
+  private void grow(int capacity) {
+    if (capacity <= this.starts.length) {
+      return;
+    }
+    int next = Math.max(capacity, this.starts.length * 2);
+    this.starts = Arrays.copyOf(this.starts, next);
+    this.ends = Arrays.copyOf(this.ends, next);
+    this.ids = Arrays.copyOf(this.ids, next);
+    this.seriesIds = Arrays.copyOf(this.seriesIds, next);
+    this.subjects = Arrays.copyOf(this.subjects, next);
+    this.descriptions = Arrays.copyOf(this.descriptions, next);
+    this.locations = Arrays.copyOf(this.locations, next);
+    this.statuses = Arrays.copyOf(this.statuses, next);
+  }
+
+  /**
+   * Walks rows [row, end) that end after {@code from}.  Rows are in start order, so splitting
+   * the rows in half splits the range by start time.
+   */
+  private final class RowSpliterator implements Spliterator<IEvent> {
+    private int row;
+    private final int end;
+    private final long from;
+
+    RowSpliterator(int row, int end, long from) {
+      this.row = row;
+      this.end = end;
+      this.from = from;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super IEvent> action) {
+      while (row < end) {
+        int r = row++;
+        if (ends[r] > from) {
+          action.accept(event(r));
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super IEvent> action) {
+      for (; row < end; row++) {
+        if (ends[row] > from) {
+          action.accept(event(row));
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<IEvent> trySplit() {
+      int mid = (row + end) >>> 1;
+      if (mid <= row) {
+        return null;
+      }
+      RowSpliterator prefix = new RowSpliterator(row, mid, from);
+      this.row = mid;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - row;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+  }
+
+  /**
+   * @return {@code time} in epoch minutes; it must fall on a whole minute.
+   */
+  private static long minuteOf(LocalDateTime time) {
+    if (time == null || !isWholeMinute(time)) {
+      throw new IllegalArgumentException("Event times must be whole minutes: " + time);
+    }
+    return minuteFloor(time);
+  }
+
+  private static long minuteFloor(LocalDateTime time) {
+    return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  private static long minuteCeiling(LocalDateTime time) {
+    return minuteFloor(time) + (isWholeMinute(time) ? 0 : 1);
+  }
+
+  private static boolean isWholeMinute(LocalDateTime time) {
+    return time.getSecond() == 0 && time.getNano() == 0;
+  }
+
+  private static LocalDateTime timeOf(long minute) {
+    return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,212 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * A thread‐safe calendar that can be shared between worker threads.  It serializes the
+ * mutations of a {@link Calendar} with the write lock of a {@link StampedLock}.  Queries take no
+ * lock at all: Calendar answers them from the immutable snapshot it publishes after each
+ * mutation, so readers never wait for writers.
+ *
+ * <p>ID lookups are the exception: they read hash indexes that only the writer may touch
+ * unguarded, so they share the read lock.
+ *
+ * <p>Calendar checks a mutation completely before it touches any of its indexes and publishes
+ * only once the mutation is complete, so a rejected series edit is never visible half applied.
+ */
+public class ConcurrentCalendar implements ICalendar {
+
+  private final Calendar delegate;
+  private final StampedLock lock;
+
+  public ConcurrentCalendar() {
+    this(new Calendar());
+  }
+
+  /**
+   * Guard an existing calendar.  The caller must not use {@code delegate} directly afterwards.
+   */
+  public ConcurrentCalendar(Calendar delegate) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("Calendar cannot be null");
+    }
+    this.delegate = delegate;
+    this.lock = new StampedLock();
+  }
+
+  @Override
+  public boolean addEvent(IEvent event) {
+    return write(() -> delegate.addEvent(event));
+  }
+
+  @Override
+  public ImportReport addAll(Collection<? extends IEvent> events) {
+    long stamp = lock.writeLock();
+    try {
+      return delegate.addAll(events);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          Location location,
+          Status status
+  ) {
+    return write(() -> delegate.makeEvent(subject, description, start, end, location, status));
+  }
+
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          List<java.time.DayOfWeek> days,
+          int count
+  ) {
+    return write(() -> delegate.makeEvent(subject, description, start, end, days, count));
+  }
+
+  @Override
+  public boolean makeEvent(
+          String subject,
+          String description,
+          LocalDateTime start,
+          LocalDateTime end,
+          List<java.time.DayOfWeek> days,
+          LocalDateTime endDate
+  ) {
+    return write(() -> delegate.makeEvent(subject, description, start, end, days, endDate));
+  }
+
+  @Override
+  public boolean makeEvent(String subject, LocalDateTime start) {
+    return write(() -> delegate.makeEvent(subject, start));
+  }
+
+  @Override
+  public boolean editEvent() {
+    return write(delegate::editEvent);
+  }
+
+  @Override
+  public boolean editSeriesEvent(
+          String property,
+          String subject,
+          LocalDateTime start,
+          LocalDateTime end,
+          String newValue,
+          char type
+  ) {
+    return write(() -> delegate.editSeriesEvent(property, subject, start, end, newValue, type));
+  }
+
+  @Override
+  public List<IEvent> getEventsOnDate(LocalDate date) {
+    return delegate.getEventsOnDate(date);
+  }
+
+  @Override
+  public List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end) {
+    return delegate.getEventsInRange(start, end);
+  }
+
+  @Override
+  public void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action) {
+    delegate.forEachEventOnDate(date, action);
+  }
+
+  @Override
+  public void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                                  Consumer<? super IEvent> action) {
+    delegate.forEachEventInRange(start, end, action);
+  }
+
+  @Override
+  public EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit,
+                                    String after) {
+    return delegate.getEventsInRange(start, end, limit, after);
+  }
+
+  @Override
+  public Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end) {
+    return delegate.spliterator(start, end);
+  }
+
+  @Override
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    return delegate.isBusyAt(dateTime);
+  }
+
+  @Override
+  public boolean isFree(LocalDateTime start, LocalDateTime end) {
+    return delegate.isFree(start, end);
+  }
+
+  @Override
+  public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                                      LocalTime dayStart, LocalTime dayEnd, int limit) {
+    return delegate.findFreeSlots(from, to, length, dayStart, dayEnd, limit);
+  }
+
+  @Override
+  public IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end) {
+    return delegate.findEvent(subject, start, end);
+  }
+
+  /**
+   * @return an immutable view of the calendar as it stands now, for several related queries.
+   */
+  public CalendarSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+
+  @Override
+  public boolean removeEvent(IEvent event) {
+    return write(() -> delegate.removeEvent(event));
+  }
+
+  @Override
+  public IEvent getEventById(long id) {
+    long stamp = lock.readLock();
+    try {
+      return delegate.getEventById(id);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public boolean editEventById(long id, String property, String newValue) {
+    return write(() -> delegate.editEventById(id, property, newValue));
+  }
+
+  @Override
+  public boolean removeEventById(long id) {
+    return write(() -> delegate.removeEventById(id));
+  }
+
+  private boolean write(BooleanSupplier mutation) {
+    long stamp = lock.writeLock();
+    try {
+      return mutation.getAsBoolean();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the events of a range as a table, one row per event (each occurrence of a series
+ * its own row), for spreadsheets and reporting jobs.  The columns are id, series_id, subject,
+ * start, end, description, location and status, under a header row: times as
+ * {@code yyyy-MM-ddTHH:mm:ss}, series_id empty for single events, and description, location
+ * and status empty when unset.
+ *
+ * <p>Rows are built in one reused buffer and encoded straight into a fixed byte buffer that is
+ * written to the channel as it fills; events are walked a window at a time through
+ * {@link EventWindows}.  Nothing is collected, so memory does not grow with the number of rows.
+ */
+public final class CsvExporter {
+
+  private static final String HEADER =
+          "id,series_id,subject,start,end,description,location,status";
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  /**
+   * How fields are separated and escaped.
+   */
+  public enum Dialect {
+    /**
+     * RFC 4180: fields separated by commas, rows by CRLF; a field holding a comma, quote or
+     * line break is quoted, with quotes doubled.
+     */
+    CSV(','),
+    /**
+     * Tab separated, rows ended by LF; backslash, tab, CR and LF in a field are written as
+     * {@code \\}, {@code \t}, {@code \r} and {@code \n}, so every row is one line.
+     */
+    TSV('\t');
+
+    private final char separator;
+
+    Dialect(char separator) {
+      this.separator = separator;
+    }
+  }
+
+  private final Dialect dialect;
+  private final Utf8Output out;
+  private final StringBuilder row;
+  private int written;
+
+  private CsvExporter(Dialect dialect, WritableByteChannel out) {
+    this.dialect = dialect;
+    this.out = new Utf8Output(out, BUFFER_BYTES);
+    this.row = new StringBuilder(256);
+  }
+
+  /**
+   * Write a header and then the events overlapping [start, end) to {@code out}, in the order of
+   * {@link ReadableCalendar#getEventsInRange(LocalDateTime, LocalDateTime)}.  The channel is not
+   * closed.
+   * @return the number of rows written, not counting the header.
+   */
+  public static int export(ReadableCalendar calendar, LocalDateTime start, LocalDateTime end,
+                           Dialect dialect, WritableByteChannel out) throws IOException {
+    if (calendar == null || start == null || end == null || dialect == null || out == null) {
+      throw new IllegalArgumentException("Calendar, range, dialect and channel cannot be null");
+    }
+    CsvExporter exporter = new CsvExporter(dialect, out);
+    exporter.header();
+    EventWindows.forEach(calendar, start, end, exporter::write);
+    exporter.out.flush();
+    return exporter.written;
+  }
+
+  private void header() throws IOException {
+    row.setLength(0);
+    row.append(HEADER);
+    if (dialect == Dialect.TSV) {
+      for (int i = 0; i < row.length(); i++) {
+        if (row.charAt(i) == ',') {
+          row.setCharAt(i, '\t');
+        }
+      }
+    }
+    endRow();
+  }
+
+  private void write(IEvent event) throws IOException {
+    char sep = dialect.separator;
+    row.setLength(0);
+    row.append(event.getId()).append(sep);
+    if (event.getSeriesId() != null) {
+      row.append(event.getSeriesId().longValue());
+    }
+    row.append(sep);
+    field(event.getSubject());
+    row.append(sep);
+    dateTime(event.getStart());
+    row.append(sep);
+    dateTime(event.getEnd());
+    row.append(sep);
+    field(event.getDescription());
+    row.append(sep);
+    if (event.getLocation() != null) {
+      row.append(event.getLocation() == Location.VIRTUAL ? "virtual" : "physical");
+    }
+    row.append(sep);
+    if (event.getStatus() != null) {
+      row.append(event.getStatus() == Status.PUBLIC ? "public" : "private");
+    }
+    endRow();
+    written++;
+  }
+
+  private void endRow() throws IOException {
+    row.append(dialect == Dialect.CSV ? "\r\n" : "\n");
+    out.put(row);
+  }
+
+  private void field(String text) {
+    if (text == null) {
+      return;
+    }
+    if (dialect == Dialect.TSV) {
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        switch (c) {
+          case '\\':
+            row.append("\\\\");
+            break;
+          case '\t':
+            row.append("\\t");
+            break;
+          case '\r':
+            row.append("\\r");
+            break;
+          case '\n':
+            row.append("\\n");
+            break;
+          default:
+            row.append(c);
+        }
+      }
+    } else if (needsQuotes(text)) {
+      row.append('"');
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (c == '"') {
+          row.append('"');
+        }
+        row.append(c);
+      }
+      row.append('"');
+    } else {
+      row.append(text);
+    }
+  }
+
+  private static boolean needsQuotes(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Append {@code t} as {@code yyyy-MM-ddTHH:mm:ss}, digit by digit rather than through a
+   * formatter; every row has two.
+   */
+  private void dateTime(LocalDateTime t) {
+    if (t.getYear() < 0 || t.getYear() > 9999) {
+      row.append(t.withNano(0));   // outside four digits; ISO form, seconds kept if nonzero
+      return;
+    }
+    digits(t.getYear(), 1000);
+    row.append('-');
+    digits(t.getMonthValue(), 10);
+    row.append('-');
+    digits(t.getDayOfMonth(), 10);
+    row.append('T');
+    digits(t.getHour(), 10);
+    row.append(':');
+    digits(t.getMinute(), 10);
+    row.append(':');
+    digits(t.getSecond(), 10);
+  }
+
+  private void digits(int value, int top) {
+    for (int div = top; div > 0; div /= 10) {
+      row.append((char) ('0' + (value / div) % 10));
+    }
+  }
+}
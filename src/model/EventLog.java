@@ -0,0 +1,365 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append‐only file of records, the storage under {@link JournaledCalendar}.  After a
+ * 16‐byte header, each record is framed as its length, its bytes and a CRC‐32 of them, so a
+ * record torn by a crash is recognised on reading and cut off, along with anything after it.
+ *
+ * <p>Records are numbered from the first ever appended, and the header holds the number of the
+ * first one still in the file.  {@link #clear} empties the file once its records are saved
+ * elsewhere, say in a calendar image, while numbering carries on, so the log can tell which of
+ * its records such a copy already covers.
+ *
+ * <p>Records are staged in a buffer and written to the file in batches; when the file is
+ * forced depends on the {@link FsyncPolicy}.  Under {@link FsyncPolicy#GROUP} a record waits
+ * until {@value #GROUP_RECORDS} have gathered or a background thread's next tick, at most
+ * {@value #GROUP_DELAY_MS} ms later, so one sync covers a whole group.
+ */
+final class EventLog implements Closeable {
+
+  static final int GROUP_RECORDS = 256;
+  static final long GROUP_DELAY_MS = 20;
+
+  private static final int MAGIC = 0x43414C4A;   // "CALJ"
+  private static final int VERSION = 3;
+  private static final int HEADER_BYTES = 16;
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  /**
+   * Writes the body of one record.
+   */
+  interface RecordWriter {
+    void write(DataOutput out) throws IOException;
+  }
+
+  /**
+   * Applies one record read back from the log.
+   */
+  interface RecordReader {
+    void read(DataInput in) throws IOException;
+  }
+
+  private final Path file;
+  private FileChannel channel;
+  private final FsyncPolicy policy;
+  private final ByteBuffer staged;               // framed records not yet written
+  private final RecordBytes record;              // the record being built
+  private final DataOutputStream recordOut;
+  private final CRC32 crc;
+  private final ScheduledExecutorService flusher; // null unless the policy is GROUP
+  private long next;                             // the number the next record gets
+  private int unsynced;                          // records appended since the last sync
+  private IOException failure;                   // a background sync that failed
+
+  private EventLog(Path file, FileChannel channel, FsyncPolicy policy, long next) {
+    this.file = file;
+    this.channel = channel;
+    this.next = next;
+    this.policy = policy;
+    this.staged = ByteBuffer.allocate(BUFFER_BYTES);
+    this.record = new RecordBytes();
+    this.recordOut = new DataOutputStream(this.record);
+    this.crc = new CRC32();
+    if (policy == FsyncPolicy.GROUP) {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "event-log-sync");
+        t.setDaemon(true);
+        return t;
+      });
+      this.flusher.scheduleWithFixedDelay(this::syncInBackground,
+              GROUP_DELAY_MS, GROUP_DELAY_MS, TimeUnit.MILLISECONDS);
+    } else {
+      this.flusher = null;
+    }
+  }
+
+  /**
+   * Open the log at {@code file}, creating it if needed, and hand each intact record already
+   * in it, from record number {@code from} on, to {@code replay} in order.  A torn or corrupt
+   * tail is cut off before appending.  A new log numbers its first record {@code from}.
+   * @throws IOException if the file cannot be read, is not a log, or has already dropped
+   *         records numbered {@code from} or later.
+   */
+  static EventLog open(Path file, FsyncPolicy policy, long from, RecordReader replay)
+          throws IOException {
+    if (policy == null) {
+      throw new IllegalArgumentException("Fsync policy cannot be null");
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      Scan scan;
+      if (channel.size() < HEADER_BYTES) {   // new, or torn before its header was complete
+        channel.truncate(0);
+        writeFully(channel, header(from));
+        channel.force(true);
+        scan = new Scan(HEADER_BYTES, from);
+      } else {
+        scan = replay(channel, from, replay);
+        channel.truncate(scan.end);
+      }
+      channel.position(scan.end);
+      return new EventLog(file, channel, policy, scan.next);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static Scan replay(FileChannel channel, long from, RecordReader replay)
+          throws IOException {
+    channel.position(0);
+    InputStream raw = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_BYTES);
+    DataInputStream in = new DataInputStream(raw);
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a calendar journal");
+    }
+    long next = in.readLong();
+    if (next > from) {
+      throw new IOException("Journal starts at entry " + next + " and no longer holds entry "
+              + from);
+    }
+    long end = HEADER_BYTES;
+    long size = channel.size();
+    CRC32 crc = new CRC32();
+    byte[] body = new byte[256];
+    while (true) {
+      int length;
+      try {
+        length = in.readInt();
+        if (length < 0 || end + 8 + length > size) {
+          return new Scan(end, next);   // torn: the frame runs past the end of the file
+        }
+        if (body.length < length) {
+          body = new byte[Math.max(length, body.length * 2)];
+        }
+        in.readFully(body, 0, length);
+        crc.reset();
+        crc.update(body, 0, length);
+        if (in.readInt() != (int) crc.getValue()) {
+          return new Scan(end, next);   // corrupt: trust nothing from here on
+        }
+      } catch (EOFException e) {
+        return new Scan(end, next);
+      }
+      if (next >= from) {
+        replay.read(new DataInputStream(new ByteArrayInputStream(body, 0, length)));
+      }
+      next++;
+      end += 8 + length;
+    }
+  }
+
+  private static ByteBuffer header(long first) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(MAGIC).putInt(VERSION).putLong(first);
+    header.flip();
+    return header;
+  }
+
+  /**
+   * @return the number the next record appended will get.
+   */
+  synchronized long next() {
+    return next;
+  }
+
+  /**
+   * Append one record whose body {@code writer} fills in, and sync as the policy says.
+   * @throws UncheckedIOException if the log cannot be written; it then refuses further records.
+   */
+  synchronized void append(RecordWriter writer) {
+    try {
+      put(writer);
+      switch (policy) {
+        case ALWAYS:
+          sync();
+          break;
+        case GROUP:
+          if (unsynced >= GROUP_RECORDS) {
+            sync();
+          }
+          break;
+        default:
+          writeStaged();
+          unsynced = 0;
+      }
+    } catch (IOException e) {
+      failure = e;
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Like {@link #append}, but never force the record, whatever the policy: it reaches the disk
+   * with the next record that is forced, or when the log is synced or closed.  For records
+   * that only annotate the one before them, which a crash may lose without harm.
+   * @throws UncheckedIOException if the log cannot be written; it then refuses further records.
+   */
+  synchronized void appendUnforced(RecordWriter writer) {
+    try {
+      put(writer);
+      if (policy == FsyncPolicy.NEVER) {
+        writeStaged();
+        unsynced = 0;
+      }
+    } catch (IOException e) {
+      failure = e;
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Write out everything appended so far and force it to disk.
+   */
+  synchronized void sync() throws IOException {
+    writeStaged();
+    if (unsynced > 0) {
+      channel.force(false);
+      unsynced = 0;
+    }
+  }
+
+  /**
+   * Drop every record, keeping the numbering.  The emptied log is written beside the file and
+   * moved over it, so a crash leaves either every record or none.
+   */
+  synchronized void clear() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+    sync();
+    Path partial = file.resolveSibling(file.getFileName() + ".partial");
+    try (FileChannel fresh = FileChannel.open(partial, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(fresh, header(next));
+      fresh.force(true);
+    }
+    Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+    channel.close();
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.WRITE);
+      channel.position(HEADER_BYTES);
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    try {
+      if (failure == null) {
+        writeStaged();
+        channel.force(false);
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  private synchronized void syncInBackground() {
+    if (failure != null || !channel.isOpen()) {
+      return;
+    }
+    try {
+      sync();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  /**
+   * Frame the record {@code writer} fills in and stage it, numbering it.
+   */
+  private void put(RecordWriter writer) throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+    record.reset();
+    writer.write(recordOut);
+    int length = record.size();
+    crc.reset();
+    crc.update(record.array(), 0, length);
+    if (staged.remaining() < length + 8) {
+      writeStaged();
+    }
+    if (staged.remaining() < length + 8) {
+      writeFully(channel, frame(record.array(), length, (int) crc.getValue()));
+    } else {
+      staged.putInt(length).put(record.array(), 0, length).putInt((int) crc.getValue());
+    }
+    unsynced++;
+    next++;
+  }
+
+  private void writeStaged() throws IOException {
+    staged.flip();
+    writeFully(channel, staged);
+    staged.clear();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static ByteBuffer frame(byte[] body, int length, int checksum) {
+    ByteBuffer frame = ByteBuffer.allocate(length + 8);
+    frame.putInt(length).put(body, 0, length).putInt(checksum);
+    frame.flip();
+    return frame;
+  }
+
+  /**
+   * How far a replay got: the offset just past the last intact record, and the number the
+   * next record will get.
+   */
+  private static final class Scan {
+    final long end;
+    final long next;
+
+    Scan(long end, long next) {
+      this.end = end;
+      this.next = next;
+    }
+  }
+
+  /**
+   * A byte array output stream that lets the log read its buffer without copying.
+   */
+  private static final class RecordBytes extends ByteArrayOutputStream {
+    byte[] array() {
+      return buf;
+    }
+  }
+}
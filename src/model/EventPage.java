@@ -0,0 +1,120 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a range query, as returned by {@link ReadableCalendar#getEventsInRange(LocalDateTime,
+ * LocalDateTime, int, String)}: at most the requested number of events, in the order of the
+ * full query, plus a token to pass back for the events after them.
+ *
+ * <p>The token names the last event on the page by its start and id.  The next page resumes
+ * after that event; if it has since been removed or moved, the next page starts with the first
+ * event starting after its old start, so events tied with it may be skipped but none is shown
+ * twice.
+ */
+public final class EventPage {
+  private final List<IEvent> events;
+  private final String nextToken;
+
+  EventPage(List<IEvent> events, String nextToken) {
+    this.events = Collections.unmodifiableList(events);
+    this.nextToken = nextToken;
+  }
+
+  public List<IEvent> getEvents() {
+    return events;
+  }
+
+  /**
+   * @return the token for the following page, or null if this page is the last.
+   */
+  public String getNextToken() {
+    return nextToken;
+  }
+
+  public boolean hasMore() {
+    return nextToken != null;
+  }
+
+  private static String tokenAfter(IEvent last) {
+    String key = last.getStart() + "/" + last.getId();
+    return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Fills a page from events offered in query order, skipping those up to and including the
+   * one the {@code after} token names.
+   */
+  static final class Collector {
+    private final int limit;
+    private final LocalDateTime afterStart;  // null when starting from the beginning
+    private final long afterId;
+    private final List<IEvent> events;
+    private boolean skipping;
+    private boolean more;
+
+    Collector(int limit, String after) {
+      if (limit <= 0) {
+        throw new IllegalArgumentException("Page limit must be positive");
+      }
+      this.limit = limit;
+      this.events = new ArrayList<>();
+      if (after == null) {
+        this.afterStart = null;
+        this.afterId = 0;
+        return;
+      }
+      try {
+        String key = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        int slash = key.lastIndexOf('/');
+        this.afterStart = LocalDateTime.parse(key.substring(0, slash));
+        this.afterId = Long.parseLong(key.substring(slash + 1));
+      } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+        throw new IllegalArgumentException("Invalid page token: " + after);
+      }
+      this.skipping = true;
+    }
+
+    /**
+     * @return the earliest start an event on this page can have, or null for no bound.
+     */
+    LocalDateTime resumeFrom() {
+      return afterStart;
+    }
+
+    /**
+     * Take the next event in query order.
+     * @return false once the page is full and no more events are wanted.
+     */
+    boolean offer(IEvent event) {
+      if (skipping) {
+        int cmp = event.getStart().compareTo(afterStart);
+        if (cmp < 0) {
+          return true;
+        }
+        if (cmp == 0) {
+          skipping = event.getId() != afterId;
+          return true;
+        }
+        skipping = false;
+      }
+      if (events.size() == limit) {
+        more = true;
+        return false;
+      }
+      events.add(event);
+      return true;
+    }
+
+    EventPage page() {
+      return new EventPage(events, more ? tokenAfter(events.get(events.size() - 1)) : null);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Walks the events of a range in order, a few weeks at a time, for the exporters.
+ *
+ * <p>{@link ReadableCalendar#forEachEventInRange} expands every series the range touches before
+ * handing out the first event, and a paged query expands each series for a page's worth of
+ * weeks on every page; over years of a long‐running series both get expensive.  Walking in
+ * windows keeps each expansion to one window, and a small paged query skips empty stretches so
+ * a sparse range costs no more than a dense one.
+ */
+final class EventWindows {
+
+  static final int WINDOW_DAYS = 28;
+  private static final int PROBE_SIZE = 16;
+
+  /**
+   * Receives the events of a walk.
+   */
+  interface Visitor {
+    void accept(IEvent event) throws IOException;
+
+    /**
+     * Called after each window: no event still to come starts before {@code time}.
+     */
+    default void passed(LocalDateTime time) throws IOException {
+    }
+  }
+
+  private EventWindows() {
+  }
+
+  /**
+   * Hand each event overlapping [start, end) to {@code visitor}, in the order of
+   * {@link ReadableCalendar#getEventsInRange(LocalDateTime, LocalDateTime)}.
+   */
+  static void forEach(ReadableCalendar calendar, LocalDateTime start, LocalDateTime end,
+                      Visitor visitor) throws IOException {
+    try {
+      // The first window takes everything overlapping it; later ones only what starts in them,
+      // the rest having been handed out already.  A later window is queried from just before
+      // its start: an event of no length starting exactly there overlaps neither window's range
+      // but does overlap [start, end)
+      LocalDateTime from = start;
+      LocalDateTime next = firstStartFrom(calendar, start, end, false);
+      while (next != null) {
+        boolean first = from.equals(start);
+        LocalDateTime lo = first ? LocalDateTime.MIN : from;
+        LocalDateTime hi = (ChronoUnit.DAYS.between(next, end) > WINDOW_DAYS)
+                ? next.plusDays(WINDOW_DAYS) : end;
+        calendar.forEachEventInRange(first ? from : from.minusNanos(1), hi, event -> {
+          if (!event.getStart().isBefore(lo)) {
+            try {
+              visitor.accept(event);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        });
+        visitor.passed(hi);
+        from = hi;
+        next = hi.isBefore(end) ? firstStartFrom(calendar, hi, end, true) : null;
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @return the start of the first event overlapping [from, end), or with {@code startingIn}
+   *         the first starting in it (one of no length starting at {@code from} included), or
+   *         null if there is none.
+   */
+  private static LocalDateTime firstStartFrom(ReadableCalendar calendar, LocalDateTime from,
+                                              LocalDateTime end, boolean startingIn) {
+    LocalDateTime queryFrom = startingIn ? from.minusNanos(1) : from;
+    String token = null;
+    do {
+      EventPage page = calendar.getEventsInRange(queryFrom, end, PROBE_SIZE, token);
+      for (IEvent event : page.getEvents()) {
+        if (!startingIn || !event.getStart().isBefore(from)) {
+          return event.getStart().isBefore(from) ? from : event.getStart();
+        }
+      }
+      token = page.getNextToken();
+    } while (token != null);
+    return null;
+  }
+}
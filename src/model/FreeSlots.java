@@ -0,0 +1,98 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The day‐by‐day walk behind {@link ReadableCalendar#findFreeSlots}.  A calendar supplies a
+ * {@link DaySweep} that reports the free stretches of one day's search window in time order;
+ * this class joins stretches that meet (across midnight, say) and keeps the first {@code limit}
+ * that are at least {@code length} long.
+ */
+final class FreeSlots {
+
+  /**
+   * Reports, in time order, the stretches of [lo, hi) that no event covers.  Both ends lie
+   * within {@code date}, or hi is the following midnight.
+   */
+  interface DaySweep {
+    void sweep(LocalDate date, LocalDateTime lo, LocalDateTime hi, FreeSlots sink);
+  }
+
+  private final Duration length;
+  private final int limit;
+  private final List<TimeSlot> slots = new ArrayList<>();
+  private LocalDateTime start;   // the stretch still open to extension, or null
+  private LocalDateTime end;
+
+  private FreeSlots(Duration length, int limit) {
+    this.length = length;
+    this.limit = limit;
+  }
+
+  /**
+   * Check the arguments of {@link ReadableCalendar#findFreeSlots} and sweep the range with them.
+   */
+  static List<TimeSlot> find(LocalDateTime from, LocalDateTime to, Duration length,
+                             LocalTime dayStart, LocalTime dayEnd, int limit, DaySweep days) {
+    if (from == null || to == null || !to.isAfter(from)) {
+      throw new IllegalArgumentException("Search range must end after it starts");
+    }
+    if (length == null || length.isNegative() || length.isZero()) {
+      throw new IllegalArgumentException("Slot length must be positive");
+    }
+    if ((dayStart == null) != (dayEnd == null)) {
+      throw new IllegalArgumentException("Working hours need both a start and an end");
+    }
+    if (dayStart != null && !dayEnd.equals(LocalTime.MIDNIGHT) && !dayEnd.isAfter(dayStart)) {
+      throw new IllegalArgumentException("Working hours must end after they start");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    FreeSlots sweep = new FreeSlots(length, limit);
+    for (LocalDate d = from.toLocalDate(); d.atStartOfDay().isBefore(to) && !sweep.isFull();
+         d = d.plusDays(1)) {
+      LocalDateTime open = (dayStart == null) ? d.atStartOfDay() : d.atTime(dayStart);
+      LocalDateTime close = (dayEnd == null || dayEnd.equals(LocalTime.MIDNIGHT))
+              ? d.plusDays(1).atStartOfDay() : d.atTime(dayEnd);
+      LocalDateTime lo = open.isBefore(from) ? from : open;
+      LocalDateTime hi = close.isAfter(to) ? to : close;
+      if (lo.isBefore(hi)) {
+        days.sweep(d, lo, hi, sweep);
+      }
+    }
+    sweep.flush();
+    return sweep.slots;
+  }
+
+  /**
+   * Note that nothing covers [from, to).
+   */
+  void free(LocalDateTime from, LocalDateTime to) {
+    if (this.end != null && this.end.equals(from)) {
+      this.end = to;
+      return;
+    }
+    flush();
+    this.start = from;
+    this.end = to;
+  }
+
+  private void flush() {
+    if (this.end != null && !isFull()
+            && Duration.between(this.start, this.end).compareTo(this.length) >= 0) {
+      this.slots.add(new TimeSlot(this.start, this.end));
+    }
+    this.start = null;
+    this.end = null;
+  }
+
+  private boolean isFull() {
+    return this.slots.size() >= this.limit;
+  }
+}
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * When a {@link JournaledCalendar} writes its log and forces it to disk, trading the
+ * mutations a crash can lose against the cost of each one.
+ */
+public enum FsyncPolicy {
+  /** Force the log after every mutation, before it returns: nothing acknowledged is lost. */
+  ALWAYS,
+  /**
+   * Write and force records a group at a time, at most a few milliseconds after each is
+   * appended; a crash can lose the mutations of that window.
+   */
+  GROUP,
+  /**
+   * Hand each record to the operating system before the mutation returns, but never force;
+   * only a crash of the machine can lose mutations.
+   */
+  NEVER
+}
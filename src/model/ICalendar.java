@@ -1,15 +1,22 @@
 package model;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Interface for a single calendar.  Location and Status parameters remain nullable.
  */
-public interface ICalendar {
+public interface ICalendar extends ReadableCalendar {
   boolean addEvent(IEvent event);
 
+  /**
+   * Store a batch of events as addEvent would, giving each stored one a new ID in batch order.
+   * Events that are invalid, already stored, or repeat an earlier one in the batch are skipped
+   * and reported; the rest are stored.
+   */
+  ImportReport addAll(Collection<? extends IEvent> events);
+
   boolean makeEvent(
           String subject,
           String description,
@@ -49,9 +56,13 @@ public interface ICalendar {
           char type
   );
 
-  List<IEvent> getEventsOnDate(LocalDate date);
-  List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end);
-  boolean isBusyAt(LocalDateTime dateTime);
-  IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end);
   boolean removeEvent(IEvent event);
+
+  /**
+   * Change one property of the event with this ID only, even if it belongs to a series.
+   * @return true if the event exists and the change was applied.
+   */
+  boolean editEventById(long id, String property, String newValue);
+
+  boolean removeEventById(long id);
 }
@@ -12,7 +12,13 @@ public interface IEvent {
   String getDescription();
   Location getLocation();  // may return null if not set
   Status getStatus();      // may return null if not set
-  Integer getSeriesId();   // null if single‐event
+  Long getSeriesId();      // null if single‐event
+
+  /**
+   * @return the ID the owning calendar gave this event, stable across edits, or 0 if no
+   *         calendar has stored it yet.
+   */
+  long getId();
   boolean isAllDay();
   boolean overlapsWith(IEvent other);
   @Override boolean equals(Object other);
@@ -0,0 +1,260 @@
+package model;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a calendar's events to an iCalendar (RFC 5545) stream, one VEVENT per single event
+ * and one VEVENT with a weekly RRULE per run of a series.
+ *
+ * <p>Events are walked a window at a time through {@link EventWindows} and encoded into one
+ * fixed buffer, so memory does not grow with the size of the calendar.  Series are
+ * regrouped from their occurrences as they stream past: consecutive occurrences that look
+ * alike and keep to one set of weekdays form a run, and an edited or removed occurrence ends
+ * the run and starts another.  Only runs that could still continue are held, which is at most
+ * one per series active in the last week.
+ *
+ * <p>Times are written as floating local times, without a zone, and to the second.  A location
+ * becomes LOCATION ("virtual" or "physical") and a status becomes CLASS.
+ */
+public final class IcsExporter {
+
+  private static final int FOLD_OCTETS = 75;     // longest line RFC 5545 allows
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private final Utf8Output out;
+  private final StringBuilder line;
+  private final String stamp;          // the DTSTAMP line, the same for every event
+  private final Map<Long, Run> open;   // seriesId -> the run its next occurrence may extend
+  private int written;   // events, not VEVENTs
+
+  private IcsExporter(WritableByteChannel out) {
+    this.out = new Utf8Output(out, BUFFER_BYTES);
+    this.line = new StringBuilder(256);
+    this.stamp = "DTSTAMP:" + LocalDateTime.now(ZoneOffset.UTC).format(IcsFormat.DATE_TIME) + "Z";
+    this.open = new HashMap<>();
+  }
+
+  /**
+   * Write every event in the calendar to {@code out}.
+   * @return the number of events written, counting each occurrence of a series.
+   */
+  public static int export(ReadableCalendar calendar, WritableByteChannel out) throws IOException {
+    return export(calendar, LocalDateTime.MIN, LocalDateTime.MAX, out);
+  }
+
+  /**
+   * Write the events overlapping [start, end) to {@code out}.  The channel is not closed.
+   * @return the number of events written, counting each occurrence of a series.
+   */
+  public static int export(ReadableCalendar calendar, LocalDateTime start, LocalDateTime end,
+                           WritableByteChannel out) throws IOException {
+    if (calendar == null || start == null || end == null || out == null) {
+      throw new IllegalArgumentException("Calendar, range and channel cannot be null");
+    }
+    IcsExporter exporter = new IcsExporter(out);
+    exporter.put("BEGIN:VCALENDAR");
+    exporter.put("VERSION:2.0");
+    exporter.put("PRODID:-//CalendarApp//Calendar//EN");
+    EventWindows.forEach(calendar, start, end, new EventWindows.Visitor() {
+      @Override
+      public void accept(IEvent event) throws IOException {
+        exporter.add(event);
+      }
+
+      @Override
+      public void passed(LocalDateTime time) throws IOException {
+        exporter.closeRunsBefore(time.toLocalDate());
+      }
+    });
+    for (Run run : exporter.open.values()) {
+      exporter.vevent(run.first, run);
+    }
+    exporter.put("END:VCALENDAR");
+    exporter.out.flush();
+    return exporter.written;
+  }
+
+  private void add(IEvent event) throws IOException {
+    Long seriesId = event.getSeriesId();
+    if (seriesId == null) {
+      vevent(event, null);
+      return;
+    }
+    Run run = open.get(seriesId);
+    if (run != null && run.extend(event)) {
+      return;
+    }
+    if (run != null) {
+      vevent(run.first, run);
+    }
+    open.put(seriesId, new Run(event));
+  }
+
+  /**
+   * Write out the runs that end too long before {@code now} for any later occurrence to
+   * extend them.  Every run repeats at least weekly.
+   */
+  private void closeRunsBefore(LocalDate now) throws IOException {
+    Iterator<Run> it = open.values().iterator();
+    while (it.hasNext()) {
+      Run run = it.next();
+      if (run.last.plusDays(7).isBefore(now)) {
+        vevent(run.first, run);
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Write one VEVENT: a single event if {@code run} is null, else the run it starts.
+   */
+  private void vevent(IEvent event, Run run) throws IOException {
+    put("BEGIN:VEVENT");
+    line.setLength(0);
+    if (run == null) {
+      line.append("UID:").append(event.getId()).append("@calendar");
+    } else {
+      line.append("UID:series-").append(event.getSeriesId()).append('-')
+              .append(event.getId()).append("@calendar");
+    }
+    emit();
+    put(stamp);
+    dateTime("DTSTART:", event.getStart());
+    dateTime("DTEND:", event.getEnd());
+    if (run != null) {
+      line.setLength(0);
+      line.append("RRULE:FREQ=WEEKLY;COUNT=").append(run.count).append(";BYDAY=");
+      for (int i = 0; i < 7; i++) {
+        // Weekdays in order from the first occurrence's, so the k-th listed is the k-th date
+        DayOfWeek day = event.getStart().getDayOfWeek().plus(i);
+        if (run.has(day)) {
+          line.append(IcsFormat.dayCode(day)).append(',');
+        }
+      }
+      line.setLength(line.length() - 1);
+      emit();
+    }
+    text("SUMMARY:", event.getSubject());
+    if (event.getDescription() != null) {
+      text("DESCRIPTION:", event.getDescription());
+    }
+    if (event.getLocation() != null) {
+      put(event.getLocation() == Location.VIRTUAL ? "LOCATION:virtual" : "LOCATION:physical");
+    }
+    if (event.getStatus() != null) {
+      put(event.getStatus() == Status.PUBLIC ? "CLASS:PUBLIC" : "CLASS:PRIVATE");
+    }
+    put("END:VEVENT");
+    written += (run == null) ? 1 : run.count;
+  }
+
+  private void dateTime(String name, LocalDateTime value) throws IOException {
+    line.setLength(0);
+    line.append(name);
+    IcsFormat.appendDateTime(value, line);
+    emit();
+  }
+
+  private void text(String name, String value) throws IOException {
+    line.setLength(0);
+    line.append(name);
+    IcsFormat.escape(value, line);
+    emit();
+  }
+
+  private void put(String content) throws IOException {
+    line.setLength(0);
+    line.append(content);
+    emit();
+  }
+
+  /**
+   * Write the content line in {@link #line}, folded at 75 octets and never inside a character.
+   */
+  private void emit() throws IOException {
+    int octets = 0;
+    for (int i = 0; i < line.length(); ) {
+      int size = Utf8Output.octets(line.charAt(i));
+      if (octets + size > FOLD_OCTETS) {
+        out.put("\r\n ");
+        octets = 1;
+      }
+      octets += size;
+      i = out.put(line, i);
+    }
+    out.put("\r\n");
+  }
+
+  /**
+   * Consecutive occurrences of one series that a single weekly rule reproduces: all alike but
+   * for their dates, on the weekdays seen in the first week, with none skipped since.
+   */
+  private static final class Run {
+    final IEvent first;
+    final LocalDate anchor;
+    int days;          // bit d-1 set for each weekday d the run falls on
+    LocalDate last;    // date of the latest occurrence taken
+    int count;
+
+    Run(IEvent first) {
+      this.first = first;
+      this.anchor = first.getStart().toLocalDate();
+      this.days = bit(anchor);
+      this.last = anchor;
+      this.count = 1;
+    }
+
+    boolean has(DayOfWeek day) {
+      return (days & (1 << (day.getValue() - 1))) != 0;
+    }
+
+    /**
+     * Take {@code event} as the next occurrence if the rule so far produces it there.
+     */
+    boolean extend(IEvent event) {
+      LocalDate date = event.getStart().toLocalDate();
+      if (!alike(event) || !date.isAfter(last)) {
+        return false;
+      }
+      if (date.isBefore(anchor.plusDays(7))) {
+        days |= bit(date);           // still learning the weekdays
+      } else if (!date.equals(next())) {
+        return false;
+      }
+      last = date;
+      count++;
+      return true;
+    }
+
+    private LocalDate next() {
+      LocalDate date = last.plusDays(1);
+      while ((days & bit(date)) == 0) {
+        date = date.plusDays(1);
+      }
+      return date;
+    }
+
+    private boolean alike(IEvent event) {
+      LocalDate date = event.getStart().toLocalDate();
+      return first.getSubject().equals(event.getSubject())
+              && Objects.equals(first.getDescription(), event.getDescription())
+              && first.getLocation() == event.getLocation()
+              && first.getStatus() == event.getStatus()
+              && first.getStart().toLocalTime().equals(event.getStart().toLocalTime())
+              && date.atTime(first.getEnd().toLocalTime()).equals(event.getEnd());
+    }
+
+    private static int bit(LocalDate date) {
+      return 1 << (date.getDayOfWeek().getValue() - 1);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The pieces of iCalendar (RFC 5545) syntax that {@link IcsExporter} and {@link IcsImporter}
+ * share: date formats, weekday codes and text escaping.
+ */
+final class IcsFormat {
+
+  static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss");
+  static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("uuuuMMdd");
+
+  private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+  private IcsFormat() {
+  }
+
+  /**
+   * Append {@code t} in the {@link #DATE_TIME} form, without a formatter: exporting writes two
+   * for every event.  Years outside 0..9999 are left to the formatter.
+   */
+  static void appendDateTime(LocalDateTime t, StringBuilder out) {
+    if (t.getYear() < 0 || t.getYear() > 9999) {
+      out.append(t.format(DATE_TIME));
+      return;
+    }
+    digits(t.getYear(), 4, out);
+    digits(t.getMonthValue(), 2, out);
+    digits(t.getDayOfMonth(), 2, out);
+    out.append('T');
+    digits(t.getHour(), 2, out);
+    digits(t.getMinute(), 2, out);
+    digits(t.getSecond(), 2, out);
+  }
+
+  /**
+   * @return {@code value}, in the {@link #DATE_TIME} form, as a date‐time; read digit by digit
+   *         since importing reads two for every event.
+   * @throws java.time.DateTimeException if it is not in that form or not a real time.
+   */
+  static LocalDateTime parseDateTime(String value) {
+    if (value.length() != 15 || value.charAt(8) != 'T') {
+      return LocalDateTime.parse(value, DATE_TIME);   // reports the error
+    }
+    int year = number(value, 0, 4);
+    int month = number(value, 4, 6);
+    int day = number(value, 6, 8);
+    int hour = number(value, 9, 11);
+    int minute = number(value, 11, 13);
+    int second = number(value, 13, 15);
+    if ((year | month | day | hour | minute | second) < 0) {
+      return LocalDateTime.parse(value, DATE_TIME);
+    }
+    return LocalDateTime.of(year, month, day, hour, minute, second);
+  }
+
+  /**
+   * @return the decimal number in value[from, to), or -1 if a character is not a digit.
+   */
+  private static int number(String value, int from, int to) {
+    int n = 0;
+    for (int i = from; i < to; i++) {
+      int d = value.charAt(i) - '0';
+      if (d < 0 || d > 9) {
+        return -1;
+      }
+      n = n * 10 + d;
+    }
+    return n;
+  }
+
+  private static void digits(int value, int width, StringBuilder out) {
+    for (int div = (width == 4) ? 1000 : 10; div > 0; div /= 10) {
+      out.append((char) ('0' + (value / div) % 10));
+    }
+  }
+
+  static String dayCode(DayOfWeek day) {
+    return DAY_CODES[day.getValue() - 1];
+  }
+
+  /**
+   * @return the weekday with this two‐letter code, or null if it is not one.
+   */
+  static DayOfWeek dayOf(String code) {
+    for (int i = 0; i < DAY_CODES.length; i++) {
+      if (DAY_CODES[i].equalsIgnoreCase(code)) {
+        return DayOfWeek.of(i + 1);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Append {@code text} as a TEXT value: backslashes, semicolons, commas and line breaks are
+   * escaped.
+   */
+  static void escape(CharSequence text, StringBuilder out) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '\\':
+        case ';':
+        case ',':
+          out.append('\\').append(c);
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          break;
+        default:
+          out.append(c);
+      }
+    }
+  }
+
+  /**
+   * @return a TEXT value with its escapes undone.
+   */
+  static String unescape(String value) {
+    if (value.indexOf('\\') < 0) {
+      return value;
+    }
+    StringBuilder sb = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        char next = value.charAt(++i);
+        sb.append(next == 'n' || next == 'N' ? '\n' : next);
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,680 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the VEVENTs of an iCalendar (RFC 5545) stream into a calendar.  Events without a
+ * recurrence rule are added in batches through {@link ICalendar#addAll}; one with a weekly or
+ * daily RRULE becomes a series through makeEvent, with its EXDATEs removed afterwards.
+ *
+ * <p>The stream is decoded from a fixed buffer and handled one content line and one VEVENT at
+ * a time, so memory stays bounded however large the file: by the longest line, the batch of
+ * events not yet added, and the report.  Lines longer than {@value #MAX_LINE} characters are
+ * refused.
+ *
+ * <p>Mapping: SUMMARY, DESCRIPTION, DTSTART, DTEND or DURATION as read.  Times in UTC or with
+ * a known TZID are converted to the importer's zone; floating times are taken as they are.  A
+ * date‐only event gets the calendar's all‐day hours.  LOCATION "virtual" or "physical" maps to
+ * that {@link Location}; other text maps to VIRTUAL if it is a URL and PHYSICAL otherwise.
+ * CLASS PUBLIC maps to {@link Status#PUBLIC}, PRIVATE and CONFIDENTIAL to PRIVATE.
+ *
+ * <p>What the calendar cannot hold is reported rather than approximated: rules other than
+ * weekly or daily with an interval of 1 and a COUNT or UNTIL, RDATEs, overrides of a single
+ * occurrence (RECURRENCE‐ID), and recurring events that end on a later day than they start.
+ */
+public final class IcsImporter {
+
+  static final int MAX_LINE = 1 << 20;
+  private static final int BATCH_SIZE = 4096;
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private final ICalendar calendar;
+  private final ZoneId zone;
+  private final ImportReport.Builder report;
+  private final List<IEvent> batch;
+  private final List<Integer> batchIndexes;   // the VEVENT number of each event in the batch
+  private String lastTzid;
+  private ZoneId lastZone;
+
+  private IcsImporter(ICalendar calendar, ZoneId zone) {
+    this.calendar = calendar;
+    this.zone = zone;
+    this.report = ImportReport.getBuilder();
+    this.batch = new ArrayList<>(BATCH_SIZE);
+    this.batchIndexes = new ArrayList<>(BATCH_SIZE);
+  }
+
+  /**
+   * Import every VEVENT in {@code in} into {@code calendar}, converting zoned times to the
+   * system default zone.
+   * @see #importEvents(ReadableByteChannel, ICalendar, ZoneId)
+   */
+  public static ImportReport importEvents(ReadableByteChannel in, ICalendar calendar)
+          throws IOException {
+    return importEvents(in, calendar, ZoneId.systemDefault());
+  }
+
+  /**
+   * Import every VEVENT in {@code in} into {@code calendar}, converting zoned times to
+   * {@code zone}.  The channel is read to its end but not closed.
+   * @return how many events were stored, and which VEVENTs, numbered from 0 in file order,
+   *         were turned away and why.
+   * @throws IOException if the channel cannot be read or a line is too long; events already
+   *         read by then may have been stored.
+   */
+  public static ImportReport importEvents(ReadableByteChannel in, ICalendar calendar,
+                                          ZoneId zone) throws IOException {
+    if (in == null || calendar == null || zone == null) {
+      throw new IllegalArgumentException("Channel, calendar and zone cannot be null");
+    }
+    IcsImporter importer = new IcsImporter(calendar, zone);
+    LineReader lines = new LineReader(in);
+    VEvent event = null;
+    int nested = 0;      // depth of components inside the current VEVENT, such as VALARM
+    int index = 0;
+    String line;
+    while ((line = lines.next()) != null) {
+      ContentLine content = ContentLine.parse(line);
+      if (content == null) {
+        continue;
+      }
+      if (content.name.equals("BEGIN")) {
+        if (event != null) {
+          nested++;
+        } else if (content.value.equalsIgnoreCase("VEVENT")) {
+          event = new VEvent();
+        }
+      } else if (content.name.equals("END")) {
+        if (event != null && nested > 0) {
+          nested--;
+        } else if (event != null && content.value.equalsIgnoreCase("VEVENT")) {
+          importer.add(event, index++);
+          event = null;
+        }
+      } else if (event != null && nested == 0) {
+        event.set(content);
+      }
+    }
+    importer.flush();
+    return importer.report.build();
+  }
+
+  private void add(VEvent v, int index) {
+    if (v.recurrenceId || v.rdate) {
+      report.reject(index, null, ImportReport.Reason.UNSUPPORTED);
+      return;
+    }
+    LocalDateTime start;
+    LocalDateTime end;
+    try {
+      if (v.summary == null || v.summary.trim().isEmpty() || v.dtstart == null) {
+        report.reject(index, null, ImportReport.Reason.INVALID);
+        return;
+      }
+      boolean allDay = isDate(v.dtstart);
+      start = allDay ? date(v.dtstart.value).atTime(8, 0) : time(v.dtstart);
+      if (v.dtend != null) {
+        end = allDay
+                ? date(v.dtend.value).minusDays(1).atTime(17, 0)
+                : time(v.dtend);
+      } else if (v.duration != null) {
+        Duration length = duration(v.duration);
+        end = allDay
+                ? start.toLocalDate().plusDays(Math.max(0, length.toDays() - 1)).atTime(17, 0)
+                : start.plus(length);
+      } else {
+        end = allDay ? start.toLocalDate().atTime(17, 0) : start;
+      }
+    } catch (DateTimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      report.reject(index, null, ImportReport.Reason.INVALID);
+      return;
+    }
+    IEvent event = SingleEvent.getBuilder()
+            .subject(v.summary)
+            .description(v.description)
+            .start(start)
+            .end(end)
+            .location(location(v.location))
+            .status(status(v.classification))
+            .build();
+    if (end.isBefore(start)) {
+      report.reject(index, event, ImportReport.Reason.INVALID);
+    } else if (v.rrule == null) {
+      batch.add(event);
+      batchIndexes.add(index);
+      if (batch.size() == BATCH_SIZE) {
+        flush();
+      }
+    } else {
+      flush();   // keep IDs in file order
+      addSeries(v, event, index);
+    }
+  }
+
+  private void addSeries(VEvent v, IEvent first, int index) {
+    LocalDateTime start = first.getStart();
+    LocalDateTime end = first.getEnd();
+    Integer count = null;
+    LocalDateTime until = null;
+    String freq = null;
+    String byDay = null;
+    try {
+      for (String part : v.rrule.split(";")) {
+        int eq = part.indexOf('=');
+        String key = (eq < 0) ? part : part.substring(0, eq).toUpperCase(Locale.ROOT);
+        String value = (eq < 0) ? "" : part.substring(eq + 1);
+        switch (key) {
+          case "FREQ":
+            freq = value.toUpperCase(Locale.ROOT);
+            break;
+          case "COUNT":
+            count = Integer.parseInt(value);
+            break;
+          case "UNTIL":
+            until = isDateValue(value) ? date(value).atTime(LocalTime.MAX) : time(value, null);
+            break;
+          case "INTERVAL":
+            if (Integer.parseInt(value) != 1) {
+              freq = null;
+            }
+            break;
+          case "BYDAY":
+            byDay = value;
+            break;
+          case "WKST":
+            break;   // only matters with an interval above 1
+          default:
+            freq = null;
+        }
+      }
+    } catch (DateTimeException | IllegalArgumentException e) {
+      report.reject(index, first, ImportReport.Reason.INVALID);
+      return;
+    }
+    List<DayOfWeek> days = days(freq, byDay, start.getDayOfWeek());
+    if (days == null || (count == null) == (until == null)
+            || !start.toLocalDate().equals(end.toLocalDate())) {
+      report.reject(index, first, ImportReport.Reason.UNSUPPORTED);
+      return;
+    }
+
+    // RFC 5545 makes DTSTART the first occurrence even on a weekday the rule skips, and COUNT
+    // includes it.  The calendar's rules cannot say that, so such a DTSTART is stored as an
+    // extra member of the series, or on its own if the rule yields nothing else.
+    boolean extra = !days.contains(start.getDayOfWeek());
+    long occurrences;
+    boolean made;
+    try {
+      if (count != null) {
+        occurrences = extra ? count - 1 : count;
+        made = (extra && occurrences == 0)
+                || calendar.makeEvent(first.getSubject(), first.getDescription(), start, end,
+                days, (int) occurrences);
+      } else {
+        occurrences = RecurrenceRule.countThrough(start.toLocalDate(), days, until.toLocalDate());
+        made = (extra && occurrences == 0)
+                || (occurrences > 0 && calendar.makeEvent(first.getSubject(),
+                first.getDescription(), start, end, days, until));
+      }
+    } catch (IllegalArgumentException e) {
+      report.reject(index, first, ImportReport.Reason.INVALID);
+      return;
+    }
+    if (!made) {
+      report.reject(index, first, ImportReport.Reason.REFUSED);
+      return;
+    }
+
+    // Series are created bare; the rest is set on the whole series, then EXDATEs removed.
+    // Days are listed from the start's weekday on, so the first listed is the first date.
+    LocalDate firstDate = start.toLocalDate().plusDays(
+            (days.get(0).getValue() - start.getDayOfWeek().getValue() + 7) % 7);
+    LocalDateTime firstStart = firstDate.atTime(start.toLocalTime());
+    LocalDateTime firstEnd = firstDate.atTime(end.toLocalTime());
+    IEvent lone = null;   // DTSTART, when it is the only occurrence
+    if (occurrences > 0) {
+      if (first.getLocation() != null) {
+        calendar.editSeriesEvent("location", first.getSubject(), firstStart, firstEnd,
+                first.getLocation().toString(), 'e');
+      }
+      if (first.getStatus() != null) {
+        calendar.editSeriesEvent("status", first.getSubject(), firstStart, firstEnd,
+                first.getStatus().toString(), 'e');
+      }
+      if (extra) {
+        IEvent member = calendar.findEvent(first.getSubject(), firstStart, firstEnd);
+        IEvent dtstart = SeriesEvent.getBuilder()
+                .seriesId(member.getSeriesId())
+                .subject(first.getSubject())
+                .description(first.getDescription())
+                .start(start)
+                .end(end)
+                .location(first.getLocation())
+                .status(first.getStatus())
+                .build();
+        if (calendar.addEvent(dtstart)) {
+          occurrences++;
+        }
+      }
+    } else {
+      if (!calendar.addEvent(first)) {
+        report.reject(index, first, ImportReport.Reason.ALREADY_EXISTS);
+        return;
+      }
+      lone = first;
+      occurrences = 1;
+    }
+    for (Property exdate : v.exdates) {
+      for (String value : exdate.value.split(",")) {
+        try {
+          LocalDate date = isDateValue(value)
+                  ? date(value)
+                  : time(value, exdate.param("TZID")).toLocalDate();
+          IEvent skipped = calendar.findEvent(first.getSubject(),
+                  date.atTime(start.toLocalTime()), date.atTime(end.toLocalTime()));
+          if (skipped != null && (skipped.getSeriesId() != null || skipped.equals(lone))
+                  && calendar.removeEventById(skipped.getId())) {
+            occurrences--;
+          }
+        } catch (DateTimeException | IllegalArgumentException e) {
+          // an unreadable EXDATE excludes nothing
+        }
+      }
+    }
+    report.added((int) Math.min(Integer.MAX_VALUE, occurrences));
+  }
+
+  /**
+   * Add the batched events, mapping the batch's report back to VEVENT numbers.
+   */
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    ImportReport added = calendar.addAll(batch);
+    report.added(added.getAdded());
+    for (ImportReport.Rejection r : added.getRejections()) {
+      report.reject(batchIndexes.get(r.getIndex()), r.getEvent(), r.getReason());
+    }
+    batch.clear();
+    batchIndexes.clear();
+  }
+
+  /**
+   * @return the weekdays a rule falls on, in order from {@code first}, or null if the rule
+   *         is not one the calendar can repeat.
+   */
+  private static List<DayOfWeek> days(String freq, String byDay, DayOfWeek first) {
+    boolean[] on = new boolean[7];
+    if ("DAILY".equals(freq) && byDay == null) {
+      java.util.Arrays.fill(on, true);
+    } else if ("WEEKLY".equals(freq) && byDay == null) {
+      on[first.getValue() - 1] = true;
+    } else if ("WEEKLY".equals(freq)) {
+      for (String code : byDay.split(",")) {
+        DayOfWeek day = IcsFormat.dayOf(code.trim());
+        if (day == null) {
+          return null;   // e.g. "1MO", which is only meaningful monthly or yearly
+        }
+        on[day.getValue() - 1] = true;
+      }
+    } else {
+      return null;
+    }
+    List<DayOfWeek> days = new ArrayList<>(7);
+    for (int i = 0; i < 7; i++) {
+      DayOfWeek day = first.plus(i);
+      if (on[day.getValue() - 1]) {
+        days.add(day);
+      }
+    }
+    return days;
+  }
+
+  private static boolean isDate(Property p) {
+    return "DATE".equalsIgnoreCase(p.param("VALUE")) || isDateValue(p.value);
+  }
+
+  private static boolean isDateValue(String value) {
+    return value.length() == 8;
+  }
+
+  private static LocalDate date(String value) {
+    return LocalDate.parse(value.substring(0, 8), IcsFormat.DATE);
+  }
+
+  private LocalDateTime time(Property p) {
+    return time(p.value, p.param("TZID"));
+  }
+
+  /**
+   * @return a DATE‐TIME value as a local time in this importer's zone.  UTC values ("Z") and
+   *         those with a TZID Java knows are converted; others are floating.
+   */
+  private LocalDateTime time(String value, String tzid) {
+    boolean utc = value.endsWith("Z") || value.endsWith("z");
+    LocalDateTime local = IcsFormat.parseDateTime(
+            utc ? value.substring(0, value.length() - 1) : value);
+    ZoneId from = utc ? ZoneOffset.UTC : zoneOf(tzid);
+    return (from == null) ? local : local.atZone(from).withZoneSameInstant(zone).toLocalDateTime();
+  }
+
+  private ZoneId zoneOf(String tzid) {
+    if (tzid == null) {
+      return null;
+    }
+    if (!tzid.equals(lastTzid)) {
+      lastTzid = tzid;
+      try {
+        lastZone = ZoneId.of(tzid.startsWith("/") ? tzid.substring(1) : tzid);
+      } catch (DateTimeException e) {
+        lastZone = null;   // a zone only the file's VTIMEZONE defines: take times as they are
+      }
+    }
+    return lastZone;
+  }
+
+  /**
+   * @return a DURATION value; weeks ("P2W") are allowed, which {@link Duration} alone does not.
+   */
+  private static Duration duration(String value) {
+    String v = value.trim().toUpperCase(Locale.ROOT);
+    boolean negative = v.startsWith("-");
+    if (negative || v.startsWith("+")) {
+      v = v.substring(1);
+    }
+    Duration d = v.endsWith("W")
+            ? Duration.ofDays(7 * Long.parseLong(v.substring(1, v.length() - 1)))
+            : Duration.parse(v);
+    return negative ? d.negated() : d;
+  }
+
+  private static Location location(String text) {
+    if (text == null || text.trim().isEmpty()) {
+      return null;
+    }
+    try {
+      return Location.valueOfStrict(text);
+    } catch (IllegalArgumentException e) {
+      return text.contains("://") ? Location.VIRTUAL : Location.PHYSICAL;
+    }
+  }
+
+  private static Status status(String text) {
+    if (text == null) {
+      return null;
+    }
+    switch (text.trim().toUpperCase(Locale.ROOT)) {
+      case "PUBLIC":
+        return Status.PUBLIC;
+      case "PRIVATE":
+      case "CONFIDENTIAL":
+        return Status.PRIVATE;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * A property value with the parameters it was given.
+   */
+  private static final class Property {
+    final String params;   // everything between the name and the colon, or ""
+    final String value;
+
+    Property(String params, String value) {
+      this.params = params;
+      this.value = value;
+    }
+
+    /**
+     * @return the value of parameter {@code name}, without quotes, or null if absent.
+     */
+    String param(String name) {
+      int i = 0;
+      while (i < params.length()) {
+        int end = i;
+        boolean quoted = false;
+        while (end < params.length() && (quoted || params.charAt(end) != ';')) {
+          if (params.charAt(end) == '"') {
+            quoted = !quoted;
+          }
+          end++;
+        }
+        int eq = params.indexOf('=', i);
+        if (eq > i && eq < end && params.substring(i, eq).trim().equalsIgnoreCase(name)) {
+          String value = params.substring(eq + 1, end).trim();
+          return (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+                  ? value.substring(1, value.length() - 1)
+                  : value;
+        }
+        i = end + 1;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * One content line split into name, parameters and value.
+   */
+  private static final class ContentLine {
+    final String name;
+    final Property property;
+    final String value;
+
+    private ContentLine(String name, Property property) {
+      this.name = name;
+      this.property = property;
+      this.value = property.value;
+    }
+
+    /**
+     * @return the parsed line, or null if it has no colon outside a quoted parameter.
+     */
+    static ContentLine parse(String line) {
+      int nameEnd = -1;
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (c == '"') {
+          quoted = !quoted;
+        } else if (!quoted && (c == ';' || c == ':') && nameEnd < 0) {
+          nameEnd = i;
+          if (c == ':') {
+            return new ContentLine(line.substring(0, i).trim().toUpperCase(Locale.ROOT),
+                    new Property("", line.substring(i + 1)));
+          }
+        } else if (!quoted && c == ':') {
+          return new ContentLine(line.substring(0, nameEnd).trim().toUpperCase(Locale.ROOT),
+                  new Property(line.substring(nameEnd + 1, i), line.substring(i + 1)));
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The properties of one VEVENT that the import uses.
+   */
+  private static final class VEvent {
+    String summary;
+    String description;
+    String location;
+    String classification;
+    Property dtstart;
+    Property dtend;
+    String duration;
+    String rrule;
+    final List<Property> exdates = new ArrayList<>();
+    boolean recurrenceId;
+    boolean rdate;
+
+    void set(ContentLine line) {
+      switch (line.name) {
+        case "SUMMARY":
+          summary = IcsFormat.unescape(line.value);
+          break;
+        case "DESCRIPTION":
+          description = IcsFormat.unescape(line.value);
+          break;
+        case "LOCATION":
+          location = IcsFormat.unescape(line.value);
+          break;
+        case "CLASS":
+          classification = line.value;
+          break;
+        case "DTSTART":
+          dtstart = line.property;
+          break;
+        case "DTEND":
+          dtend = line.property;
+          break;
+        case "DURATION":
+          duration = line.value;
+          break;
+        case "RRULE":
+          rrule = line.value;
+          break;
+        case "EXDATE":
+          exdates.add(line.property);
+          break;
+        case "RECURRENCE-ID":
+          recurrenceId = true;
+          break;
+        case "RDATE":
+          rdate = true;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Decodes a channel as UTF‐8 and returns its content lines with folding undone.
+   */
+  private static final class LineReader {
+    private final ReadableByteChannel in;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final CharsetDecoder decoder;
+    private final StringBuilder physical;
+    private final StringBuilder logical;
+    private boolean holding;   // logical holds a line that later ones may continue
+    private boolean eof;
+    private boolean started;
+
+    LineReader(ReadableByteChannel in) {
+      this.in = in;
+      this.bytes = ByteBuffer.allocate(BUFFER_BYTES);
+      this.chars = CharBuffer.allocate(BUFFER_BYTES);
+      this.chars.flip();
+      this.decoder = StandardCharsets.UTF_8.newDecoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      this.physical = new StringBuilder(256);
+      this.logical = new StringBuilder(256);
+    }
+
+    /**
+     * @return the next unfolded line, or null at the end of the input.
+     */
+    String next() throws IOException {
+      while (readPhysical()) {
+        if (physical.length() == 0) {
+          continue;
+        }
+        char c = physical.charAt(0);
+        if ((c == ' ' || c == '\t') && holding) {
+          if (logical.length() + physical.length() > MAX_LINE) {
+            throw new IOException("iCalendar line longer than " + MAX_LINE + " characters");
+          }
+          logical.append(physical, 1, physical.length());
+          continue;
+        }
+        String done = holding ? logical.toString() : null;
+        logical.setLength(0);
+        logical.append(physical);
+        holding = true;
+        if (done != null) {
+          return done;
+        }
+      }
+      if (!holding) {
+        return null;
+      }
+      holding = false;
+      return logical.toString();
+    }
+
+    /**
+     * Read one physical line, without its line break, into {@link #physical}.
+     * @return false at the end of the input.
+     */
+    private boolean readPhysical() throws IOException {
+      physical.setLength(0);
+      while (true) {
+        while (chars.hasRemaining()) {
+          char c = chars.get();
+          if (c == '\n') {
+            trimReturn();
+            return true;
+          }
+          if (physical.length() == MAX_LINE) {
+            throw new IOException("iCalendar line longer than " + MAX_LINE + " characters");
+          }
+          physical.append(c);
+        }
+        if (eof) {
+          trimReturn();
+          return physical.length() > 0;
+        }
+        fill();
+      }
+    }
+
+    private void fill() throws IOException {
+      chars.clear();
+      if (in.read(bytes) < 0) {
+        eof = true;
+      }
+      bytes.flip();
+      decoder.decode(bytes, chars, eof);
+      if (eof) {
+        decoder.flush(chars);
+      }
+      bytes.compact();
+      chars.flip();
+      if (!started && chars.hasRemaining()) {
+        started = true;
+        if (chars.get(chars.position()) == '\uFEFF') {
+          chars.get();   // byte order mark
+        }
+      }
+    }
+
+    private void trimReturn() {
+      int last = physical.length() - 1;
+      if (last >= 0 && physical.charAt(last) == '\r') {
+        physical.setLength(last);
+      }
+    }
+  }
+}
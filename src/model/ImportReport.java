@@ -0,0 +1,102 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What {@link ICalendar#addAll} or {@link IcsImporter} did with a batch: how many events it
+ * stored, and which ones it turned away and why.
+ */
+public final class ImportReport {
+
+  /**
+   * Why an event in a batch was not stored.
+   */
+  public enum Reason {
+    /** The event was null or lacked a subject, start or end, or the calendar cannot hold its times. */
+    INVALID,
+    /** The calendar already holds an event with the same subject, start and end. */
+    ALREADY_EXISTS,
+    /** An earlier event in the same batch has the same subject, start and end. */
+    DUPLICATE_IN_BATCH,
+    /** The event repeats in a way, or has a property, the calendar cannot represent. */
+    UNSUPPORTED,
+    /** The calendar would not create the series, e.g. because an occurrence already exists. */
+    REFUSED
+  }
+
+  /**
+   * One event that was not stored, with its position in the batch.
+   */
+  public static final class Rejection {
+    private final int index;
+    private final IEvent event;
+    private final Reason reason;
+
+    Rejection(int index, IEvent event, Reason reason) {
+      this.index = index;
+      this.event = event;
+      this.reason = reason;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public IEvent getEvent() {
+      return event;   // may be null
+    }
+
+    public Reason getReason() {
+      return reason;
+    }
+
+    @Override
+    public String toString() {
+      return "#" + index + " " + reason;
+    }
+  }
+
+  private final int added;
+  private final List<Rejection> rejections;
+
+  private ImportReport(int added, List<Rejection> rejections) {
+    this.added = added;
+    this.rejections = Collections.unmodifiableList(rejections);
+  }
+
+  public int getAdded() {
+    return added;
+  }
+
+  /**
+   * @return the events that were not stored, in batch order.
+   */
+  public List<Rejection> getRejections() {
+    return rejections;
+  }
+
+  static Builder getBuilder() {
+    return new Builder();
+  }
+
+  static final class Builder {
+    private int added;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    Builder reject(int index, IEvent event, Reason reason) {
+      rejections.add(new Rejection(index, event, reason));
+      return this;
+    }
+
+    Builder added(int count) {
+      added += count;
+      return this;
+    }
+
+    ImportReport build() {
+      return new ImportReport(added, rejections);
+    }
+  }
+}
@@ -0,0 +1,567 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An augmented interval tree that Calendar uses both as its ordered event store and to answer
+ * overlap queries without scanning every event.  Entries are kept in an AVL tree ordered by
+ * start time, with ties broken by a sequence number the caller hands out in insertion order, so
+ * an in‐order walk visits entries exactly as a stable sort by start would.  Every node also
+ * remembers the latest end time in its subtree, which lets queries skip whole subtrees that
+ * finish before the window of interest.
+ *
+ * <p>Nodes hold start, end and latest end as packed epoch minutes (see {@link PackedTime}), so a
+ * node costs no {@link LocalDateTime}s and a query compares longs.  Only when two minutes tie
+ * does the tree ask the entry's {@link Span} for its exact time, and a {@code LocalDateTime} is
+ * built only for a caller that asks for one, as {@link #startAt} does.
+ *
+ * <p>The tree is persistent: nodes are never modified, and insert and remove return a new tree
+ * that shares every node off the changed path with the old one.  A tree can therefore be read
+ * from any thread while newer versions are being built.
+ *
+ * <p>Insert and remove are O(log n) and copy O(log n) nodes.  An overlap or point query that
+ * reports k entries is O(min(n, (k + 1) log n)): the latest‐end bound only prunes subtrees that
+ * finish too early, so each reported entry can cost a root‐to‐leaf path.  Nodes also count
+ * their subtree, so ranking a start time and finding the start of the k‐th entry are O(log n).
+ */
+final class IntervalTree<T> {
+
+  /**
+   * Receives an entry together with the sequence number it was inserted with.
+   */
+  interface Visitor<T> {
+    void visit(T item, long seq);
+  }
+
+  /**
+   * Like {@link Visitor}, but can end the walk early.
+   */
+  interface Scanner<T> {
+    /**
+     * @return false to stop the walk after this entry.
+     */
+    boolean visit(T item, long seq);
+  }
+
+  /**
+   * Reads where an entry lies: its start and end in packed epoch minutes, and the exact time of
+   * either one, which is null when it falls on a whole minute.
+   */
+  interface Span<T> {
+    long startMinute(T item);
+
+    long endMinute(T item);
+
+    LocalDateTime exactStart(T item);
+
+    LocalDateTime exactEnd(T item);
+  }
+
+  private static final class Node<T> {
+    final T item;
+    final long start;            // packed; the exact time, if any, comes from the Span
+    final long end;
+    final long seq;              // caller's insertion order, breaks ties between equal starts
+    final Node<T> left;
+    final Node<T> right;
+    final int height;
+    final int size;              // entries in this subtree
+    final long maxEnd;           // latest end minute anywhere in this subtree
+
+    Node(T item, long start, long end, long seq, Node<T> left, Node<T> right) {
+      this.item = item;
+      this.start = start;
+      this.end = end;
+      this.seq = seq;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+      this.size = 1 + size(left) + size(right);
+      long max = end;
+      if (left != null && left.maxEnd > max) {
+        max = left.maxEnd;
+      }
+      if (right != null && right.maxEnd > max) {
+        max = right.maxEnd;
+      }
+      this.maxEnd = max;
+    }
+
+    /**
+     * @return a copy of this node with new children.
+     */
+    Node<T> with(Node<T> left, Node<T> right) {
+      return new Node<>(item, start, end, seq, left, right);
+    }
+  }
+
+  /**
+   * Steps one entry at a time through what {@link #scanOverlapping} would visit, holding only
+   * the O(log n) nodes on the path to the next one.
+   */
+  final class Cursor {
+    private final long fromMinute;
+    private final LocalDateTime from;
+    private final long toMinute;
+    private final LocalDateTime to;
+    private final long minMinute;
+    private final LocalDateTime minStart;
+    private final Deque<Node<T>> path = new ArrayDeque<>();
+    private Node<T> current;
+
+    private Cursor(LocalDateTime from, LocalDateTime to, LocalDateTime minStart) {
+      this.fromMinute = PackedTime.pack(from);
+      this.from = from;
+      this.toMinute = PackedTime.pack(to);
+      this.to = to;
+      this.minMinute = PackedTime.pack(minStart);
+      this.minStart = minStart;
+      descend(root);
+    }
+
+    /**
+     * Move to the next entry.
+     * @return false if there is none; otherwise {@link #item()} and {@link #seq()} describe it.
+     */
+    boolean advance() {
+      while (!path.isEmpty()) {
+        Node<T> n = path.pop();
+        if (compareStart(n, toMinute, to) >= 0) {
+          path.clear(); // this node and everything after it starts too late
+          break;
+        }
+        descend(n.right);
+        if (compareEnd(n, fromMinute, from) > 0) {
+          current = n;
+          return true;
+        }
+      }
+      current = null;
+      return false;
+    }
+
+    T item() {
+      return current.item;
+    }
+
+    long seq() {
+      return current.seq;
+    }
+
+    /**
+     * Push the nodes of {@code n} that come first in order, skipping subtrees that end before
+     * the window opens and nodes, with their left subtrees, that start before minStart.
+     */
+    private void descend(Node<T> n) {
+      while (n != null && n.maxEnd >= fromMinute) {
+        if (compareStart(n, minMinute, minStart) >= 0) {
+          path.push(n);
+          n = n.left;
+        } else {
+          n = n.right;
+        }
+      }
+    }
+  }
+
+  private final Span<? super T> span;
+  private final Node<T> root;
+
+  private IntervalTree(Span<? super T> span, Node<T> root) {
+    this.span = span;
+    this.root = root;
+  }
+
+  static <T> IntervalTree<T> empty(Span<? super T> span) {
+    return new IntervalTree<>(span, null);
+  }
+
+  /**
+   * @return a balanced tree of {@code items}, which must be in tree order, the i‐th having been
+   *         inserted with sequence number {@code seqs[i]}.  O(n), with no comparisons.
+   */
+  static <T> IntervalTree<T> ofSorted(Span<? super T> span, List<T> items, long[] seqs) {
+    IntervalTree<T> tree = empty(span);
+    return new IntervalTree<>(span, tree.build(items, seqs, 0, items.size()));
+  }
+
+  /**
+   * @return a tree that also holds {@code item}.  Entries with the same start are ordered by
+   *         {@code seq}, which must be unique within the tree.
+   */
+  IntervalTree<T> insert(T item, long seq) {
+    return new IntervalTree<>(span, insert(root, node(item, seq)));
+  }
+
+  /**
+   * @return a tree that also holds {@code items}, which must be in start order; the i‐th gets
+   *         sequence number {@code firstSeq + i}, and these must exceed every sequence number
+   *         already in the tree.  A batch that is large next to the tree is merged with it in
+   *         one in‐order pass and rebuilt balanced, O(n + k); a small one is inserted entry by
+   *         entry, O(k log n).
+   */
+  IntervalTree<T> insertAll(List<T> items, long firstSeq) {
+    int n = size(root);
+    int k = items.size();
+    if ((long) k * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+      Node<T> tree = root;
+      for (int i = 0; i < k; i++) {
+        tree = insert(tree, node(items.get(i), firstSeq + i));
+      }
+      return new IntervalTree<>(span, tree);
+    }
+    List<Node<T>> stored = new ArrayList<>(n);
+    collectNodes(root, stored);
+    List<Node<T>> merged = new ArrayList<>(n + k);
+    int i = 0;
+    for (int j = 0; j < k; j++) {
+      Node<T> fresh = node(items.get(j), firstSeq + j);
+      // Stored entries have the lower sequence numbers, so they go first among equal starts
+      while (i < n && compare(stored.get(i), fresh) < 0) {
+        merged.add(stored.get(i++));
+      }
+      merged.add(fresh);
+    }
+    while (i < n) {
+      merged.add(stored.get(i++));
+    }
+    return new IntervalTree<>(span, build(merged, 0, merged.size()));
+  }
+
+  /**
+   * @return a tree without the entry inserted with sequence number {@code seq}; {@code item}
+   *         need only start when that entry does.
+   */
+  IntervalTree<T> remove(T item, long seq) {
+    return new IntervalTree<>(span, delete(root, node(item, seq)));
+  }
+
+  /**
+   * Append, in start order, every item whose interval overlaps the half‐open window
+   * [from, to), i.e. {@code start < to && end > from}.
+   */
+  void collectOverlapping(LocalDateTime from, LocalDateTime to, List<T> out) {
+    visitOverlapping(root, PackedTime.pack(from), from, PackedTime.pack(to), to,
+            (item, seq) -> out.add(item));
+  }
+
+  /**
+   * Like {@link #collectOverlapping}, but also hand each entry's sequence number to the visitor.
+   */
+  void visitOverlapping(LocalDateTime from, LocalDateTime to, Visitor<? super T> visitor) {
+    visitOverlapping(root, PackedTime.pack(from), from, PackedTime.pack(to), to, visitor);
+  }
+
+  /**
+   * Like {@link #visitOverlapping}, but skip entries starting before {@code minStart} without
+   * descending into them, and stop as soon as {@code scanner} asks to.
+   * @return false if the scanner stopped the walk.
+   */
+  boolean scanOverlapping(LocalDateTime from, LocalDateTime to, LocalDateTime minStart,
+                          Scanner<? super T> scanner) {
+    return scanOverlapping(root, PackedTime.pack(from), from, PackedTime.pack(to), to,
+            PackedTime.pack(minStart), minStart, scanner);
+  }
+
+  /**
+   * @return a cursor over the entries {@link #scanOverlapping} would visit, in the same order.
+   *         It starts before the first of them.
+   */
+  Cursor cursor(LocalDateTime from, LocalDateTime to, LocalDateTime minStart) {
+    return new Cursor(from, to, minStart);
+  }
+
+  /**
+   * Visit, in start order, every entry whose start lies in [from, to).
+   */
+  void visitStartingIn(LocalDateTime from, LocalDateTime to, Visitor<? super T> visitor) {
+    visitStartingIn(root, PackedTime.pack(from), from, PackedTime.pack(to), to, visitor);
+  }
+
+  /**
+   * Visit every entry in start order.
+   */
+  void forEach(Visitor<? super T> visitor) {
+    forEach(root, visitor);
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * @return how many entries start before {@code time}.
+   */
+  int countStartingBefore(LocalDateTime time) {
+    long minute = PackedTime.pack(time);
+    int count = 0;
+    Node<T> n = root;
+    while (n != null) {
+      if (compareStart(n, minute, time) < 0) {
+        count += size(n.left) + 1;
+        n = n.right;
+      } else {
+        n = n.left;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the start of the entry with {@code rank} entries before it in start order.
+   */
+  LocalDateTime startAt(int rank) {
+    if (rank < 0 || rank >= size(root)) {
+      throw new IndexOutOfBoundsException("No entry at rank " + rank);
+    }
+    Node<T> n = root;
+    while (true) {
+      int left = size(n.left);
+      if (rank < left) {
+        n = n.left;
+      } else if (rank > left) {
+        rank -= left + 1;
+        n = n.right;
+      } else {
+        return PackedTime.unpack(n.start, span.exactStart(n.item));
+      }
+    }
+  }
+
+  /**
+   * @return true if some entry satisfies {@code start <= point < end}.
+   */
+  boolean anyContaining(LocalDateTime point) {
+    return anyContaining(root, PackedTime.pack(point), point);
+  }
+
+  // A subtree whose latest end minute is before the window's opening minute cannot reach it.
+  // One ending in that very minute might, so it is searched and its nodes checked exactly.
+
+  private void visitOverlapping(Node<T> n, long fromMinute, LocalDateTime from, long toMinute,
+                                LocalDateTime to, Visitor<? super T> visitor) {
+    if (n == null || n.maxEnd < fromMinute) {
+      return; // nothing in this subtree ends after the window opens
+    }
+    visitOverlapping(n.left, fromMinute, from, toMinute, to, visitor);
+    if (compareStart(n, toMinute, to) >= 0) {
+      return; // this node and everything to its right starts too late
+    }
+    if (compareEnd(n, fromMinute, from) > 0) {
+      visitor.visit(n.item, n.seq);
+    }
+    visitOverlapping(n.right, fromMinute, from, toMinute, to, visitor);
+  }
+
+  private boolean scanOverlapping(Node<T> n, long fromMinute, LocalDateTime from, long toMinute,
+                                  LocalDateTime to, long minMinute, LocalDateTime minStart,
+                                  Scanner<? super T> scanner) {
+    if (n == null || n.maxEnd < fromMinute) {
+      return true;
+    }
+    boolean afterMin = compareStart(n, minMinute, minStart) >= 0;
+    if (afterMin && !scanOverlapping(n.left, fromMinute, from, toMinute, to, minMinute,
+            minStart, scanner)) {
+      return false;
+    }
+    if (compareStart(n, toMinute, to) >= 0) {
+      return true; // this node and everything to its right starts too late
+    }
+    if (afterMin && compareEnd(n, fromMinute, from) > 0 && !scanner.visit(n.item, n.seq)) {
+      return false;
+    }
+    return scanOverlapping(n.right, fromMinute, from, toMinute, to, minMinute, minStart,
+            scanner);
+  }
+
+  private void visitStartingIn(Node<T> n, long fromMinute, LocalDateTime from, long toMinute,
+                               LocalDateTime to, Visitor<? super T> visitor) {
+    if (n == null) {
+      return;
+    }
+    boolean afterFrom = compareStart(n, fromMinute, from) >= 0;
+    if (afterFrom) {
+      visitStartingIn(n.left, fromMinute, from, toMinute, to, visitor);
+    }
+    if (compareStart(n, toMinute, to) >= 0) {
+      return;
+    }
+    if (afterFrom) {
+      visitor.visit(n.item, n.seq);
+    }
+    visitStartingIn(n.right, fromMinute, from, toMinute, to, visitor);
+  }
+
+  private boolean anyContaining(Node<T> n, long minute, LocalDateTime point) {
+    while (n != null && n.maxEnd >= minute) {
+      if (anyContaining(n.left, minute, point)) {
+        return true;
+      }
+      if (compareStart(n, minute, point) > 0) {
+        return false;
+      }
+      if (compareEnd(n, minute, point) > 0) {
+        return true;
+      }
+      n = n.right;
+    }
+    return false;
+  }
+
+  private Node<T> node(T item, long seq) {
+    return new Node<>(item, span.startMinute(item), span.endMinute(item), seq, null, null);
+  }
+
+  /**
+   * Order the start of {@code n} against {@code time}, which packs to {@code minute}.
+   */
+  private int compareStart(Node<T> n, long minute, LocalDateTime time) {
+    if (n.start != minute) {
+      return (n.start < minute) ? -1 : 1;
+    }
+    return PackedTime.compare(n.start, span.exactStart(n.item), minute, PackedTime.exact(time));
+  }
+
+  private int compareEnd(Node<T> n, long minute, LocalDateTime time) {
+    if (n.end != minute) {
+      return (n.end < minute) ? -1 : 1;
+    }
+    return PackedTime.compare(n.end, span.exactEnd(n.item), minute, PackedTime.exact(time));
+  }
+
+  /**
+   * Order two nodes by start, then by sequence number.
+   */
+  private int compare(Node<T> a, Node<T> b) {
+    int cmp = Long.compare(a.start, b.start);
+    if (cmp == 0) {
+      cmp = PackedTime.compare(a.start, span.exactStart(a.item), b.start,
+              span.exactStart(b.item));
+    }
+    return (cmp != 0) ? cmp : Long.compare(a.seq, b.seq);
+  }
+
+  private Node<T> insert(Node<T> n, Node<T> fresh) {
+    if (n == null) {
+      return fresh;
+    }
+    if (compare(fresh, n) < 0) {
+      return balance(n, insert(n.left, fresh), n.right);
+    }
+    return balance(n, n.left, insert(n.right, fresh));
+  }
+
+  /**
+   * @return {@code n} without the node that orders like {@code key}.
+   */
+  private Node<T> delete(Node<T> n, Node<T> key) {
+    if (n == null) {
+      return null;
+    }
+    int cmp = compare(key, n);
+    if (cmp < 0) {
+      return balance(n, delete(n.left, key), n.right);
+    }
+    if (cmp > 0) {
+      return balance(n, n.left, delete(n.right, key));
+    }
+    if (n.left == null) {
+      return n.right;
+    }
+    if (n.right == null) {
+      return n.left;
+    }
+    Node<T> successor = n.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor, n.left, deleteMin(n.right));
+  }
+
+  private static <T> Node<T> deleteMin(Node<T> n) {
+    if (n.left == null) {
+      return n.right;
+    }
+    return balance(n, deleteMin(n.left), n.right);
+  }
+
+  private static <T> void collectNodes(Node<T> n, List<Node<T>> out) {
+    if (n != null) {
+      collectNodes(n.left, out);
+      out.add(n);
+      collectNodes(n.right, out);
+    }
+  }
+
+  /**
+   * @return a balanced tree of {@code sorted[lo, hi)}, which are in tree order.
+   */
+  private static <T> Node<T> build(List<Node<T>> sorted, int lo, int hi) {
+    if (lo >= hi) {
+      return null;
+    }
+    int mid = (lo + hi) >>> 1;
+    return sorted.get(mid).with(build(sorted, lo, mid), build(sorted, mid + 1, hi));
+  }
+
+  private Node<T> build(List<T> items, long[] seqs, int lo, int hi) {
+    if (lo >= hi) {
+      return null;
+    }
+    int mid = (lo + hi) >>> 1;
+    Node<T> left = build(items, seqs, lo, mid);
+    Node<T> right = build(items, seqs, mid + 1, hi);
+    T item = items.get(mid);
+    return new Node<>(item, span.startMinute(item), span.endMinute(item), seqs[mid], left, right);
+  }
+
+  private static <T> void forEach(Node<T> n, Visitor<? super T> visitor) {
+    if (n != null) {
+      forEach(n.left, visitor);
+      visitor.visit(n.item, n.seq);
+      forEach(n.right, visitor);
+    }
+  }
+
+  private static <T> int height(Node<T> n) {
+    return (n == null) ? 0 : n.height;
+  }
+
+  private static <T> int size(Node<T> n) {
+    return (n == null) ? 0 : n.size;
+  }
+
+  /**
+   * @return a copy of {@code n} with the given children, rotated back into AVL balance.
+   */
+  private static <T> Node<T> balance(Node<T> n, Node<T> left, Node<T> right) {
+    int balance = height(left) - height(right);
+    if (balance > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return left.with(left.left, n.with(left.right, right));
+    }
+    if (balance < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return right.with(n.with(left, right.left), right.right);
+    }
+    return n.with(left, right);
+  }
+
+  private static <T> Node<T> rotateRight(Node<T> n) {
+    Node<T> l = n.left;
+    return l.with(l.left, n.with(l.right, n.right));
+  }
+
+  private static <T> Node<T> rotateLeft(Node<T> n) {
+    Node<T> r = n.right;
+    return r.with(n.with(n.left, r.left), r.right);
+  }
+}
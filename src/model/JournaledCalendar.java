@@ -0,0 +1,608 @@
+package model;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * A calendar that survives restarts.  It wraps another {@link ICalendar} and appends every
+ * mutation made through it to a binary log; opening the log again replays those mutations, in
+ * order, into a fresh calendar.  Queries go straight to the wrapped calendar.
+ *
+ * <p>The log records calls, not their effects.  A create that fails still uses up IDs, so
+ * every mutating call is logged, and replay repeats them all to arrive at the same events under
+ * the same IDs.  A call is logged before it is applied, and under {@link FsyncPolicy#ALWAYS}
+ * forced to disk first, so a crash cannot lose a change the calendar has already made.  What
+ * the call returned, or that it threw, follows in a record of its own that is never forced by
+ * itself.  If a replayed call comes out differently (say the wrapped calendar rejects overlaps
+ * it used to allow), opening fails with {@link IllegalStateException}.  Changes of
+ * {@link #setOverlapPolicy overlap policy} are logged too, since they decide what later calls
+ * return.
+ *
+ * <p>A journal opened together with a calendar image ({@link #open(Path, Path, FsyncPolicy)})
+ * starts from the image and replays only what the image does not cover.  {@link #checkpoint}
+ * saves a new image and empties the log, so opening stays fast however long the calendar has
+ * been in use.
+ *
+ * <p>Like the calendar it wraps, it takes mutations from one thread at a time.  If the log
+ * cannot be written, the mutation is not applied, and it and every later one throws
+ * {@link java.io.UncheckedIOException}.
+ */
+public class JournaledCalendar implements ICalendar, Closeable {
+
+  // One tag per mutating call, at the head of its record
+  private static final byte ADD_EVENT = 1;
+  private static final byte ADD_ALL = 2;
+  private static final byte MAKE_EVENT = 3;
+  private static final byte MAKE_SERIES_BY_COUNT = 4;
+  private static final byte MAKE_SERIES_UNTIL = 5;
+  private static final byte MAKE_ALL_DAY = 6;
+  private static final byte EDIT_SERIES = 7;
+  private static final byte REMOVE_EVENT = 8;
+  private static final byte EDIT_BY_ID = 9;
+  private static final byte REMOVE_BY_ID = 10;
+  private static final byte SET_OVERLAP_POLICY = 11;
+  private static final byte OUTCOME = 12;      // what the call logged just before returned
+
+  private static final int THREW = -1;         // the outcome of a call that threw
+
+  private static final Location[] LOCATIONS = Location.values();
+  private static final Status[] STATUSES = Status.values();
+  private static final OverlapPolicy[] POLICIES = OverlapPolicy.values();
+
+  private final ICalendar delegate;
+  private final EventLog log;
+  private final Path image;   // null unless opened with one
+
+  private JournaledCalendar(ICalendar delegate, EventLog log, Path image) {
+    this.delegate = delegate;
+    this.log = log;
+    this.image = image;
+  }
+
+  /**
+   * Open the journal at {@code file} with {@link FsyncPolicy#GROUP}.
+   * @see #open(Path, ICalendar, FsyncPolicy)
+   */
+  public static JournaledCalendar open(Path file, ICalendar calendar) throws IOException {
+    return open(file, calendar, FsyncPolicy.GROUP);
+  }
+
+  /**
+   * Open the journal at {@code file}, creating it if it does not exist, and replay it into
+   * {@code calendar}, which should be empty.
+   * @throws IOException if the file cannot be read or is not a calendar journal.
+   * @throws IllegalStateException if a logged mutation no longer has the same outcome.
+   */
+  public static JournaledCalendar open(Path file, ICalendar calendar, FsyncPolicy policy)
+          throws IOException {
+    if (calendar == null) {
+      throw new IllegalArgumentException("Calendar cannot be null");
+    }
+    return open(file, calendar, policy, 0, null);
+  }
+
+  /**
+   * Open the journal at {@code file} on top of the {@link Calendar} saved in {@code image},
+   * replaying only the entries logged after the image was taken.  Either file may be missing;
+   * with no image the calendar starts empty and the whole journal is replayed.
+   * @throws IOException if either file cannot be read or is not what it should be, or if the
+   *         journal no longer holds entries the image does not cover.
+   * @throws IllegalStateException if a logged mutation no longer has the same outcome.
+   */
+  public static JournaledCalendar open(Path file, Path image, FsyncPolicy policy)
+          throws IOException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image path cannot be null");
+    }
+    if (!Files.exists(image)) {
+      return open(file, new Calendar(), policy, 0, image);
+    }
+    CalendarImage.Reader saved = new CalendarImage.Reader(image);
+    return open(file, Calendar.fromImage(saved), policy, saved.journalMark(), image);
+  }
+
+  private static JournaledCalendar open(Path file, ICalendar calendar, FsyncPolicy policy,
+                                        long from, Path image) throws IOException {
+    EventLog log = EventLog.open(file, policy, from, new Replay(calendar, from));
+    return new JournaledCalendar(calendar, log, image);
+  }
+
+  /**
+   * Save the calendar as it stands to the image it was opened with, then empty the journal.
+   * If this fails partway, the image and journal left behind still open to the same calendar.
+   * @throws IllegalStateException if the journal was not opened with an image.
+   */
+  public void checkpoint() throws IOException {
+    if (image == null) {
+      throw new IllegalStateException("Journal was not opened with an image");
+    }
+    log.sync();
+    ((Calendar) delegate).writeImage(image, log.next());
+    log.clear();
+  }
+
+  /**
+   * Write out and force every mutation logged so far, whatever the policy.
+   */
+  public void sync() throws IOException {
+    log.sync();
+  }
+
+  @Override
+  public void close() throws IOException {
+    log.close();
+  }
+
+  /**
+   * Log a change of the wrapped {@link Calendar}'s overlap policy, then make it.
+   * @throws IllegalStateException if the wrapped calendar is not a {@link Calendar}.
+   */
+  public void setOverlapPolicy(OverlapPolicy policy) {
+    if (!(delegate instanceof Calendar)) {
+      throw new IllegalStateException("The wrapped calendar has no overlap policy");
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("Overlap policy cannot be null");
+    }
+    log.append(out -> {
+      out.writeByte(SET_OVERLAP_POLICY);
+      out.writeByte(policy.ordinal());
+    });
+    ((Calendar) delegate).setOverlapPolicy(policy);
+  }
+
+  /**
+   * @return the wrapped {@link Calendar}'s overlap policy.
+   * @throws IllegalStateException if the wrapped calendar is not a {@link Calendar}.
+   */
+  public OverlapPolicy getOverlapPolicy() {
+    if (!(delegate instanceof Calendar)) {
+      throw new IllegalStateException("The wrapped calendar has no overlap policy");
+    }
+    return ((Calendar) delegate).getOverlapPolicy();
+  }
+
+  @Override
+  public boolean addEvent(IEvent event) {
+    return logged(out -> {
+      out.writeByte(ADD_EVENT);
+      writeEvent(out, event);
+    }, () -> delegate.addEvent(event));
+  }
+
+  @Override
+  public ImportReport addAll(Collection<? extends IEvent> events) {
+    log.append(out -> {
+      out.writeByte(ADD_ALL);
+      out.writeInt(events.size());
+      for (IEvent event : events) {
+        writeEvent(out, event);
+      }
+    });
+    ImportReport report;
+    try {
+      report = delegate.addAll(events);
+    } catch (RuntimeException e) {
+      logOutcome(THREW);
+      throw e;
+    }
+    logOutcome(report.getAdded());
+    return report;
+  }
+
+  @Override
+  public boolean makeEvent(String subject, String description, LocalDateTime start,
+                           LocalDateTime end, Location location, Status status) {
+    return logged(out -> {
+      out.writeByte(MAKE_EVENT);
+      writeString(out, subject);
+      writeString(out, description);
+      writeTime(out, start);
+      writeTime(out, end);
+      out.writeByte(location == null ? -1 : location.ordinal());
+      out.writeByte(status == null ? -1 : status.ordinal());
+    }, () -> delegate.makeEvent(subject, description, start, end, location, status));
+  }
+
+  @Override
+  public boolean makeEvent(String subject, String description, LocalDateTime start,
+                           LocalDateTime end, List<DayOfWeek> days, int count) {
+    return logged(out -> {
+      out.writeByte(MAKE_SERIES_BY_COUNT);
+      writeString(out, subject);
+      writeString(out, description);
+      writeTime(out, start);
+      writeTime(out, end);
+      writeDays(out, days);
+      out.writeInt(count);
+    }, () -> delegate.makeEvent(subject, description, start, end, days, count));
+  }
+
+  @Override
+  public boolean makeEvent(String subject, String description, LocalDateTime start,
+                           LocalDateTime end, List<DayOfWeek> days, LocalDateTime endDate) {
+    return logged(out -> {
+      out.writeByte(MAKE_SERIES_UNTIL);
+      writeString(out, subject);
+      writeString(out, description);
+      writeTime(out, start);
+      writeTime(out, end);
+      writeDays(out, days);
+      writeTime(out, endDate);
+    }, () -> delegate.makeEvent(subject, description, start, end, days, endDate));
+  }
+
+  @Override
+  public boolean makeEvent(String subject, LocalDateTime start) {
+    return logged(out -> {
+      out.writeByte(MAKE_ALL_DAY);
+      writeString(out, subject);
+      writeTime(out, start);
+    }, () -> delegate.makeEvent(subject, start));
+  }
+
+  @Override
+  public boolean editEvent() {
+    return delegate.editEvent();
+  }
+
+  @Override
+  public boolean editSeriesEvent(String property, String subject, LocalDateTime start,
+                                 LocalDateTime end, String newValue, char type) {
+    return logged(out -> {
+      out.writeByte(EDIT_SERIES);
+      writeString(out, property);
+      writeString(out, subject);
+      writeTime(out, start);
+      writeTime(out, end);
+      writeString(out, newValue);
+      out.writeChar(type);
+    }, () -> delegate.editSeriesEvent(property, subject, start, end, newValue, type));
+  }
+
+  @Override
+  public boolean removeEvent(IEvent event) {
+    return logged(out -> {
+      out.writeByte(REMOVE_EVENT);
+      writeEvent(out, event);
+    }, () -> delegate.removeEvent(event));
+  }
+
+  @Override
+  public boolean editEventById(long id, String property, String newValue) {
+    return logged(out -> {
+      out.writeByte(EDIT_BY_ID);
+      out.writeLong(id);
+      writeString(out, property);
+      writeString(out, newValue);
+    }, () -> delegate.editEventById(id, property, newValue));
+  }
+
+  @Override
+  public boolean removeEventById(long id) {
+    return logged(out -> {
+      out.writeByte(REMOVE_BY_ID);
+      out.writeLong(id);
+    }, () -> delegate.removeEventById(id));
+  }
+
+  /**
+   * Log a call, make it, then log what it returned.
+   */
+  private boolean logged(EventLog.RecordWriter call, BooleanSupplier apply) {
+    log.append(call);
+    boolean result;
+    try {
+      result = apply.getAsBoolean();
+    } catch (RuntimeException e) {
+      logOutcome(THREW);
+      throw e;
+    }
+    logOutcome(result ? 1 : 0);
+    return result;
+  }
+
+  private void logOutcome(int outcome) {
+    log.appendUnforced(out -> {
+      out.writeByte(OUTCOME);
+      out.writeInt(outcome);
+    });
+  }
+
+  @Override
+  public List<IEvent> getEventsOnDate(LocalDate date) {
+    return delegate.getEventsOnDate(date);
+  }
+
+  @Override
+  public List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end) {
+    return delegate.getEventsInRange(start, end);
+  }
+
+  @Override
+  public void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action) {
+    delegate.forEachEventOnDate(date, action);
+  }
+
+  @Override
+  public void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                                  Consumer<? super IEvent> action) {
+    delegate.forEachEventInRange(start, end, action);
+  }
+
+  @Override
+  public EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit,
+                                    String after) {
+    return delegate.getEventsInRange(start, end, limit, after);
+  }
+
+  @Override
+  public Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end) {
+    return delegate.spliterator(start, end);
+  }
+
+  @Override
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    return delegate.isBusyAt(dateTime);
+  }
+
+  @Override
+  public boolean isFree(LocalDateTime start, LocalDateTime end) {
+    return delegate.isFree(start, end);
+  }
+
+  @Override
+  public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                                      LocalTime dayStart, LocalTime dayEnd, int limit) {
+    return delegate.findFreeSlots(from, to, length, dayStart, dayEnd, limit);
+  }
+
+  @Override
+  public IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end) {
+    return delegate.findEvent(subject, start, end);
+  }
+
+  @Override
+  public IEvent getEventById(long id) {
+    return delegate.getEventById(id);
+  }
+
+  /**
+   * Repeats the logged records on a calendar, checking each call's outcome against the record
+   * that follows it.  The outcome of the last call may be missing, if a crash came first.
+   */
+  private static final class Replay implements EventLog.RecordReader {
+    private final ICalendar calendar;
+    private long entry;        // number of the record being read
+    private long call = -1;    // number of the last call replayed, until its outcome is checked
+    private int outcome;       // what that call returned
+
+    Replay(ICalendar calendar, long from) {
+      this.calendar = calendar;
+      this.entry = from;
+    }
+
+    @Override
+    public void read(DataInput in) throws IOException {
+      byte tag = in.readByte();
+      if (tag == OUTCOME) {
+        if (call >= 0 && in.readInt() != outcome) {
+          throw new IllegalStateException(
+                  "Journal entry " + call + " no longer has its logged outcome");
+        }
+        call = -1;
+      } else if (tag == SET_OVERLAP_POLICY) {
+        if (!(calendar instanceof Calendar)) {
+          throw new IllegalStateException("Journal entry " + entry
+                  + " sets an overlap policy, which the calendar does not have");
+        }
+        ((Calendar) calendar).setOverlapPolicy(POLICIES[in.readByte()]);
+      } else {
+        try {
+          outcome = replay(calendar, tag, in);
+        } catch (RuntimeException e) {
+          outcome = THREW;
+        }
+        call = entry;
+      }
+      entry++;
+    }
+  }
+
+  /**
+   * Repeat one logged call on {@code calendar}.
+   * @return what it returned, as logged: 1 or 0 for true or false, and the number of events
+   *         added for addAll.
+   */
+  private static int replay(ICalendar calendar, byte tag, DataInput in) throws IOException {
+    switch (tag) {
+      case ADD_EVENT:
+        return outcome(calendar.addEvent(readEvent(in)));
+      case ADD_ALL: {
+        int size = in.readInt();
+        List<IEvent> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          events.add(readEvent(in));
+        }
+        return calendar.addAll(events).getAdded();
+      }
+      case MAKE_EVENT: {
+        String subject = readString(in);
+        String description = readString(in);
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        byte location = in.readByte();
+        byte status = in.readByte();
+        return outcome(calendar.makeEvent(subject, description, start, end,
+                location < 0 ? null : LOCATIONS[location],
+                status < 0 ? null : STATUSES[status]));
+      }
+      case MAKE_SERIES_BY_COUNT: {
+        String subject = readString(in);
+        String description = readString(in);
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        List<DayOfWeek> days = readDays(in);
+        int count = in.readInt();
+        return outcome(calendar.makeEvent(subject, description, start, end, days, count));
+      }
+      case MAKE_SERIES_UNTIL: {
+        String subject = readString(in);
+        String description = readString(in);
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        List<DayOfWeek> days = readDays(in);
+        LocalDateTime endDate = readTime(in);
+        return outcome(calendar.makeEvent(subject, description, start, end, days, endDate));
+      }
+      case MAKE_ALL_DAY: {
+        String subject = readString(in);
+        return outcome(calendar.makeEvent(subject, readTime(in)));
+      }
+      case EDIT_SERIES: {
+        String property = readString(in);
+        String subject = readString(in);
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        String newValue = readString(in);
+        char type = in.readChar();
+        return outcome(calendar.editSeriesEvent(property, subject, start, end, newValue, type));
+      }
+      case REMOVE_EVENT:
+        return outcome(calendar.removeEvent(readEvent(in)));
+      case EDIT_BY_ID: {
+        long id = in.readLong();
+        String property = readString(in);
+        String newValue = readString(in);
+        return outcome(calendar.editEventById(id, property, newValue));
+      }
+      case REMOVE_BY_ID:
+        return outcome(calendar.removeEventById(in.readLong()));
+      default:
+        throw new IOException("Unknown journal entry " + tag);
+    }
+  }
+
+  private static int outcome(boolean result) {
+    return result ? 1 : 0;
+  }
+
+  /**
+   * Strings are written as their UTF‐8 length and bytes, with -1 for null.
+   */
+  private static void writeString(DataOutput out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Times are written as UTC epoch seconds and nanoseconds, the zone being irrelevant to a
+   * local date‐time.
+   */
+  private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+    out.writeBoolean(time != null);
+    if (time != null) {
+      out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(time.getNano());
+    }
+  }
+
+  private static LocalDateTime readTime(DataInput in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    long seconds = in.readLong();
+    return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+  }
+
+  private static void writeDays(DataOutput out, List<DayOfWeek> days) throws IOException {
+    out.writeInt(days == null ? -1 : days.size());
+    if (days != null) {
+      for (DayOfWeek day : days) {
+        out.writeByte(day.getValue());
+      }
+    }
+  }
+
+  private static List<DayOfWeek> readDays(DataInput in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    List<DayOfWeek> days = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      days.add(DayOfWeek.of(in.readByte()));
+    }
+    return days;
+  }
+
+  private static void writeEvent(DataOutput out, IEvent event) throws IOException {
+    out.writeBoolean(event != null);
+    if (event == null) {
+      return;
+    }
+    out.writeLong(event.getId());
+    out.writeBoolean(event.getSeriesId() != null);
+    if (event.getSeriesId() != null) {
+      out.writeLong(event.getSeriesId());
+    }
+    writeString(out, event.getSubject());
+    writeString(out, event.getDescription());
+    writeTime(out, event.getStart());
+    writeTime(out, event.getEnd());
+    out.writeByte(event.getLocation() == null ? -1 : event.getLocation().ordinal());
+    out.writeByte(event.getStatus() == null ? -1 : event.getStatus().ordinal());
+  }
+
+  private static IEvent readEvent(DataInput in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    long id = in.readLong();
+    AbstractEvent.Builder<?> b = in.readBoolean()
+            ? SeriesEvent.getBuilder().seriesId(in.readLong())
+            : SingleEvent.getBuilder();
+    b.id(id)
+            .subject(readString(in))
+            .description(readString(in))
+            .start(readTime(in))
+            .end(readTime(in));
+    byte location = in.readByte();
+    byte status = in.readByte();
+    return b.location(location < 0 ? null : LOCATIONS[location])
+            .status(status < 0 ? null : STATUSES[status])
+            .build();
+  }
+}
@@ -0,0 +1,300 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent map from long keys to values, kept as an AVL tree ordered by key.  Like
+ * {@link IntervalTree}, nodes are never modified: {@code with} and {@code without} return a new
+ * map that shares every node off the changed path with the old one, so a map handed to readers
+ * stays valid while the writer moves on.  Lookups and updates are O(log n).
+ */
+final class LongMap<V> {
+
+  /**
+   * Receives an entry of the map.
+   */
+  interface Visitor<V> {
+    void visit(long key, V value);
+  }
+
+  private static final class Node<V> {
+    final long key;
+    final V value;
+    final Node<V> left;
+    final Node<V> right;
+    final int height;
+    final int size;
+
+    Node(long key, V value, Node<V> left, Node<V> right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+      this.size = 1 + size(left) + size(right);
+    }
+
+    Node<V> with(Node<V> left, Node<V> right) {
+      return new Node<>(key, value, left, right);
+    }
+  }
+
+  private static final LongMap<?> EMPTY = new LongMap<>(null);
+
+  private final Node<V> root;
+
+  private LongMap(Node<V> root) {
+    this.root = root;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> LongMap<V> empty() {
+    return (LongMap<V>) EMPTY;
+  }
+
+  /**
+   * @return the value under {@code key}, or null if there is none.
+   */
+  V get(long key) {
+    Node<V> n = root;
+    while (n != null) {
+      if (key < n.key) {
+        n = n.left;
+      } else if (key > n.key) {
+        n = n.right;
+      } else {
+        return n.value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the value under the greatest key at or below {@code key}, or null if there is none.
+   */
+  V floor(long key) {
+    V found = null;
+    Node<V> n = root;
+    while (n != null) {
+      if (key < n.key) {
+        n = n.left;
+      } else {
+        found = n.value;
+        n = n.right;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @return the smallest key.
+   * @throws NoSuchElementException if the map is empty.
+   */
+  long firstKey() {
+    Node<V> n = root;
+    if (n == null) {
+      throw new NoSuchElementException("Empty map");
+    }
+    while (n.left != null) {
+      n = n.left;
+    }
+    return n.key;
+  }
+
+  /**
+   * @return the largest key.
+   * @throws NoSuchElementException if the map is empty.
+   */
+  long lastKey() {
+    Node<V> n = root;
+    if (n == null) {
+      throw new NoSuchElementException("Empty map");
+    }
+    while (n.right != null) {
+      n = n.right;
+    }
+    return n.key;
+  }
+
+  /**
+   * @return a map that holds {@code value} under {@code key}, replacing any value there.
+   */
+  LongMap<V> with(long key, V value) {
+    return new LongMap<>(insert(root, key, value));
+  }
+
+  /**
+   * @return a map that also holds {@code values}, the i‐th under {@code keys[i]}.  The keys
+   *         must be ascending and above every key already present.  A batch that is large next
+   *         to the map is appended in one in‐order pass and rebuilt balanced, O(n + k); a small
+   *         one is inserted entry by entry, O(k log n).
+   */
+  LongMap<V> withAll(long[] keys, List<? extends V> values) {
+    int n = size(root);
+    int k = values.size();
+    if ((long) k * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+      Node<V> tree = root;
+      for (int i = 0; i < k; i++) {
+        tree = insert(tree, keys[i], values.get(i));
+      }
+      return new LongMap<>(tree);
+    }
+    List<Node<V>> merged = new ArrayList<>(n + k);
+    collectNodes(root, merged);
+    for (int i = 0; i < k; i++) {
+      merged.add(new Node<>(keys[i], values.get(i), null, null));
+    }
+    return new LongMap<>(build(merged, 0, merged.size()));
+  }
+
+  /**
+   * @return a map without {@code key}.
+   */
+  LongMap<V> without(long key) {
+    return new LongMap<>(delete(root, key));
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * Visit every entry in key order.
+   */
+  void forEach(Visitor<? super V> visitor) {
+    forEach(root, visitor);
+  }
+
+  /**
+   * Visit, in key order, every entry whose key lies in [lo, hi]; O(log n + k) for k of them.
+   */
+  void forEachBetween(long lo, long hi, Visitor<? super V> visitor) {
+    forEachBetween(root, lo, hi, visitor);
+  }
+
+  private static <V> Node<V> insert(Node<V> n, long key, V value) {
+    if (n == null) {
+      return new Node<>(key, value, null, null);
+    }
+    if (key < n.key) {
+      return balance(n, insert(n.left, key, value), n.right);
+    }
+    if (key > n.key) {
+      return balance(n, n.left, insert(n.right, key, value));
+    }
+    return new Node<>(key, value, n.left, n.right);
+  }
+
+  private static <V> Node<V> delete(Node<V> n, long key) {
+    if (n == null) {
+      return null;
+    }
+    if (key < n.key) {
+      return balance(n, delete(n.left, key), n.right);
+    }
+    if (key > n.key) {
+      return balance(n, n.left, delete(n.right, key));
+    }
+    if (n.left == null) {
+      return n.right;
+    }
+    if (n.right == null) {
+      return n.left;
+    }
+    Node<V> successor = n.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor, n.left, deleteMin(n.right));
+  }
+
+  private static <V> Node<V> deleteMin(Node<V> n) {
+    if (n.left == null) {
+      return n.right;
+    }
+    return balance(n, deleteMin(n.left), n.right);
+  }
+
+  private static <V> void collectNodes(Node<V> n, List<Node<V>> out) {
+    if (n != null) {
+      collectNodes(n.left, out);
+      out.add(n);
+      collectNodes(n.right, out);
+    }
+  }
+
+  /**
+   * @return a balanced tree of {@code sorted[lo, hi)}, which are in key order.
+   */
+  private static <V> Node<V> build(List<Node<V>> sorted, int lo, int hi) {
+    if (lo >= hi) {
+      return null;
+    }
+    int mid = (lo + hi) >>> 1;
+    return sorted.get(mid).with(build(sorted, lo, mid), build(sorted, mid + 1, hi));
+  }
+
+  private static <V> void forEach(Node<V> n, Visitor<? super V> visitor) {
+    if (n != null) {
+      forEach(n.left, visitor);
+      visitor.visit(n.key, n.value);
+      forEach(n.right, visitor);
+    }
+  }
+
+  private static <V> void forEachBetween(Node<V> n, long lo, long hi,
+                                         Visitor<? super V> visitor) {
+    if (n == null) {
+      return;
+    }
+    if (n.key > lo) {
+      forEachBetween(n.left, lo, hi, visitor);
+    }
+    if (n.key >= lo && n.key <= hi) {
+      visitor.visit(n.key, n.value);
+    }
+    if (n.key < hi) {
+      forEachBetween(n.right, lo, hi, visitor);
+    }
+  }
+
+  private static <V> int height(Node<V> n) {
+    return (n == null) ? 0 : n.height;
+  }
+
+  private static <V> int size(Node<V> n) {
+    return (n == null) ? 0 : n.size;
+  }
+
+  /**
+   * @return a copy of {@code n} with the given children, rotated back into AVL balance.
+   */
+  private static <V> Node<V> balance(Node<V> n, Node<V> left, Node<V> right) {
+    int balance = height(left) - height(right);
+    if (balance > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return left.with(left.left, n.with(left.right, right));
+    }
+    if (balance < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return right.with(n.with(left, right.left), right.right);
+    }
+    return n.with(left, right);
+  }
+
+  private static <V> Node<V> rotateRight(Node<V> n) {
+    Node<V> l = n.left;
+    return l.with(l.left, n.with(l.right, n.right));
+  }
+
+  private static <V> Node<V> rotateLeft(Node<V> n) {
+    Node<V> r = n.right;
+    return r.with(n.with(n.left, r.left), r.right);
+  }
+}
@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * What {@link Calendar} does when a new event, or an occurrence of a new series, overlaps an
+ * event already in the calendar.  Exact duplicates are always rejected, whatever the policy.
+ */
+public enum OverlapPolicy {
+  /** Create the event without looking for overlaps (the default). */
+  ALLOW,
+  /** Refuse to create an event or series that overlaps anything. */
+  REJECT,
+  /** Create the event anyway and record what it overlaps. */
+  REPORT
+}
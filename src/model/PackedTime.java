@@ -0,0 +1,50 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * Date‐times packed into a {@code long} count of epoch minutes, rounded down.  A time that does
+ * not fall on a whole minute is carried alongside as its exact value, which is null otherwise,
+ * so a packed time orders and compares exactly like the {@link LocalDateTime} it came from while
+ * allocating nothing in the usual whole‐minute case.
+ */
+final class PackedTime {
+
+  private static final long MINUTES_PER_DAY = 24 * 60;
+
+  private PackedTime() {
+  }
+
+  static long pack(LocalDateTime time) {
+    return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  static long pack(LocalDate date, LocalTime time) {
+    return date.toEpochDay() * MINUTES_PER_DAY + time.toSecondOfDay() / 60;
+  }
+
+  /**
+   * @return {@code time} if it does not fall on a whole minute, else null.
+   */
+  static LocalDateTime exact(LocalDateTime time) {
+    return (time.getSecond() == 0 && time.getNano() == 0) ? null : time;
+  }
+
+  static LocalDateTime unpack(long minute, LocalDateTime exact) {
+    return (exact != null) ? exact : LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Order two packed times, looking at the exact values only when the minutes tie.
+   */
+  static int compare(long minuteA, LocalDateTime exactA, long minuteB, LocalDateTime exactB) {
+    int c = Long.compare(minuteA, minuteB);
+    if (c != 0 || (exactA == null && exactB == null)) {
+      return c;
+    }
+    return unpack(minuteA, exactA).compareTo(unpack(minuteB, exactB));
+  }
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The queries of a calendar, without any way to change it.  Every {@link ICalendar} is one;
+ * a {@link CalendarSnapshot} is only this.
+ */
+public interface ReadableCalendar {
+  List<IEvent> getEventsOnDate(LocalDate date);
+  List<IEvent> getEventsInRange(LocalDateTime start, LocalDateTime end);
+
+  /**
+   * Hand each event on {@code date} to {@code action}, in the order of
+   * {@link #getEventsOnDate}, without collecting them into a list first.
+   */
+  void forEachEventOnDate(LocalDate date, Consumer<? super IEvent> action);
+
+  /**
+   * Hand each event overlapping [start, end) to {@code action}, in the order of
+   * {@link #getEventsInRange(LocalDateTime, LocalDateTime)}, without collecting them into a list first.
+   */
+  void forEachEventInRange(LocalDateTime start, LocalDateTime end,
+                           Consumer<? super IEvent> action);
+
+  /**
+   * Return one page of the events overlapping [start, end), in the order of
+   * {@link #getEventsInRange(LocalDateTime, LocalDateTime)}.  Pass null as {@code after} for the
+   * first page and the previous page's {@link EventPage#getNextToken()} for the next one.
+   * @param limit the most events the page may hold; must be positive.
+   * @throws IllegalArgumentException if the limit is not positive or the token is malformed.
+   */
+  EventPage getEventsInRange(LocalDateTime start, LocalDateTime end, int limit, String after);
+
+  /**
+   * @return a spliterator over the events overlapping [start, end), in the order of
+   *         {@link #getEventsInRange(LocalDateTime, LocalDateTime)}, that splits the range by
+   *         start time so a parallel stream can share it out across threads.
+   */
+  Spliterator<IEvent> spliterator(LocalDateTime start, LocalDateTime end);
+  boolean isBusyAt(LocalDateTime dateTime);
+
+  /**
+   * @return true if no event overlaps the half‐open window [start, end).
+   */
+  boolean isFree(LocalDateTime start, LocalDateTime end);
+
+  /**
+   * Find the earliest free windows of at least {@code length} within [from, to).  Each slot is
+   * a maximal stretch no event overlaps, so its start is the earliest time a meeting fits there.
+   * When {@code dayStart} and {@code dayEnd} are given, slots are also kept within those hours
+   * of each day; pass null for both to search around the clock.
+   * @return at most {@code limit} slots, earliest first.
+   * @throws IllegalArgumentException if the range, length, hours or limit are invalid.
+   */
+  List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration length,
+                               LocalTime dayStart, LocalTime dayEnd, int limit);
+  IEvent findEvent(String subject, LocalDateTime start, LocalDateTime end);
+
+  /**
+   * @return the event with this ID (see {@link IEvent#getId()}), or null if there is none.
+   */
+  IEvent getEventById(long id);
+}
@@ -0,0 +1,215 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which dates a recurring series falls on, stored once per series instead of one object per
+ * occurrence.  Occurrences are numbered exactly the way Calendar has always generated them: for
+ * each week counted from the anchor date, one occurrence per listed weekday in list order,
+ * stopping after {@code count} of them.  The weekdays are distinct; callers pass a list through
+ * {@link #distinct} first, so a weekday listed twice still yields one occurrence a week.  Occurrence k therefore falls on
+ * {@code anchor + 7 * (k / m) + offset[k % m]}, where m is the number of listed weekdays and
+ * each offset is the distance (0–6 days) from the anchor to that weekday.  The calendar reserves
+ * a block of {@code count} event IDs for the rule, and occurrence k gets ID {@code firstId + k}.
+ *
+ * <p>A rule is immutable and costs O(1) memory.  Removing an occurrence splits the
+ * {@link SeriesSegment} around it rather than changing the rule, so segments that share a rule
+ * can safely be read from other threads.
+ */
+final class RecurrenceRule {
+
+  /**
+   * Receives occurrences in date order.
+   */
+  interface OccurrenceVisitor {
+    void visit(long index, LocalDate date);
+  }
+
+  private final LocalDate anchor;
+  private final int[] offsets;      // days after the anchor, in the order the weekdays were listed
+  private final int[] slotOf;       // offset (0–6) -> list position with that offset, or -1
+  private final int[] byOffset;     // list positions sorted by offset
+  private final long count;         // occurrences 0 .. count-1 exist
+  private final long firstId;       // event ID of occurrence 0
+
+  RecurrenceRule(LocalDate anchor, List<DayOfWeek> days, long count, long firstId) {
+    this.anchor = anchor;
+    this.offsets = new int[days.size()];
+    this.slotOf = new int[7];
+    Arrays.fill(this.slotOf, -1);
+    for (int i = 0; i < offsets.length; i++) {
+      int off = offset(anchor, days.get(i));
+      if (slotOf[off] >= 0) {
+        throw new IllegalArgumentException("Weekday listed twice: " + days.get(i));
+      }
+      offsets[i] = off;
+      slotOf[off] = i;
+    }
+    this.byOffset = new int[offsets.length];
+    int next = 0;
+    for (int off = 0; off < 7; off++) {
+      if (slotOf[off] >= 0) {
+        byOffset[next++] = slotOf[off];
+      }
+    }
+    this.count = count;
+    this.firstId = firstId;
+  }
+
+  /**
+   * @return {@code days} with any repeated weekday dropped after its first listing, or the
+   *         list itself when nothing repeats.
+   */
+  static List<DayOfWeek> distinct(List<DayOfWeek> days) {
+    Set<DayOfWeek> seen = EnumSet.noneOf(DayOfWeek.class);
+    List<DayOfWeek> out = new ArrayList<>(days.size());
+    for (DayOfWeek d : days) {
+      if (seen.add(d)) {
+        out.add(d);
+      }
+    }
+    return (out.size() == days.size()) ? days : out;
+  }
+
+  /**
+   * Count the occurrences a series anchored at {@code anchor} has on or before {@code last}:
+   * every listed weekday in each whole week, plus those of the final partial week that fall
+   * no later than {@code last}.  The weekdays must be distinct.
+   */
+  static long countThrough(LocalDate anchor, List<DayOfWeek> days, LocalDate last) {
+    long delta = ChronoUnit.DAYS.between(anchor, last);
+    if (delta < 0) {
+      return 0;
+    }
+    long occurrences = (delta / 7) * days.size();
+    for (DayOfWeek d : days) {
+      if (offset(anchor, d) <= delta % 7) {
+        occurrences++;
+      }
+    }
+    return occurrences;
+  }
+
+  private static int offset(LocalDate anchor, DayOfWeek day) {
+    return (day.getValue() - anchor.getDayOfWeek().getValue() + 7) % 7;
+  }
+
+  LocalDate anchor() {
+    return anchor;
+  }
+
+  /**
+   * @return the weekdays as they were listed.
+   */
+  List<DayOfWeek> days() {
+    List<DayOfWeek> days = new ArrayList<>(offsets.length);
+    for (int off : offsets) {
+      days.add(anchor.plusDays(off).getDayOfWeek());
+    }
+    return days;
+  }
+
+  long count() {
+    return count;
+  }
+
+  long idOf(long index) {
+    return firstId + index;
+  }
+
+  /**
+   * @return the index of the occurrence with this event ID, or -1 if the ID is not one of them.
+   */
+  long indexOfId(long id) {
+    long index = id - firstId;
+    return (index < 0 || index >= count) ? -1 : index;
+  }
+
+  LocalDate dateOf(long index) {
+    return anchor.plusDays(7 * (index / offsets.length) + offsets[(int) (index % offsets.length)]);
+  }
+
+  /**
+   * @return the index of the occurrence falling on {@code date}, or -1 if none.
+   */
+  long indexOn(LocalDate date) {
+    long delta = ChronoUnit.DAYS.between(anchor, date);
+    if (delta < 0) {
+      return -1;
+    }
+    int pos = slotOf[(int) (delta % 7)];
+    if (pos < 0) {
+      return -1;
+    }
+    long index = (delta / 7) * offsets.length + pos;
+    return (index < count) ? index : -1;
+  }
+
+  /**
+   * @return the earliest occurrence date on or after {@code date}, or null if none.
+   */
+  LocalDate firstOnOrAfter(LocalDate date) {
+    long week = Math.max(0, Math.floorDiv(ChronoUnit.DAYS.between(anchor, date), 7));
+    // The answer is either in the week holding the date or in the one after it.
+    for (long w = week; w <= week + 1; w++) {
+      for (int pos : byOffset) {
+        long index = w * offsets.length + pos;
+        LocalDate d = anchor.plusDays(7 * w + offsets[pos]);
+        if (index < count && !d.isBefore(date)) {
+          return d;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the latest occurrence date on or before {@code date}, or null if none.
+   */
+  LocalDate lastOnOrBefore(LocalDate date) {
+    long days = ChronoUnit.DAYS.between(anchor, date);
+    if (days < 0) {
+      return null;
+    }
+    long week = Math.min(days / 7, (count - 1) / offsets.length);
+    for (long w = week; w >= Math.max(0, week - 1); w--) {
+      for (int i = byOffset.length - 1; i >= 0; i--) {
+        int pos = byOffset[i];
+        long index = w * offsets.length + pos;
+        LocalDate d = anchor.plusDays(7 * w + offsets[pos]);
+        if (index < count && !d.isAfter(date)) {
+          return d;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Visit every occurrence dated within [first, last], in date order.
+   */
+  void forEachOccurrence(LocalDate first, LocalDate last, OccurrenceVisitor visitor) {
+    long fromWeek = Math.max(0, Math.floorDiv(ChronoUnit.DAYS.between(anchor, first), 7));
+    long toWeek = Math.min(Math.floorDiv(ChronoUnit.DAYS.between(anchor, last), 7),
+            (count - 1) / offsets.length);
+    for (long w = fromWeek; w <= toWeek; w++) {
+      for (int pos : byOffset) {
+        long index = w * offsets.length + pos;
+        if (index >= count) {
+          continue;
+        }
+        LocalDate d = anchor.plusDays(7 * w + offsets[pos]);
+        if (!d.isBefore(first) && !d.isAfter(last)) {
+          visitor.visit(index, d);
+        }
+      }
+    }
+  }
+}
@@ -16,7 +16,10 @@ public final class SeriesEvent extends AbstractEvent {
             builder.description,
             builder.location,
             builder.status,
-            builder.seriesId
+            builder.seriesId,
+            builder.id,
+            builder.strings,
+            builder.subjectCode
     );
   }
 
@@ -26,6 +29,8 @@ public final class SeriesEvent extends AbstractEvent {
 
   @Override
   public boolean isAllDay() {
+    LocalDateTime start = getStart();
+    LocalDateTime end = getEnd();
     if (start == null || end == null) return false;
     return (start.getHour() == 8 && start.getMinute() == 0)
             && (end.getHour()   == 17 && end.getMinute()   == 0)
@@ -36,7 +41,7 @@ public final class SeriesEvent extends AbstractEvent {
   public boolean overlapsWith(IEvent other) {
     if (other == null) return false;
     if (other.getEnd() == null) return false;
-    return this.start.isBefore(other.getEnd()) && other.getStart().isBefore(this.end);
+    return overlapsInTime(other);
   }
 
   public static class Builder extends AbstractEvent.Builder<Builder> {
@@ -0,0 +1,78 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks which stored events belong to which series.  Each series keeps its members in an
+ * interval tree ordered by start time, ties by sequence number, so adding or removing a member
+ * costs O(log m) for a series of m members, and "this occurrence and everything after it" is a
+ * walk from one position in that order.
+ */
+final class SeriesIndex {
+
+  private final Map<Long, IntervalTree<IEvent>> members;
+
+  SeriesIndex() {
+    this.members = new HashMap<>();
+  }
+
+  /**
+   * Add a member under the sequence number the calendar stored it with.
+   */
+  void add(IEvent event, long seq) {
+    if (event.getSeriesId() == null) {
+      return;
+    }
+    this.members.merge(event.getSeriesId(),
+            IntervalTree.empty(AbstractEvent.SPAN).insert(event, seq),
+            (tree, ignored) -> tree.insert(event, seq));
+  }
+
+  /**
+   * Remove the member stored under {@code seq}; {@code event} need only start when it does.
+   */
+  void remove(IEvent event, long seq) {
+    IntervalTree<IEvent> tree = (event.getSeriesId() == null)
+            ? null : this.members.get(event.getSeriesId());
+    if (tree == null) {
+      return;
+    }
+    tree = tree.remove(event, seq);
+    if (tree.size() == 0) {
+      this.members.remove(event.getSeriesId());
+    } else {
+      this.members.put(event.getSeriesId(), tree);
+    }
+  }
+
+  /**
+   * @return every member of the series, in start order.
+   */
+  List<IEvent> all(Long seriesId) {
+    IntervalTree<IEvent> tree = this.members.get(seriesId);
+    if (tree == null) {
+      return Collections.emptyList();
+    }
+    List<IEvent> out = new ArrayList<>(tree.size());
+    tree.forEach((e, seq) -> out.add(e));
+    return out;
+  }
+
+  /**
+   * @return the members starting at or after {@code start}, in start order.
+   */
+  List<IEvent> from(Long seriesId, LocalDateTime start) {
+    IntervalTree<IEvent> tree = this.members.get(seriesId);
+    if (tree == null) {
+      return Collections.emptyList();
+    }
+    List<IEvent> out = new ArrayList<>();
+    tree.visitStartingIn(start, LocalDateTime.MAX, (e, seq) -> out.add(e));
+    return out;
+  }
+}
@@ -0,0 +1,214 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.Consumer;
+
+/**
+ * A run of a recurring series whose occurrences all look alike: one subject, description,
+ * location, status and time of day applied to every occurrence its rule produces between two
+ * dates.  A freshly created series is a single segment.  Editing a series from some occurrence
+ * forward splits it into the untouched part and a re‐templated part, both sharing the same rule.
+ *
+ * <p>Occurrences are built on demand as {@link SeriesEvent}s and are equal to the events the
+ * calendar used to store one by one.  Segments are immutable; removing one occurrence replaces
+ * the segment with the windows on either side of it.
+ */
+final class SeriesSegment {
+
+  final RecurrenceRule rule;
+  final Long seriesId;
+  final long seq;              // position among stored events with the same start
+  final String subject;
+  final StringDictionary strings;  // the dictionary subjectCode is from, or null
+  final int subjectCode;           // occurrences carry it, so they compare subjects by code
+  final String description;
+  final Location location;     // may be null
+  final Status status;         // may be null
+  final LocalTime startTime;
+  final LocalTime endTime;
+  final LocalDate first;       // earliest occurrence date covered
+  final LocalDate last;        // latest occurrence date covered
+
+  private SeriesSegment(RecurrenceRule rule, IEvent template, LocalDate first, LocalDate last,
+                        long seq) {
+    this.rule = rule;
+    this.seriesId = template.getSeriesId();
+    this.seq = seq;
+    this.subject = template.getSubject();
+    if (template instanceof AbstractEvent) {
+      this.strings = ((AbstractEvent) template).codedBy();
+      this.subjectCode = ((AbstractEvent) template).subjectCode();
+    } else {
+      this.strings = null;
+      this.subjectCode = StringDictionary.ABSENT;
+    }
+    this.description = template.getDescription();
+    this.location = template.getLocation();
+    this.status = template.getStatus();
+    this.startTime = template.getStart().toLocalTime();
+    this.endTime = template.getEnd().toLocalTime();
+    this.first = first;
+    this.last = last;
+  }
+
+  /**
+   * Build a segment covering the occurrences of {@code rule} dated within [from, to], each
+   * looking like {@code template}.
+   * @return the segment, or null if the rule has no occurrence in that window.
+   */
+  static SeriesSegment of(RecurrenceRule rule, IEvent template, LocalDate from, LocalDate to,
+                          long seq) {
+    LocalDate first = rule.firstOnOrAfter(from);
+    LocalDate last = rule.lastOnOrBefore(to);
+    if (first == null || last == null || first.isAfter(last)) {
+      return null;
+    }
+    return new SeriesSegment(rule, template, first, last, seq);
+  }
+
+  LocalDateTime spanStart() {
+    return first.atTime(startTime);
+  }
+
+  LocalDateTime spanEnd() {
+    return last.atTime(endTime);
+  }
+
+  /**
+   * How an {@link IntervalTree} of segments reads their spans, from the first occurrence's start
+   * to the last one's end, packed straight from the dates and times of day.
+   */
+  static final IntervalTree.Span<SeriesSegment> SPAN = new IntervalTree.Span<SeriesSegment>() {
+    @Override
+    public long startMinute(SeriesSegment s) {
+      return PackedTime.pack(s.first, s.startTime);
+    }
+
+    @Override
+    public long endMinute(SeriesSegment s) {
+      return PackedTime.pack(s.last, s.endTime);
+    }
+
+    @Override
+    public LocalDateTime exactStart(SeriesSegment s) {
+      return PackedTime.exact(s.spanStart());
+    }
+
+    @Override
+    public LocalDateTime exactEnd(SeriesSegment s) {
+      return PackedTime.exact(s.spanEnd());
+    }
+  };
+
+  /**
+   * @return the occurrence this segment produces on {@code date}, or null if it has none.
+   */
+  IEvent occurrenceOn(LocalDate date) {
+    if (date.isBefore(first) || date.isAfter(last) || rule.indexOn(date) < 0) {
+      return null;
+    }
+    return occurrence(date);
+  }
+
+  /**
+   * @return true if one of this segment's occurrences satisfies {@code start <= time < end}.
+   */
+  boolean isBusyAt(LocalDateTime time) {
+    LocalTime t = time.toLocalTime();
+    return !t.isBefore(startTime) && t.isBefore(endTime) && occurrenceOn(time.toLocalDate()) != null;
+  }
+
+  /**
+   * Hand every occurrence overlapping [from, to) to {@code action}, in start order.
+   */
+  void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<IEvent> action) {
+    forEachBetween(from.toLocalDate(), to.toLocalDate(), e -> {
+      if (e.getStart().isBefore(to) && e.getEnd().isAfter(from)) {
+        action.accept(e);
+      }
+    });
+  }
+
+  /**
+   * Hand every occurrence dated within [from, to] to {@code action}, in start order.
+   */
+  void forEachBetween(LocalDate from, LocalDate to, Consumer<IEvent> action) {
+    LocalDate lo = from.isBefore(first) ? first : from;
+    LocalDate hi = to.isAfter(last) ? last : to;
+    rule.forEachOccurrence(lo, hi, (index, date) -> action.accept(occurrence(date)));
+  }
+
+  /**
+   * @return true if this segment has an occurrence with exactly this subject, start and end.
+   */
+  boolean produces(String subject, LocalDateTime start, LocalDateTime end) {
+    return this.subject.equals(subject) && producesAt(start, end);
+  }
+
+  /**
+   * @return true if this segment has an occurrence equal to {@code event}.
+   */
+  boolean produces(IEvent event) {
+    return AbstractEvent.hasSubject(event, strings, subjectCode, subject)
+            && producesAt(event.getStart(), event.getEnd());
+  }
+
+  /**
+   * @return true if this segment's occurrences have the same subject as {@code other}'s.
+   */
+  boolean sameSubject(SeriesSegment other) {
+    return (strings != null && strings == other.strings && subjectCode == other.subjectCode)
+            || subject.equals(other.subject);
+  }
+
+  private boolean producesAt(LocalDateTime start, LocalDateTime end) {
+    return start != null && end != null
+            && start.toLocalTime().equals(startTime)
+            && end.equals(start.toLocalDate().atTime(endTime))
+            && occurrenceOn(start.toLocalDate()) != null;
+  }
+
+  /**
+   * @return the earliest date, no earlier than this segment's first, whose occurrence would
+   *         start at or after {@code start}.
+   */
+  LocalDate firstDateFrom(LocalDateTime start) {
+    if (start.isBefore(spanStart())) {
+      return first;
+    }
+    return startTime.isBefore(start.toLocalTime())
+            ? start.toLocalDate().plusDays(1)
+            : start.toLocalDate();
+  }
+
+  /**
+   * @return a copy covering only [from, to] of this segment, keeping its place among ties.
+   */
+  SeriesSegment window(LocalDate from, LocalDate to) {
+    return of(rule, occurrence(first), from.isBefore(first) ? first : from,
+            to.isAfter(last) ? last : to, seq);
+  }
+
+  /**
+   * @return a copy covering [from, last] whose occurrences look like {@code template}.
+   */
+  SeriesSegment retemplate(IEvent template, LocalDate from, long newSeq) {
+    return of(rule, template, from.isBefore(first) ? first : from, last, newSeq);
+  }
+
+  IEvent occurrence(LocalDate date) {
+    return SeriesEvent.getBuilder()
+            .id(rule.idOf(rule.indexOn(date)))
+            .seriesId(seriesId)
+            .subject(subject)
+            .coded(strings, subjectCode)
+            .description(description)
+            .start(date.atTime(startTime))
+            .end(date.atTime(endTime))
+            .location(location)
+            .status(status)
+            .build();
+  }
+}
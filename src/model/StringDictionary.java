@@ -0,0 +1,131 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps each distinct string a calendar holds to a small integer code and back.  Equal strings
+ * get the same code and decode to one shared instance, so a code comparison stands in for
+ * {@link String#equals}.
+ *
+ * <p>An owner that drops strings counts its references with {@link #retain} and
+ * {@link #release}, and calls {@link #prune} once a change is done; strings no longer
+ * referenced then leave the dictionary.  Codes are never reused, since events elsewhere may
+ * still carry them, so a pruned string leaves only an empty slot behind, and encoding it again
+ * gives it a new code.
+ */
+final class StringDictionary {
+
+  static final int NULL = -1;     // the code of a null string
+  static final int ABSENT = -2;   // returned by codeOf for a string never encoded
+
+  private final Map<String, Integer> codes;
+  private final List<String> values;   // code -> string, null once pruned
+  private int[] counts;                // code -> references retained
+  private final List<Integer> unused;  // codes whose count dropped to 0 since the last prune
+
+  StringDictionary() {
+    this.codes = new HashMap<>();
+    this.values = new ArrayList<>();
+    this.counts = new int[16];
+    this.unused = new ArrayList<>();
+  }
+
+  /**
+   * @return the code of {@code s}, assigning the next one if it is new.
+   */
+  int encode(String s) {
+    if (s == null) {
+      return NULL;
+    }
+    Integer code = this.codes.get(s);
+    if (code == null) {
+      code = this.values.size();
+      this.codes.put(s, code);
+      this.values.add(s);
+    }
+    return code;
+  }
+
+  /**
+   * Like {@link #encode}, for an owner that counts references: a string new to the dictionary
+   * leaves again at the next prune unless something retains it first.
+   */
+  int intern(String s) {
+    int size = this.values.size();
+    int code = encode(s);
+    if (code == size) {
+      this.unused.add(code);
+    }
+    return code;
+  }
+
+  /**
+   * @return the code of {@code s}, or {@link #ABSENT} if it was never encoded.
+   */
+  int codeOf(String s) {
+    if (s == null) {
+      return NULL;
+    }
+    Integer code = this.codes.get(s);
+    return (code == null) ? ABSENT : code;
+  }
+
+  String decode(int code) {
+    return (code == NULL) ? null : this.values.get(code);
+  }
+
+  /**
+   * Count one more reference to the string with this code; {@link #NULL} is ignored.
+   */
+  void retain(int code) {
+    if (code == NULL) {
+      return;
+    }
+    if (code >= this.counts.length) {
+      this.counts = Arrays.copyOf(this.counts, Math.max(code + 1, this.counts.length * 2));
+    }
+    this.counts[code]++;
+  }
+
+  /**
+   * Drop one reference taken by {@link #retain}; the string stays until the next prune.
+   */
+  void release(int code) {
+    if (code != NULL && --this.counts[code] == 0) {
+      this.unused.add(code);
+    }
+  }
+
+  /**
+   * Remove every string whose references were all released, or that was interned and never
+   * retained, since the last prune.  Costs O(1) per such string.
+   */
+  void prune() {
+    for (int code : this.unused) {
+      String s = this.values.get(code);
+      if (this.counts[code] == 0 && s != null) {
+        this.codes.remove(s);
+        this.values.set(code, null);
+      }
+    }
+    this.unused.clear();
+  }
+
+  /**
+   * @return how many strings the dictionary holds, pruned ones excepted.
+   */
+  int live() {
+    return this.codes.size();
+  }
+
+  /**
+   * @return one more than the highest code handed out so far.
+   */
+  int size() {
+    return this.values.size();
+  }
+}
@@ -0,0 +1,59 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A half‐open window of time [start, end), as returned by
+ * {@link ReadableCalendar#findFreeSlots}.
+ */
+public final class TimeSlot {
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+
+  public TimeSlot(LocalDateTime start, LocalDateTime end) {
+    if (start == null || end == null) {
+      throw new IllegalArgumentException("Slot start and end cannot be null");
+    }
+    if (!end.isAfter(start)) {
+      throw new IllegalArgumentException("Slot end must be after its start");
+    }
+    this.start = start;
+    this.end = end;
+  }
+
+  public LocalDateTime getStart() {
+    return start;
+  }
+
+  public LocalDateTime getEnd() {
+    return end;
+  }
+
+  public Duration getLength() {
+    return Duration.between(start, end);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TimeSlot)) {
+      return false;
+    }
+    TimeSlot other = (TimeSlot) o;
+    return start.equals(other.start) && end.equals(other.end);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(start, end);
+  }
+
+  @Override
+  public String toString() {
+    return start + " - " + end;
+  }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes text as UTF‐8 straight into one reused buffer and writes it to a channel whenever
+ * the buffer fills, for the exporters: a {@link java.nio.charset.CharsetEncoder} costs more
+ * per call than the short pieces they write.  A lone surrogate is written as '?', as an
+ * encoder set to replace would.
+ */
+final class Utf8Output {
+
+  private final WritableByteChannel out;
+  private final ByteBuffer buffer;
+
+  Utf8Output(WritableByteChannel out, int capacity) {
+    this.out = out;
+    this.buffer = ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * @return how many bytes {@code c} takes; 4 for either half of a surrogate pair, which
+   *         is what the pair takes together.
+   */
+  static int octets(char c) {
+    return (c < 0x80) ? 1 : (c < 0x800) ? 2 : Character.isSurrogate(c) ? 4 : 3;
+  }
+
+  void put(CharSequence text) throws IOException {
+    for (int i = 0; i < text.length(); ) {
+      i = put(text, i);
+    }
+  }
+
+  /**
+   * Write the character at {@code i}, with its low surrogate if it is a high one.
+   * @return the index of the character after it.
+   */
+  int put(CharSequence text, int i) throws IOException {
+    if (buffer.remaining() < 4) {
+      flush();
+    }
+    char c = text.charAt(i);
+    if (c < 0x80) {
+      buffer.put((byte) c);
+    } else if (c < 0x800) {
+      buffer.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+    } else if (!Character.isSurrogate(c)) {
+      buffer.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F)))
+              .put((byte) (0x80 | (c & 0x3F)));
+    } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+            && Character.isLowSurrogate(text.charAt(i + 1))) {
+      int cp = Character.toCodePoint(c, text.charAt(++i));
+      buffer.put((byte) (0xF0 | (cp >> 18))).put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+              .put((byte) (0x80 | ((cp >> 6) & 0x3F))).put((byte) (0x80 | (cp & 0x3F)));
+    } else {
+      buffer.put((byte) '?');
+    }
+    return i + 1;
+  }
+
+  /**
+   * Write out everything buffered so far.
+   */
+  void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -1,16 +1,31 @@
 package view;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import model.EventPage;
 import model.IEvent;
+import model.ImportReport;
+import model.TimeSlot;
 
 /**
  * Interface for the view for our Calendar.
  * Handles all presentation logic and formatting.
  */
 public interface IView {
+
+  /**
+   * A walk over events that hands each one to a callback, such as
+   * {@link model.ICalendar#forEachEventOnDate}, so they can be shown without first being
+   * collected into a list.
+   */
+  @FunctionalInterface
+  interface EventSource {
+    void forEach(Consumer<? super IEvent> action);
+  }
   
   /**
    * Display a success message for event creation.
@@ -46,17 +61,47 @@ public interface IView {
    * Display events for a specific date.
    */
   void showEventsOnDate(LocalDate date, List<IEvent> events) throws IOException;
+
+  /**
+   * Display events for a specific date as {@code events} produces them.
+   */
+  void showEventsOnDate(LocalDate date, EventSource events) throws IOException;
   
   /**
    * Display events in a date range.
    */
   void showEventsInRange(LocalDateTime start, LocalDateTime end, List<IEvent> events) throws IOException;
+
+  /**
+   * Display events in a date range as {@code events} produces them.
+   */
+  void showEventsInRange(LocalDateTime start, LocalDateTime end, EventSource events) throws IOException;
+
+  /**
+   * Display one page of the events in a date range, and how to ask for the next.
+   */
+  void showEventPage(LocalDateTime start, LocalDateTime end, EventPage page) throws IOException;
   
   /**
    * Display busy/available status for a specific date and time.
    */
   void showStatus(LocalDateTime dateTime, boolean isBusy) throws IOException;
   
+  /**
+   * Display the free slots found for a meeting of the given length.
+   */
+  void showFreeSlots(Duration length, List<TimeSlot> slots) throws IOException;
+  
+  /**
+   * Display how many events were written to an exported file.
+   */
+  void showExported(String file, int events) throws IOException;
+
+  /**
+   * Display what an import from a file stored, and which of its events were turned away.
+   */
+  void showImported(String file, ImportReport report) throws IOException;
+  
   /**
    * Display a goodbye message when exiting.
    */
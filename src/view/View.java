@@ -1,6 +1,8 @@
 package view;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -12,6 +14,11 @@ import model.*;
  * Handles all presentation logic and output formatting.
  */
 public class View implements IView {
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+  private static final int REJECTIONS_SHOWN = 10;
+
   private final Appendable out;
 
   public View(Appendable out) {
@@ -50,37 +57,89 @@ public class View implements IView {
 
   @Override
   public void showEventsOnDate(LocalDate date, List<IEvent> events) throws IOException {
-    if (events.isEmpty()) {
-      out.append("No events found on ").append(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append(".\n");
-    } else {
-      out.append("Events on ").append(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append(":\n");
-      for (IEvent event : events) {
-        formatEvent(event);
-      }
+    showEventsOnDate(date, events::forEach);
+  }
+
+  @Override
+  public void showEventsOnDate(LocalDate date, EventSource events) throws IOException {
+    if (!show(events, "Events on " + date.format(DATE) + ":\n", this::formatEvent)) {
+      out.append("No events found on ").append(date.format(DATE)).append(".\n");
     }
   }
 
   @Override
   public void showEventsInRange(LocalDateTime start, LocalDateTime end, List<IEvent> events) throws IOException {
-    if (events.isEmpty()) {
+    showEventsInRange(start, end, events::forEach);
+  }
+
+  @Override
+  public void showEventsInRange(LocalDateTime start, LocalDateTime end, EventSource events) throws IOException {
+    String header = "Events from " + start.format(DATE_TIME) + " to " + end.format(DATE_TIME) + ":\n";
+    if (!show(events, header, this::formatEventWithFullDateTime)) {
       out.append("No events found in the specified range.\n");
-    } else {
-      out.append("Events from ").append(start.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")))
-              .append(" to ").append(end.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"))).append(":\n");
+    }
+  }
 
-      for (IEvent event : events) {
-        formatEventWithFullDateTime(event);
-      }
+  @Override
+  public void showEventPage(LocalDateTime start, LocalDateTime end, EventPage page) throws IOException {
+    showEventsInRange(start, end, page.getEvents());
+    if (page.hasMore()) {
+      out.append("More events follow; continue with: after ").append(page.getNextToken()).append("\n");
     }
   }
 
   @Override
   public void showStatus(LocalDateTime dateTime, boolean isBusy) throws IOException {
     String status = isBusy ? "busy" : "available";
-    out.append("Status on ").append(dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")))
+    out.append("Status on ").append(dateTime.format(DATE_TIME))
             .append(": ").append(status).append("\n");
   }
 
+  @Override
+  public void showFreeSlots(Duration length, List<TimeSlot> slots) throws IOException {
+    if (slots.isEmpty()) {
+      out.append("No free slots of ").append(String.valueOf(length.toMinutes()))
+              .append(" minutes found in the specified range.\n");
+    } else {
+      out.append("Free slots of ").append(String.valueOf(length.toMinutes())).append(" minutes:\n");
+      for (TimeSlot slot : slots) {
+        out.append("• ").append(slot.getStart().format(DATE_TIME))
+                .append(" - ").append(slot.getEnd().format(DATE_TIME))
+                .append("\n");
+      }
+    }
+  }
+
+  @Override
+  public void showExported(String file, int events) throws IOException {
+    out.append("Exported ").append(String.valueOf(events)).append(" events to ")
+            .append(file).append("\n");
+  }
+
+  @Override
+  public void showImported(String file, ImportReport report) throws IOException {
+    List<ImportReport.Rejection> rejections = report.getRejections();
+    out.append("Imported ").append(String.valueOf(report.getAdded())).append(" events from ")
+            .append(file);
+    if (rejections.isEmpty()) {
+      out.append("\n");
+      return;
+    }
+    out.append("; ").append(String.valueOf(rejections.size())).append(" skipped:\n");
+    for (int i = 0; i < rejections.size() && i < REJECTIONS_SHOWN; i++) {
+      ImportReport.Rejection r = rejections.get(i);
+      out.append("• #").append(String.valueOf(r.getIndex()));
+      if (r.getEvent() != null) {
+        out.append(" ").append(r.getEvent().getSubject());
+      }
+      out.append(": ").append(r.getReason().toString()).append("\n");
+    }
+    if (rejections.size() > REJECTIONS_SHOWN) {
+      out.append("• and ").append(String.valueOf(rejections.size() - REJECTIONS_SHOWN))
+              .append(" more\n");
+    }
+  }
+
   @Override
   public void showGoodbye() throws IOException {
     out.append("Goodbye!\n");
@@ -106,13 +165,43 @@ public class View implements IView {
     out.append("> ");
   }
 
+  /**
+   * Write each event {@code events} produces with {@code format}, preceded by {@code header}
+   * once the first one arrives.
+   *
+   * @return whether there were any events
+   */
+  private boolean show(EventSource events, String header, EventFormat format) throws IOException {
+    boolean[] any = {false};
+    try {
+      events.forEach(event -> {
+        try {
+          if (!any[0]) {
+            out.append(header);
+            any[0] = true;
+          }
+          format.write(event);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return any[0];
+  }
+
+  private interface EventFormat {
+    void write(IEvent event) throws IOException;
+  }
+
   /**
    * Format an event for display in date-specific lists (shows only time).
    */
   private void formatEvent(IEvent event) throws IOException {
     out.append("• ").append(event.getSubject());
-    out.append(" (").append(event.getStart().format(DateTimeFormatter.ofPattern("HH:mm")));
-    out.append(" - ").append(event.getEnd().format(DateTimeFormatter.ofPattern("HH:mm"))).append(")");
+    out.append(" (").append(event.getStart().format(TIME));
+    out.append(" - ").append(event.getEnd().format(TIME)).append(")");
 
     if (event.getLocation() != null) {
       out.append(" at ").append(event.getLocation().toString());
@@ -125,8 +214,8 @@ public class View implements IView {
    */
   private void formatEventWithFullDateTime(IEvent event) throws IOException {
     out.append("• ").append(event.getSubject());
-    out.append(" (").append(event.getStart().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")));
-    out.append(" - ").append(event.getEnd().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"))).append(")");
+    out.append(" (").append(event.getStart().format(DATE_TIME));
+    out.append(" - ").append(event.getEnd().format(DATE_TIME)).append(")");
 
     if (event.getLocation() != null) {
       out.append(" at ").append(event.getLocation().toString());
@@ -1,18 +1,32 @@
 import model.Calendar;
+import model.CalendarSnapshot;
+import model.EventPage;
 import model.IEvent;
+import model.ImportReport;
 import model.Location;
+import model.OverlapPolicy;
 import model.Status;
 import model.SingleEvent;
+import model.TimeSlot;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
 
 import static org.junit.Assert.*;
 
@@ -179,6 +193,33 @@ public class CalendarTest {
     assertEquals(LocalDateTime.of(2025, 6, 16, 9, 0), all.get(0).getStart());
   }
 
+  @Test
+  public void createSeriesByCountCountsRepeatedWeekdayOnce() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    boolean ok = cal.makeEvent(
+            "Twice",
+            "desc",
+            start,
+            start.plusHours(1),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.MONDAY),
+            2
+    );
+    assertTrue(ok);
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2025, 6, 16)).size());
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2025, 6, 23)).size());
+    assertEquals(2, cal.getEventsInRange(start, start.plusWeeks(4)).size());
+  }
+
+  @Test
+  public void createSeriesUntilDateCountsRepeatedWeekdayOnce() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    assertTrue(cal.makeEvent("Twice", "desc", start, start.plusHours(1),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.FRIDAY, DayOfWeek.MONDAY),
+            LocalDateTime.of(2025, 6, 30, 0, 0)));
+    // Mondays 16, 23, 30 and Fridays 20, 27; nothing past the end date
+    assertEquals(5, cal.getEventsInRange(start, start.plusWeeks(8)).size());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void createSeriesByCountThrowsOnInvalidArgs() {
     // days=empty, count=0 → invalid
@@ -220,6 +261,18 @@ public class CalendarTest {
     assertEquals(1, hits22.size());
   }
 
+  @Test
+  public void createMultiYearSeriesUntilDateStopsOnLastDate() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    LocalDateTime until = LocalDateTime.of(2027, 6, 16, 0, 0); // Wednesday
+    assertTrue(cal.makeEvent("Sync", "d", start, start.plusHours(1),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), until));
+
+    // 104 whole weeks of two meetings, then Monday and Wednesday of the last week
+    assertEquals(210, cal.getEventsInRange(start, until.plusWeeks(1)).size());
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2027, 6, 16)).size());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void createSeriesUntilDateThrowsOnInvalidArgs() {
     LocalDateTime start = LocalDateTime.of(2025, 6, 15, 8, 0);
@@ -235,6 +288,241 @@ public class CalendarTest {
     );
   }
 
+  //––– Series Editing ––––––––––––––––––––––––––––––––––––––––––––––––––––
+
+  @Test
+  public void editSeriesForwardOnlyTouchesLaterOccurrences() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Sync", "d", start, start.plusHours(1),
+            Arrays.asList(DayOfWeek.MONDAY), 4);
+
+    LocalDateTime third = start.plusWeeks(2);
+    assertTrue(cal.editSeriesEvent("subject", "Sync", third, third.plusHours(1), "Review", 'f'));
+
+    assertNotNull(cal.findEvent("Sync", start, start.plusHours(1)));
+    assertNotNull(cal.findEvent("Sync", start.plusWeeks(1), start.plusWeeks(1).plusHours(1)));
+    assertNotNull(cal.findEvent("Review", third, third.plusHours(1)));
+    assertNotNull(cal.findEvent("Review", start.plusWeeks(3), start.plusWeeks(3).plusHours(1)));
+  }
+
+  @Test
+  public void longSeriesSupportsRemovingOneOccurrence() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    assertTrue(cal.makeEvent("Standup", "d", start, start.plusMinutes(15),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 100000));
+
+    LocalDateTime far = start.plusWeeks(10000);
+    IEvent occurrence = cal.findEvent("Standup", far, far.plusMinutes(15));
+    assertNotNull(occurrence);
+    assertTrue(cal.isBusyAt(far.plusMinutes(5)));
+
+    assertTrue(cal.removeEvent(occurrence));
+    assertNull(cal.findEvent("Standup", far, far.plusMinutes(15)));
+    assertFalse(cal.isBusyAt(far.plusMinutes(5)));
+    assertEquals(1, cal.getEventsInRange(far, far.plusWeeks(1)).size());
+  }
+
+  @Test
+  public void snapshotIsUnaffectedByLaterChanges() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Sync", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 3);
+    CalendarSnapshot before = cal.snapshot();
+
+    cal.makeEvent("Lunch", "d", s.plusHours(3), s.plusHours(4), (Location) null, (Status) null);
+    cal.removeEvent(cal.findEvent("Sync", s.plusWeeks(1), s.plusWeeks(1).plusHours(1)));
+
+    assertEquals(3, before.getEventsInRange(s, s.plusWeeks(3)).size());
+    assertFalse(before.isBusyAt(s.plusHours(3)));
+    assertEquals(3, cal.getEventsInRange(s, s.plusWeeks(3)).size());
+    assertTrue(cal.isBusyAt(s.plusHours(3)));
+  }
+
+  @Test
+  public void snapshotLooksUpIdsAsTheyStoodWhenTaken() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Sync", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 3);
+    cal.makeEvent("Lunch", "d", s.plusHours(3), s.plusHours(4), (Location) null, (Status) null);
+    long second = cal.findEvent("Sync", s.plusWeeks(1), s.plusWeeks(1).plusHours(1)).getId();
+    long lunch = cal.findEvent("Lunch", s.plusHours(3), s.plusHours(4)).getId();
+    CalendarSnapshot before = cal.snapshot();
+
+    assertTrue(cal.removeEventById(second));
+    assertTrue(cal.editEventById(lunch, "subject", "Brunch"));
+
+    assertEquals(s.plusWeeks(1), before.getEventById(second).getStart());
+    assertEquals("Lunch", before.getEventById(lunch).getSubject());
+    assertNull(cal.snapshot().getEventById(second));
+    assertEquals("Brunch", cal.snapshot().getEventById(lunch).getSubject());
+    assertNull(before.getEventById(lunch + 100));
+  }
+
+  @Test
+  public void eventIdsSurviveEditsAndDifferAcrossOccurrences() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Sync", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 2);
+    IEvent first = cal.findEvent("Sync", s, s.plusHours(1));
+    IEvent second = cal.findEvent("Sync", s.plusWeeks(1), s.plusWeeks(1).plusHours(1));
+    assertNotEquals(0, first.getId());
+    assertNotEquals(first.getId(), second.getId());
+    assertEquals(first.getSeriesId(), second.getSeriesId());
+
+    assertTrue(cal.editSeriesEvent("subject", "Sync", s, s.plusHours(1), "Review", 'e'));
+    assertEquals(first.getId(), cal.findEvent("Review", s, s.plusHours(1)).getId());
+  }
+
+  @Test
+  public void getEditAndRemoveById() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Lunch", "d", s.plusHours(3), s.plusHours(4), (Location) null, (Status) null);
+    cal.makeEvent("Sync", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 3);
+    long lunch = cal.findEvent("Lunch", s.plusHours(3), s.plusHours(4)).getId();
+    long second = cal.findEvent("Sync", s.plusWeeks(1), s.plusWeeks(1).plusHours(1)).getId();
+
+    assertEquals("Lunch", cal.getEventById(lunch).getSubject());
+    assertEquals(s.plusWeeks(1), cal.getEventById(second).getStart());
+
+    // Editing one occurrence by ID leaves the rest of the series alone
+    assertTrue(cal.editEventById(second, "subject", "Skip"));
+    assertEquals("Skip", cal.getEventById(second).getSubject());
+    assertNotNull(cal.findEvent("Sync", s, s.plusHours(1)));
+    assertNotNull(cal.findEvent("Sync", s.plusWeeks(2), s.plusWeeks(2).plusHours(1)));
+
+    assertTrue(cal.removeEventById(lunch));
+    assertNull(cal.getEventById(lunch));
+    assertFalse(cal.removeEventById(lunch));
+    assertFalse(cal.editEventById(lunch, "subject", "Gone"));
+  }
+
+  @Test
+  public void isFreeAndIsBusyAtFollowAddsAndRemoves() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.isFree(s, s.plusHours(2)));
+    cal.makeEvent("Overnight", "d", s.plusHours(14), s.plusHours(20),
+            (Location) null, (Status) null);
+    cal.makeEvent("Talk", "d", s.plusMinutes(30), s.plusMinutes(90),
+            (Location) null, (Status) null);
+
+    assertTrue(cal.isFree(s, s.plusMinutes(30)));
+    assertFalse(cal.isFree(s, s.plusMinutes(31)));
+    assertTrue(cal.isBusyAt(s.plusMinutes(89)));
+    assertFalse(cal.isBusyAt(s.plusMinutes(90)));
+    assertTrue(cal.isBusyAt(LocalDateTime.of(2025, 6, 17, 4, 59)));
+
+    cal.removeEvent(cal.findEvent("Talk", s.plusMinutes(30), s.plusMinutes(90)));
+    assertTrue(cal.isFree(s, s.plusHours(2)));
+    assertFalse(cal.isBusyAt(s.plusMinutes(45)));
+  }
+
+  @Test
+  public void findFreeSlotsSkipsBusyTimeAndKeepsToWorkingHours() {
+    LocalDateTime mon = LocalDateTime.of(2025, 6, 16, 0, 0);
+    cal.makeEvent("Standup", "d", mon.plusHours(9), mon.plusHours(9).plusMinutes(30),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY), 2);
+    cal.makeEvent("Review", "d", mon.plusHours(10), mon.plusHours(16).plusSeconds(30),
+            (Location) null, (Status) null);
+
+    List<TimeSlot> slots = cal.findFreeSlots(mon, mon.plusDays(2), Duration.ofMinutes(45),
+            LocalTime.of(9, 0), LocalTime.of(17, 0), 3);
+    assertEquals(Arrays.asList(
+            new TimeSlot(mon.plusHours(16).plusSeconds(30), mon.plusHours(17)),
+            new TimeSlot(mon.plusDays(1).plusHours(9).plusMinutes(30), mon.plusDays(1).plusHours(17))),
+            slots);
+
+    // Around the clock, free stretches that meet at midnight form one slot
+    List<TimeSlot> first = cal.findFreeSlots(mon.plusHours(16), mon.plusDays(2),
+            Duration.ofHours(12), null, null, 1);
+    assertEquals(Collections.singletonList(new TimeSlot(
+            mon.plusHours(16).plusSeconds(30), mon.plusDays(1).plusHours(9))), first);
+  }
+
+  @Test
+  public void overlapPolicyRejectsOrReportsOverlappingEvents() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Review", "d", s.plusDays(7), s.plusDays(7).plusHours(2),
+            (Location) null, (Status) null);
+    assertTrue(cal.makeEvent("Overlap", "d", s.plusDays(7).plusHours(1),
+            s.plusDays(7).plusHours(3), (Location) null, (Status) null));
+    assertTrue(cal.getLastOverlaps().isEmpty());
+
+    cal.setOverlapPolicy(OverlapPolicy.REJECT);
+    assertFalse(cal.makeEvent("Sync", "d", s.plusMinutes(30), s.plusHours(2),
+            Arrays.asList(DayOfWeek.MONDAY), 3));
+    assertEquals(2, cal.getLastOverlaps().size());
+    assertTrue(cal.getEventsOnDate(s.toLocalDate()).isEmpty());
+    assertTrue(cal.makeEvent("Back to back", "d", s.plusDays(7).plusHours(3),
+            s.plusDays(7).plusHours(4), (Location) null, (Status) null));
+
+    cal.setOverlapPolicy(OverlapPolicy.REPORT);
+    assertTrue(cal.makeEvent("Late", s.plusDays(7)));
+    assertEquals(3, cal.getLastOverlaps().size());
+    assertEquals("Review", cal.getLastOverlaps().get(0).getSubject());
+    assertEquals(4, cal.getEventsOnDate(s.plusDays(7).toLocalDate()).size());
+  }
+
+  @Test
+  public void equalSubjectsAndDescriptionsShareOneInstance() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    cal.makeEvent(new String("Standup"), new String("daily"), s, s.plusMinutes(15),
+            (Location) null, (Status) null);
+    cal.makeEvent(new String("Standup"), new String("daily"), s.plusDays(1),
+            s.plusDays(1).plusMinutes(15), Arrays.asList(DayOfWeek.TUESDAY), 2);
+    cal.addEvent(SingleEvent.getBuilder().subject(new String("Standup"))
+            .description(new String("daily"))
+            .start(s.plusDays(3)).end(s.plusDays(3).plusMinutes(15)).build());
+
+    List<IEvent> all = cal.getEventsInRange(s, s.plusWeeks(2));
+    assertEquals(4, all.size());
+    for (IEvent e : all) {
+      assertSame(all.get(0).getSubject(), e.getSubject());
+      assertSame(all.get(0).getDescription(), e.getDescription());
+    }
+    assertFalse(cal.makeEvent(new String("Standup"), "x", s, s.plusMinutes(15),
+            (Location) null, (Status) null));
+  }
+
+  @Test
+  public void subjectDroppedAndAddedAgainStillMatches() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.makeEvent("Once", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    IEvent before = cal.findEvent("Once", s, s.plusHours(1));
+    assertTrue(cal.removeEvent(before));
+
+    // Nothing refers to "Once" any more, so it comes back under a new code
+    assertTrue(cal.makeEvent("Once", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    IEvent after = cal.findEvent("Once", s, s.plusHours(1));
+    assertEquals(before, after);
+    assertEquals(after, before);
+    assertFalse(cal.addEvent(before));
+    assertFalse(cal.makeEvent("Once", "x", s, s.plusHours(1), (Location) null, (Status) null));
+  }
+
+  @Test
+  public void seriesIdsAreNumberedPerCalendar() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    Calendar other = new Calendar();
+    cal.makeEvent("A", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 1);
+    other.makeEvent("B", "d", s, s.plusHours(1), Arrays.asList(DayOfWeek.MONDAY), 1);
+    assertEquals(cal.findEvent("A", s, s.plusHours(1)).getSeriesId(),
+            other.findEvent("B", s, s.plusHours(1)).getSeriesId());
+  }
+
+  @Test
+  public void editEntireSeriesTouchesEveryOccurrence() {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Sync", "d", start, start.plusHours(1),
+            Arrays.asList(DayOfWeek.MONDAY), 3);
+
+    LocalDateTime second = start.plusWeeks(1);
+    assertTrue(cal.editSeriesEvent("location", "Sync", second, second.plusHours(1),
+            "virtual", 'e'));
+
+    List<IEvent> all = cal.getEventsInRange(start, start.plusWeeks(3));
+    assertEquals(3, all.size());
+    for (IEvent e : all) {
+      assertEquals(Location.VIRTUAL, e.getLocation());
+    }
+  }
+
   //––– Query and Remove ––––––––––––––––––––––––––––––––––––––––––––––––––
 
   @Test
@@ -251,6 +539,21 @@ public class CalendarTest {
     assertEquals(1, june17.size());
   }
 
+  @Test
+  public void getEventsOnDateListsMultiDayEventOnEveryDayItSpans() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 20, 0);
+    LocalDateTime e = LocalDateTime.of(2025, 6, 18, 9, 0);
+    cal.makeEvent("Offsite", "d", s, e, (Location) null, (Status) null);
+
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2025, 6, 16)).size());
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2025, 6, 17)).size());
+    assertEquals(1, cal.getEventsOnDate(LocalDate.of(2025, 6, 18)).size());
+    assertEquals(0, cal.getEventsOnDate(LocalDate.of(2025, 6, 19)).size());
+
+    assertTrue(cal.removeEvent(cal.findEvent("Offsite", s, e)));
+    assertEquals(0, cal.getEventsOnDate(LocalDate.of(2025, 6, 17)).size());
+  }
+
   @Test
   public void getEventsInRangeFiltersCorrectly() {
     cal.makeEvent("A", "d", LocalDateTime.of(2025, 6, 18, 9, 0), null, (Location) null, (Status) null);
@@ -262,6 +565,29 @@ public class CalendarTest {
     List<IEvent> subset = cal.getEventsInRange(from, to);
     assertEquals(3, subset.size());
   }
+  @Test
+  public void getEventsInRangeIncludesLongEventsStartingEarlier() {
+    // A week-long event that started before the window must still be reported, in start order
+    cal.makeEvent("Trip", "d", LocalDateTime.of(2025, 6, 1, 9, 0),
+            LocalDateTime.of(2025, 6, 8, 9, 0), (Location) null, (Status) null);
+    cal.makeEvent("Short", "d", LocalDateTime.of(2025, 6, 5, 9, 0),
+            LocalDateTime.of(2025, 6, 5, 10, 0), (Location) null, (Status) null);
+    cal.makeEvent("Later", "d", LocalDateTime.of(2025, 6, 9, 9, 0),
+            LocalDateTime.of(2025, 6, 9, 10, 0), (Location) null, (Status) null);
+
+    List<IEvent> hits = cal.getEventsInRange(
+            LocalDateTime.of(2025, 6, 5, 0, 0),
+            LocalDateTime.of(2025, 6, 6, 0, 0)
+    );
+    assertEquals(2, hits.size());
+    assertEquals("Trip", hits.get(0).getSubject());
+    assertEquals("Short", hits.get(1).getSubject());
+
+    assertTrue(cal.isBusyAt(LocalDateTime.of(2025, 6, 7, 23, 0)));
+    // End is exclusive
+    assertFalse(cal.isBusyAt(LocalDateTime.of(2025, 6, 8, 9, 0)));
+  }
+
   @Test
   public void isBusyAtReturnsTrueWhenOverlapExists() {
     LocalDateTime s = LocalDateTime.of(2025, 6, 21, 8, 0);
@@ -334,4 +660,203 @@ public class CalendarTest {
     );
     assertFalse(ok);
   }
+
+  @Test
+  public void forEachVisitsEventsInListOrder() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Standup", "d", s, s.plusMinutes(15),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY), 4);
+    cal.makeEvent("Early", "d", s.minusHours(1), s, (Location) null, (Status) null);
+    cal.makeEvent("Tied", "d", s, s.plusHours(1), (Location) null, (Status) null);
+    cal.makeEvent("Late", "d", s.plusDays(1).plusHours(5), s.plusDays(1).plusHours(6),
+            (Location) null, (Status) null);
+
+    List<IEvent> onDate = new ArrayList<>();
+    cal.forEachEventOnDate(s.toLocalDate(), onDate::add);
+    assertEquals(cal.getEventsOnDate(s.toLocalDate()), onDate);
+    assertEquals("Early", onDate.get(0).getSubject());
+    assertEquals("Standup", onDate.get(1).getSubject());
+    assertEquals("Tied", onDate.get(2).getSubject());
+
+    List<IEvent> inRange = new ArrayList<>();
+    cal.forEachEventInRange(s, s.plusWeeks(2), inRange::add);
+    assertEquals(cal.getEventsInRange(s, s.plusWeeks(2)), inRange);
+    assertEquals(6, inRange.size());
+    assertEquals("Late", inRange.get(3).getSubject());
+  }
+
+  @Test
+  public void pagedRangeQueryResumesAfterToken() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    cal.makeEvent("Standup", "d", s, s.plusMinutes(15),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), 6);
+    cal.makeEvent("Tied", "d", s, s.plusHours(1), (Location) null, (Status) null);
+    cal.makeEvent("Review", "d", s.plusDays(1), s.plusDays(1).plusHours(1),
+            (Location) null, (Status) null);
+
+    List<IEvent> all = cal.getEventsInRange(s, s.plusWeeks(4));
+    List<IEvent> paged = new ArrayList<>();
+    String token = null;
+    do {
+      EventPage page = cal.getEventsInRange(s, s.plusWeeks(4), 3, token);
+      assertTrue(page.getEvents().size() <= 3);
+      paged.addAll(page.getEvents());
+      token = page.getNextToken();
+    } while (token != null);
+    assertEquals(8, all.size());
+    assertEquals(all, paged);
+
+    EventPage last = cal.getEventsInRange(s, s.plusWeeks(4), 8, null);
+    assertFalse(last.hasMore());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void pagedRangeQueryRejectsMalformedToken() {
+    cal.getEventsInRange(LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0),
+            10, "not a token");
+  }
+
+  @Test
+  public void spliteratorSplitsRangeAndKeepsOrder() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 2, 8, 0); // Monday
+    for (int i = 0; i < 40; i++) {
+      cal.makeEvent("E" + i, "d", s.plusHours(5L * i), s.plusHours(5L * i + 1),
+              (i % 2 == 0) ? Location.PHYSICAL : Location.VIRTUAL, Status.PUBLIC);
+    }
+    cal.makeEvent("Standup", "d", s, s.plusMinutes(15),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY), 4);
+    LocalDateTime end = s.plusWeeks(2);
+
+    Spliterator<IEvent> rest = cal.spliterator(s, end);
+    Spliterator<IEvent> prefix = rest.trySplit();
+    assertNotNull(prefix);
+    List<IEvent> walked = new ArrayList<>();
+    prefix.forEachRemaining(walked::add);
+    rest.forEachRemaining(walked::add);
+    assertEquals(cal.getEventsInRange(s, end), walked);
+
+    long physical = StreamSupport.stream(cal.spliterator(s, end), true)
+            .filter(e -> e.getLocation() == Location.PHYSICAL)
+            .count();
+    long minutes = StreamSupport.stream(cal.spliterator(s, end), true)
+            .mapToLong(e -> Duration.between(e.getStart(), e.getEnd()).toMinutes())
+            .sum();
+    assertEquals(20, physical);
+    assertEquals(40 * 60 + 4 * 15, minutes);
+  }
+
+  @Test
+  public void addAllStoresBatchAndReportsRejections() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    cal.makeEvent("Existing", "d", s, s.plusHours(1), (Location) null, (Status) null);
+    IEvent late = SingleEvent.getBuilder().subject("Late").start(s.plusHours(3))
+            .end(s.plusHours(4)).build();
+    IEvent early = SingleEvent.getBuilder().subject("Early").start(s.minusHours(2))
+            .end(s.minusHours(1)).build();
+    IEvent tied = SingleEvent.getBuilder().subject("Tied").start(s).end(s.plusHours(2)).build();
+    IEvent existing = SingleEvent.getBuilder().subject("Existing").start(s)
+            .end(s.plusHours(1)).build();
+
+    ImportReport report = cal.addAll(Arrays.asList(late, early, null, tied, existing, late));
+
+    assertEquals(3, report.getAdded());
+    assertEquals(3, report.getRejections().size());
+    assertEquals(2, report.getRejections().get(0).getIndex());
+    assertEquals(ImportReport.Reason.INVALID, report.getRejections().get(0).getReason());
+    assertEquals(ImportReport.Reason.ALREADY_EXISTS, report.getRejections().get(1).getReason());
+    assertEquals(ImportReport.Reason.DUPLICATE_IN_BATCH,
+            report.getRejections().get(2).getReason());
+
+    List<IEvent> day = cal.getEventsOnDate(s.toLocalDate());
+    assertEquals(4, day.size());
+    assertEquals("Early", day.get(0).getSubject());
+    assertEquals("Existing", day.get(1).getSubject());
+    assertEquals("Tied", day.get(2).getSubject());
+    assertEquals("Late", day.get(3).getSubject());
+    // IDs follow the batch order, after the one already handed out
+    assertEquals(2, day.get(3).getId());
+    assertEquals(3, day.get(0).getId());
+  }
+
+  @Test
+  public void imageRoundTripKeepsEventsSeriesAndIds() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    cal.setOverlapPolicy(OverlapPolicy.REPORT);
+    assertTrue(cal.makeEvent("Meet", "d", s, s.plusHours(1), Location.PHYSICAL, Status.PUBLIC));
+    assertTrue(cal.makeEvent("Sync", null, s.plusHours(2), s.plusHours(3),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), 6));
+    assertTrue(cal.editSeriesEvent("subject", "Sync", s.plusDays(7).plusHours(2),
+            s.plusDays(7).plusHours(3), "Standup", 'f'));
+    IEvent second = cal.findEvent("Sync", s.plusDays(2).plusHours(2), s.plusDays(2).plusHours(3));
+    assertTrue(cal.removeEventById(second.getId()));
+
+    Path file = Files.createTempFile("calendar", ".img");
+    file.toFile().deleteOnExit();
+    cal.writeImage(file);
+    Calendar loaded = Calendar.readImage(file);
+
+    LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+    LocalDateTime to = LocalDateTime.of(2025, 8, 1, 0, 0);
+    List<IEvent> before = cal.getEventsInRange(from, to);
+    assertEquals(before, loaded.getEventsInRange(from, to));
+    for (IEvent e : before) {
+      assertEquals(e, loaded.getEventById(e.getId()));
+    }
+    assertNull(loaded.getEventById(second.getId()));
+    assertEquals(OverlapPolicy.REPORT, loaded.getOverlapPolicy());
+
+    // Both go on handing out the same IDs and treating the series alike
+    assertTrue(cal.makeEvent("Late", s.plusDays(1)));
+    assertTrue(loaded.makeEvent("Late", s.plusDays(1)));
+    assertTrue(cal.editSeriesEvent("description", "Sync", s.plusHours(2), s.plusHours(3),
+            "x", 'e'));
+    assertTrue(loaded.editSeriesEvent("description", "Sync", s.plusHours(2), s.plusHours(3),
+            "x", 'e'));
+    assertEquals(cal.getEventsInRange(from, to), loaded.getEventsInRange(from, to));
+    assertEquals(cal.findEvent("Late", s.plusDays(1).withHour(8), s.plusDays(1).withHour(17))
+            .getId(), loaded.findEvent("Late", s.plusDays(1).withHour(8),
+            s.plusDays(1).withHour(17)).getId());
+  }
+
+  @Test
+  public void imageLeavesOutStringsNothingRefersTo() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.makeEvent("Meet", "kept-note", s, s.plusHours(1),
+            (Location) null, (Status) null));
+    assertTrue(cal.makeEvent("Gone", "removed-note", s.plusHours(2), s.plusHours(3),
+            (Location) null, (Status) null));
+    assertTrue(cal.removeEventById(cal.findEvent("Gone", s.plusHours(2), s.plusHours(3))
+            .getId()));
+    // rejected as a duplicate, so its new description is never stored
+    assertFalse(cal.makeEvent("Meet", "rejected-note", s, s.plusHours(1),
+            (Location) null, (Status) null));
+
+    Path file = Files.createTempFile("calendar", ".img");
+    file.toFile().deleteOnExit();
+    cal.writeImage(file);
+    String image = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+    assertTrue(image.contains("kept-note"));
+    assertFalse(image.contains("Gone"));
+    assertFalse(image.contains("removed-note"));
+    assertFalse(image.contains("rejected-note"));
+
+    // Writing again after the dropped strings come back still works
+    assertTrue(cal.makeEvent("Gone", "removed-note", s.plusHours(2), s.plusHours(3),
+            (Location) null, (Status) null));
+    cal.writeImage(file);
+    assertEquals(cal.getEventsOnDate(s.toLocalDate()),
+            Calendar.readImage(file).getEventsOnDate(s.toLocalDate()));
+  }
+
+  @Test(expected = IOException.class)
+  public void readImageRejectsDamagedFile() throws IOException {
+    cal.makeEvent("Meet", LocalDateTime.of(2025, 6, 16, 9, 0));
+    Path file = Files.createTempFile("calendar", ".img");
+    file.toFile().deleteOnExit();
+    cal.writeImage(file);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    Calendar.readImage(file);
+  }
 }
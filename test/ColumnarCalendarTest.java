@@ -0,0 +1,73 @@
+import model.ColumnarCalendar;
+import model.IEvent;
+import model.Location;
+import model.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarCalendarTest {
+
+  private ColumnarCalendar cal;
+
+  @Before
+  public void setUp() {
+    cal = new ColumnarCalendar();
+  }
+
+  @Test
+  public void queriesReturnEventsInStartOrder() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    cal.makeEvent("Late", "d", s.plusHours(3), s.plusHours(4), Location.VIRTUAL, Status.PUBLIC);
+    cal.makeEvent("Long", "d", s.minusDays(1), s.plusHours(1), (Location) null, (Status) null);
+    cal.makeEvent("Early", "d", s, s.plusHours(1), (Location) null, (Status) null);
+    assertFalse(cal.makeEvent("Early", "x", s, s.plusHours(1), (Location) null, (Status) null));
+
+    List<IEvent> day = cal.getEventsOnDate(s.toLocalDate());
+    assertEquals(3, day.size());
+    assertEquals("Long", day.get(0).getSubject());
+    assertEquals("Early", day.get(1).getSubject());
+    assertEquals(Location.VIRTUAL, day.get(2).getLocation());
+
+    assertEquals(2, cal.getEventsInRange(s.plusMinutes(30), s.plusHours(2)).size());
+    assertTrue(cal.isBusyAt(s.minusHours(12)));
+    assertFalse(cal.isBusyAt(s.plusHours(2)));
+    assertTrue(cal.isFree(s.plusHours(1), s.plusHours(3)));
+  }
+
+  @Test
+  public void seriesEditsAndRemovalsMatchCalendar() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    assertTrue(cal.makeEvent("Sync", "d", s, s.plusHours(1),
+            Arrays.asList(DayOfWeek.FRIDAY, DayOfWeek.MONDAY), 4));
+    assertEquals(4, cal.size());
+    assertEquals(LocalDate.of(2025, 6, 20),
+            cal.getEventsInRange(s.plusDays(1), s.plusWeeks(3)).get(0).getStart().toLocalDate());
+
+    LocalDateTime second = LocalDateTime.of(2025, 6, 20, 9, 0);
+    assertTrue(cal.editSeriesEvent("subject", "Sync", second, second.plusHours(1),
+            "Review", 'f'));
+    assertNotNull(cal.findEvent("Sync", s, s.plusHours(1)));
+    assertNotNull(cal.findEvent("Review", s.plusWeeks(1), s.plusWeeks(1).plusHours(1)));
+
+    IEvent first = cal.findEvent("Sync", s, s.plusHours(1));
+    assertEquals(first.getSubject(), cal.getEventById(first.getId()).getSubject());
+    assertTrue(cal.removeEventById(first.getId()));
+    assertNull(cal.getEventById(first.getId()));
+    assertEquals(3, cal.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsTimesFinerThanAMinute() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0, 30);
+    cal.makeEvent("Odd", "d", s, s.plusHours(1), (Location) null, (Status) null);
+  }
+}
@@ -0,0 +1,72 @@
+import model.ConcurrentCalendar;
+import model.IEvent;
+import model.Location;
+import model.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentCalendarTest {
+
+  private ConcurrentCalendar cal;
+
+  @Before
+  public void setUp() {
+    cal = new ConcurrentCalendar();
+  }
+
+  @Test
+  public void delegatesQueriesAndMutations() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.makeEvent("Meet", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    assertFalse(cal.makeEvent("Meet", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    assertTrue(cal.isBusyAt(s.plusMinutes(30)));
+
+    IEvent found = cal.findEvent("Meet", s, s.plusHours(1));
+    assertNotNull(found);
+    assertTrue(cal.removeEvent(found));
+    assertFalse(cal.isBusyAt(s.plusMinutes(30)));
+  }
+
+  @Test
+  public void parallelWritersAndReadersSeeWholeSeries() throws InterruptedException {
+    LocalDateTime base = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    AtomicBoolean partial = new AtomicBoolean(false);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int worker = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 50; i++) {
+          cal.makeEvent("W" + worker + "-" + i, "d", base, base.plusMinutes(30),
+                  Arrays.asList(DayOfWeek.MONDAY), 3);
+        }
+      }));
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 200; i++) {
+          // Every series has three weekly occurrences, so a whole series adds three at once
+          if (cal.getEventsInRange(base, base.plusWeeks(3)).size() % 3 != 0) {
+            partial.set(true);
+          }
+        }
+      }));
+    }
+    for (Thread th : threads) {
+      th.start();
+    }
+    for (Thread th : threads) {
+      th.join();
+    }
+
+    assertFalse(partial.get());
+    assertEquals(200, cal.getEventsOnDate(base.toLocalDate().plusWeeks(2)).size());
+  }
+}
@@ -0,0 +1,100 @@
+import model.Calendar;
+import model.CsvExporter;
+import model.IEvent;
+import model.Location;
+import model.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CsvExporterTest {
+
+  private Calendar cal;
+  private final LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+  private final LocalDateTime to = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+  @Before
+  public void setUp() {
+    cal = new Calendar();
+  }
+
+  private String export(LocalDateTime start, LocalDateTime end, CsvExporter.Dialect dialect)
+          throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int rows = CsvExporter.export(cal, start, end, dialect, Channels.newChannel(bytes));
+    String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    assertEquals(rows + 1, text.split(dialect == CsvExporter.Dialect.CSV ? "\r\n" : "\n").length);
+    return text;
+  }
+
+  @Test
+  public void csvQuotesFieldsThatNeedIt() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.makeEvent("Plan, review", "say \"hi\"\nthen go", s, s.plusHours(1),
+            Location.VIRTUAL, Status.PRIVATE));
+    assertTrue(cal.makeEvent("Café", null, s.plusHours(2), s.plusHours(3),
+            (Location) null, (Status) null));
+
+    String expected =
+            "id,series_id,subject,start,end,description,location,status\r\n"
+                    + "1,,\"Plan, review\",2025-06-16T09:00:00,2025-06-16T10:00:00,"
+                    + "\"say \"\"hi\"\"\nthen go\",virtual,private\r\n"
+                    + "2,,Café,2025-06-16T11:00:00,2025-06-16T12:00:00,,,\r\n";
+    assertEquals(expected, export(from, to, CsvExporter.Dialect.CSV));
+  }
+
+  @Test
+  public void tsvEscapesAndListsEachOccurrence() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    assertTrue(cal.makeEvent("Sync", "a\tb\\c", s, s.plusMinutes(30),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), 3));
+    IEvent first = cal.findEvent("Sync", s, s.plusMinutes(30));
+
+    String text = export(s.plusDays(1), to, CsvExporter.Dialect.TSV);
+
+    String[] rows = text.split("\n");
+    assertEquals("id\tseries_id\tsubject\tstart\tend\tdescription\tlocation\tstatus", rows[0]);
+    assertEquals(3, rows.length);
+    assertEquals((first.getId() + 1) + "\t" + first.getSeriesId() + "\tSync\t"
+            + "2025-06-18T09:00:00\t2025-06-18T09:30:00\ta\\tb\\\\c\t\t", rows[1]);
+    assertTrue(rows[2].contains("2025-06-23T09:00:00"));
+  }
+
+  @Test
+  public void rangeLongerThanAWindowListsEachEventOnce() throws IOException {
+    LocalDateTime a = LocalDateTime.of(2024, 1, 1, 9, 0);
+    LocalDateTime z = a.plusDays(28);   // where the first window ends
+    assertTrue(cal.makeEvent("A", null, a, a.plusHours(1), (Location) null, (Status) null));
+    assertTrue(cal.makeEvent("Z", null, z, z, (Location) null, (Status) null));
+    // runs across the end of the first window, and of the second
+    assertTrue(cal.makeEvent("Long", null, z.minusDays(3), z.plusDays(40),
+            (Location) null, (Status) null));
+    assertTrue(cal.makeEvent("B", LocalDateTime.of(2024, 2, 10, 0, 0)));
+    assertTrue(cal.makeEvent("C", LocalDateTime.of(2024, 5, 20, 0, 0)));
+
+    LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    LocalDateTime end = LocalDateTime.of(2024, 7, 1, 0, 0);
+    String[] rows = export(start, end, CsvExporter.Dialect.TSV).split("\n");
+
+    StringBuilder expected = new StringBuilder();
+    for (IEvent e : cal.getEventsInRange(start, end)) {
+      expected.append(e.getSubject()).append(' ');
+    }
+    StringBuilder actual = new StringBuilder();
+    for (int i = 1; i < rows.length; i++) {
+      actual.append(rows[i].split("\t")[2]).append(' ');
+    }
+    assertEquals("A Long Z B C ", expected.toString());
+    assertEquals(expected.toString(), actual.toString());
+  }
+}
@@ -0,0 +1,230 @@
+import model.Calendar;
+import model.IEvent;
+import model.ImportReport;
+import model.IcsExporter;
+import model.IcsImporter;
+import model.Location;
+import model.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IcsTest {
+
+  private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+  private Calendar cal;
+  private final LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+  private final LocalDateTime to = LocalDateTime.of(2025, 8, 1, 0, 0);
+
+  @Before
+  public void setUp() {
+    cal = new Calendar();
+  }
+
+  private static String export(Calendar cal) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    IcsExporter.export(cal, Channels.newChannel(bytes));
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static ImportReport importText(String ics, Calendar into) throws IOException {
+    return IcsImporter.importEvents(Channels.newChannel(
+            new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8))), into, ZONE);
+  }
+
+  private static String describe(List<IEvent> events) {
+    StringBuilder sb = new StringBuilder();
+    for (IEvent e : events) {
+      sb.append(e.getSubject()).append(' ').append(e.getDescription()).append(' ')
+              .append(e.getStart()).append(' ').append(e.getEnd()).append(' ')
+              .append(e.getLocation()).append(' ').append(e.getStatus()).append(' ')
+              .append(e.getSeriesId() != null).append('\n');
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void exportThenImportKeepsEventsAndSeries() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0); // Monday
+    assertTrue(cal.makeEvent("Review", "line one\nsemi; comma, back\\slash", s, s.plusHours(1),
+            Location.PHYSICAL, Status.PRIVATE));
+    assertTrue(cal.makeEvent("Sync", null, s.plusHours(2), s.plusHours(3),
+            Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY), 6));
+    assertTrue(cal.editSeriesEvent("location", "Sync", s.plusHours(2), s.plusHours(3),
+            "virtual", 'e'));
+    IEvent skipped = cal.findEvent("Sync", s.plusDays(7).plusHours(2), s.plusDays(7).plusHours(3));
+    assertTrue(cal.removeEventById(skipped.getId()));
+    assertTrue(cal.editSeriesEvent("subject", "Sync", s.plusDays(10).plusHours(2),
+            s.plusDays(10).plusHours(3), "Standup", 'f'));
+
+    String ics = export(cal);
+    assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\n"));
+    assertTrue(ics.contains("DESCRIPTION:line one\\nsemi\\; comma\\, back\\\\slash\r\n"));
+    assertTrue(ics.contains("RRULE:FREQ=WEEKLY;COUNT=2;BYDAY=MO,TH\r\n"));
+    assertTrue(ics.contains("LOCATION:virtual\r\n"));
+    assertTrue(ics.contains("CLASS:PRIVATE\r\n"));
+
+    Calendar copy = new Calendar();
+    ImportReport report = importText(ics, copy);
+    assertTrue(report.getRejections().isEmpty());
+    assertEquals(6, report.getAdded());
+    assertEquals(describe(cal.getEventsInRange(from, to)), describe(copy.getEventsInRange(from, to)));
+  }
+
+  @Test
+  public void exportKeepsAnEventOfNoLengthOnAWindowBoundary() throws IOException {
+    LocalDateTime a = LocalDateTime.of(2024, 1, 1, 9, 0);
+    LocalDateTime z = a.plusDays(28);   // where the first export window ends
+    assertTrue(cal.makeEvent("A", null, a, a.plusHours(1), (Location) null, (Status) null));
+    assertTrue(cal.makeEvent("Z", null, z, z, (Location) null, (Status) null));
+    assertTrue(cal.makeEvent("B", LocalDateTime.of(2024, 2, 10, 0, 0)));
+
+    String ics = export(cal);
+    assertTrue(ics.contains("SUMMARY:Z\r\n"));
+    Calendar copy = new Calendar();
+    assertEquals(3, importText(ics, copy).getAdded());
+    LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    LocalDateTime end = LocalDateTime.of(2024, 3, 1, 0, 0);
+    assertEquals(describe(cal.getEventsInRange(start, end)),
+            describe(copy.getEventsInRange(start, end)));
+  }
+
+  @Test
+  public void longLinesAreFoldedAndUnfolded() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      text.append(i % 7 == 0 ? 'é' : 'x');
+    }
+    text.append("📅");   // a calendar emoji, outside the BMP
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    assertTrue(cal.makeEvent("Long", text.toString(), s, s.plusHours(1),
+            (Location) null, (Status) null));
+
+    String ics = export(cal);
+    for (String line : ics.split("\r\n")) {
+      assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75);
+    }
+    Calendar copy = new Calendar();
+    importText(ics, copy);
+    assertEquals(text.toString(), copy.findEvent("Long", s, s.plusHours(1)).getDescription());
+  }
+
+  @Test
+  public void importMapsRulesZonesAndExclusions() throws IOException {
+    String ics = String.join("\n",
+            "BEGIN:VCALENDAR",
+            "BEGIN:VEVENT",
+            "SUMMARY:Standup",
+            "DTSTART;TZID=America/New_York:20250616T093000",
+            "DURATION:PT15M",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;UNTIL=20250702T235959Z",
+            "EXDATE;TZID=America/New_York:20250618T093000,20250623T093000",
+            "LOCATION:https://meet.example.com/x",
+            "CLASS:CONFIDENTIAL",
+            "BEGIN:VALARM",
+            "SUMMARY:ignored",
+            "END:VALARM",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "SUMMARY:Launch",
+            "DTSTART:20250620T130000Z",
+            "DTEND:20250620T140000Z",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "SUMMARY:Offsite",
+            "DTSTART;VALUE=DATE:20250624",
+            "DTEND;VALUE=DATE:20250625",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "SUMMARY:Monthly",
+            "DTSTART:20250601T100000",
+            "RRULE:FREQ=MONTHLY;COUNT=3",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20250601T100000",
+            "END:VEVENT",
+            "END:VCALENDAR", "");
+
+    ImportReport report = importText(ics, cal);
+
+    assertEquals(4 + 1 + 1, report.getAdded());
+    assertEquals(2, report.getRejections().size());
+    assertEquals(3, report.getRejections().get(0).getIndex());
+    assertEquals(ImportReport.Reason.UNSUPPORTED, report.getRejections().get(0).getReason());
+    assertEquals(4, report.getRejections().get(1).getIndex());
+    assertEquals(ImportReport.Reason.INVALID, report.getRejections().get(1).getReason());
+
+    List<IEvent> all = cal.getEventsInRange(from, to);
+    assertEquals(6, all.size());
+    IEvent first = cal.findEvent("Standup", LocalDateTime.of(2025, 6, 16, 9, 30),
+            LocalDateTime.of(2025, 6, 16, 9, 45));
+    assertNotNull(first.getSeriesId());
+    assertEquals(Location.VIRTUAL, first.getLocation());
+    assertEquals(Status.PRIVATE, first.getStatus());
+    assertNull(cal.findEvent("Standup", LocalDateTime.of(2025, 6, 18, 9, 30),
+            LocalDateTime.of(2025, 6, 18, 9, 45)));
+    assertNotNull(cal.findEvent("Standup", LocalDateTime.of(2025, 7, 2, 9, 30),
+            LocalDateTime.of(2025, 7, 2, 9, 45)));
+    assertNotNull(cal.findEvent("Launch", LocalDateTime.of(2025, 6, 20, 9, 0),
+            LocalDateTime.of(2025, 6, 20, 10, 0)));
+    assertNotNull(cal.findEvent("Offsite", LocalDateTime.of(2025, 6, 24, 8, 0),
+            LocalDateTime.of(2025, 6, 24, 17, 0)));
+  }
+
+  @Test
+  public void importCountsStartOffTheRuleAsAnOccurrence() throws IOException {
+    // 2025-06-15 is a Sunday, so the rule itself only yields Mondays and Wednesdays
+    String ics = String.join("\n",
+            "BEGIN:VCALENDAR",
+            "BEGIN:VEVENT",
+            "SUMMARY:Standup",
+            "DTSTART:20250615T093000",
+            "DURATION:PT15M",
+            "RRULE:FREQ=WEEKLY;COUNT=3;BYDAY=MO,WE",
+            "CLASS:PRIVATE",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "SUMMARY:Once",
+            "DTSTART:20250615T120000",
+            "DURATION:PT1H",
+            "RRULE:FREQ=WEEKLY;COUNT=1;BYDAY=MO",
+            "END:VEVENT",
+            "END:VCALENDAR", "");
+
+    ImportReport report = importText(ics, cal);
+
+    assertTrue(report.getRejections().isEmpty());
+    assertEquals(3 + 1, report.getAdded());
+    IEvent dtstart = cal.findEvent("Standup", LocalDateTime.of(2025, 6, 15, 9, 30),
+            LocalDateTime.of(2025, 6, 15, 9, 45));
+    IEvent monday = cal.findEvent("Standup", LocalDateTime.of(2025, 6, 16, 9, 30),
+            LocalDateTime.of(2025, 6, 16, 9, 45));
+    assertNotNull(dtstart);
+    assertEquals(monday.getSeriesId(), dtstart.getSeriesId());
+    assertEquals(Status.PRIVATE, dtstart.getStatus());
+    assertNotNull(cal.findEvent("Standup", LocalDateTime.of(2025, 6, 18, 9, 30),
+            LocalDateTime.of(2025, 6, 18, 9, 45)));
+    // COUNT included DTSTART, so the rule stops a Monday short
+    assertNull(cal.findEvent("Standup", LocalDateTime.of(2025, 6, 23, 9, 30),
+            LocalDateTime.of(2025, 6, 23, 9, 45)));
+    IEvent once = cal.findEvent("Once", LocalDateTime.of(2025, 6, 15, 12, 0),
+            LocalDateTime.of(2025, 6, 15, 13, 0));
+    assertNotNull(once);
+    assertEquals(1, cal.getEventsInRange(LocalDateTime.of(2025, 6, 15, 12, 0), to).stream()
+            .filter(e -> e.getSubject().equals("Once")).count());
+  }
+}
@@ -0,0 +1,167 @@
+import model.Calendar;
+import model.FsyncPolicy;
+import model.IEvent;
+import model.JournaledCalendar;
+import model.Location;
+import model.OverlapPolicy;
+import model.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournaledCalendarTest {
+
+  private Path file;
+  private final LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+  private final LocalDateTime to = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("calendar", ".log");
+    file.toFile().deleteOnExit();
+  }
+
+  private static String describe(List<IEvent> events) {
+    StringBuilder sb = new StringBuilder();
+    for (IEvent e : events) {
+      sb.append(e.getId()).append(' ').append(e.getSubject()).append(' ')
+              .append(e.getStart()).append('\n');
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void reopeningReplaysEventsAndIds() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    String before;
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar(), FsyncPolicy.ALWAYS)) {
+      assertTrue(cal.makeEvent("Meet", "d", s, s.plusHours(1), Location.VIRTUAL, (Status) null));
+      // a failed create still uses up an id, so the replay must repeat it
+      assertFalse(cal.makeEvent("Meet", "d", s, s.plusHours(1), (Location) null, (Status) null));
+      assertTrue(cal.makeEvent("Sync", null, s.plusHours(2), s.plusHours(3),
+              Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), 4));
+      assertTrue(cal.editSeriesEvent("subject", "Sync", s.plusDays(2).plusHours(2),
+              s.plusDays(2).plusHours(3), "Standup", 'f'));
+      IEvent meet = cal.findEvent("Meet", s, s.plusHours(1));
+      assertTrue(cal.removeEventById(meet.getId()));
+      assertTrue(cal.makeEvent("Lunch", "d", s.plusHours(4), s.plusHours(5),
+              (Location) null, (Status) null));
+      before = describe(cal.getEventsInRange(from, to));
+    }
+
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      assertEquals(before, describe(cal.getEventsInRange(from, to)));
+      assertTrue(cal.makeEvent("Late", "d", s.plusHours(6), s.plusHours(7),
+              (Location) null, (Status) null));
+      before = describe(cal.getEventsInRange(from, to));
+    }
+
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      assertEquals(before, describe(cal.getEventsInRange(from, to)));
+    }
+  }
+
+  @Test
+  public void tornTailIsDropped() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar(), FsyncPolicy.NEVER)) {
+      assertTrue(cal.makeEvent("Kept", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    }
+    long intact = Files.size(file);
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar(), FsyncPolicy.NEVER)) {
+      assertTrue(cal.makeEvent("Torn", "d", s.plusHours(2), s.plusHours(3),
+              (Location) null, (Status) null));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.setLength(intact + 6);   // as if the machine died writing the call
+    }
+
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      List<IEvent> events = cal.getEventsInRange(from, to);
+      assertEquals(1, events.size());
+      assertEquals("Kept", events.get(0).getSubject());
+      assertEquals(intact, Files.size(file));
+      assertTrue(cal.makeEvent("Again", "d", s.plusHours(2), s.plusHours(3),
+              (Location) null, (Status) null));
+    }
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      assertEquals(2, cal.getEventsInRange(from, to).size());
+    }
+  }
+
+  @Test
+  public void checkpointSavesImageAndEmptiesJournal() throws IOException {
+    Path image = Files.createTempFile("calendar", ".img");
+    Files.delete(image);
+    image.toFile().deleteOnExit();
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    String before;
+    try (JournaledCalendar cal = JournaledCalendar.open(file, image, FsyncPolicy.GROUP)) {
+      assertTrue(cal.makeEvent("Meet", "d", s, s.plusHours(1), (Location) null, (Status) null));
+      assertTrue(cal.makeEvent("Sync", null, s.plusHours(2), s.plusHours(3),
+              Arrays.asList(DayOfWeek.TUESDAY), 3));
+      cal.sync();
+      long logged = Files.size(file);
+      cal.checkpoint();
+      assertTrue(Files.size(file) < logged);
+      assertTrue(cal.makeEvent("After", "d", s.plusHours(4), s.plusHours(5),
+              (Location) null, (Status) null));
+      before = describe(cal.getEventsInRange(from, to));
+    }
+
+    // the image holds the first two, the journal only the third
+    try (JournaledCalendar cal = JournaledCalendar.open(file, image, FsyncPolicy.GROUP)) {
+      assertEquals(before, describe(cal.getEventsInRange(from, to)));
+    }
+  }
+
+  @Test
+  public void callLoggedWithoutItsOutcomeIsReplayed() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar(), FsyncPolicy.ALWAYS)) {
+      assertTrue(cal.makeEvent("Kept", "d", s, s.plusHours(1), (Location) null, (Status) null));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.setLength(Files.size(file) - 3);   // the outcome record is torn, the call is not
+    }
+
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      List<IEvent> events = cal.getEventsInRange(from, to);
+      assertEquals(1, events.size());
+      assertEquals("Kept", events.get(0).getSubject());
+    }
+  }
+
+  @Test
+  public void overlapPolicyChangesAreReplayed() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 16, 9, 0);
+    String before;
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar(), FsyncPolicy.GROUP)) {
+      assertTrue(cal.makeEvent("Meet", "d", s, s.plusHours(1), (Location) null, (Status) null));
+      cal.setOverlapPolicy(OverlapPolicy.REJECT);
+      assertFalse(cal.makeEvent("Clash", "d", s.plusMinutes(30), s.plusHours(2),
+              (Location) null, (Status) null));
+      cal.setOverlapPolicy(OverlapPolicy.ALLOW);
+      assertTrue(cal.makeEvent("Clash", "d", s.plusMinutes(30), s.plusHours(2),
+              (Location) null, (Status) null));
+      cal.setOverlapPolicy(OverlapPolicy.REJECT);
+      before = describe(cal.getEventsInRange(from, to));
+    }
+
+    try (JournaledCalendar cal = JournaledCalendar.open(file, new Calendar())) {
+      assertEquals(before, describe(cal.getEventsInRange(from, to)));
+      assertEquals(OverlapPolicy.REJECT, cal.getOverlapPolicy());
+    }
+  }
+}
@@ -152,4 +152,28 @@ public class SingleEventTest {
     assertFalse(a.overlapsWith(c));
     assertFalse(c.overlapsWith(a));
   }
+
+  @Test
+  public void timesOffTheMinuteSurviveAndCompareExactly() {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 12, 9, 0, 30, 500);
+    LocalDateTime e = LocalDateTime.of(2025, 6, 12, 10, 0);
+    SingleEvent a = SingleEvent.getBuilder().subject("A").start(s).end(e).build();
+    SingleEvent same = SingleEvent.getBuilder().subject("A").start(s).end(e).build();
+    SingleEvent onTheMinute = SingleEvent.getBuilder()
+            .subject("A").start(s.withSecond(0).withNano(0)).end(e).build();
+
+    assertEquals(s, a.getStart());
+    assertEquals(e, a.getEnd());
+    assertEquals(a, same);
+    assertEquals(a.hashCode(), same.hashCode());
+    assertNotEquals(a, onTheMinute);
+
+    // Ends 30.5 seconds into the minute the other one starts in
+    SingleEvent before = SingleEvent.getBuilder().subject("B")
+            .start(s.minusHours(1)).end(s).build();
+    SingleEvent after = SingleEvent.getBuilder().subject("C")
+            .start(s.withSecond(0).withNano(0)).end(e).build();
+    assertFalse(before.overlapsWith(a));
+    assertTrue(before.overlapsWith(after));
+  }
 }
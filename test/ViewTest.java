@@ -1,12 +1,18 @@
 import view.View;
 import model.Status;
 import model.Location;
+import model.TimeSlot;
+import model.Calendar;
+import model.ImportReport;
+import model.SingleEvent;
 
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -70,10 +76,15 @@ public class ViewTest {
     }
 
     @Override
-    public Integer getSeriesId() {
+    public Long getSeriesId() {
       return null;
     }
 
+    @Override
+    public long getId() {
+      return 0;
+    }
+
     @Override
     public boolean isAllDay() {
       return false;
@@ -204,6 +215,20 @@ public class ViewTest {
     assertEquals(expected, out.toString());
   }
 
+  @Test
+  public void testShowFreeSlots() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 6, 6, 9, 0);
+    view.showFreeSlots(Duration.ofMinutes(45), Collections.emptyList());
+    view.showFreeSlots(Duration.ofMinutes(45),
+            List.of(new TimeSlot(start, start.plusHours(1))));
+
+    String expected =
+            "No free slots of 45 minutes found in the specified range.\n" +
+                    "Free slots of 45 minutes:\n" +
+                    "• 2025-06-06T09:00 - 2025-06-06T10:00\n";
+    assertEquals(expected, out.toString());
+  }
+
   @Test
   public void testShowGoodbye() throws IOException {
     view.showGoodbye();
@@ -234,4 +259,42 @@ public class ViewTest {
     view.showPrompt();
     assertEquals("Welcome to Calendar App! Type 'exit' to quit.\n> ", out.toString());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testShowEventsFromSource() throws IOException {
+    LocalDate date = LocalDate.of(2025, 6, 2);
+    FakeEvent e = new FakeEvent(
+            "Meeting",
+            LocalDateTime.of(2025, 6, 2, 9, 0),
+            LocalDateTime.of(2025, 6, 2, 10, 0),
+            null
+    );
+
+    view.showEventsOnDate(date, action -> action.accept(e));
+    view.showEventsOnDate(date, action -> { });
+
+    String expected =
+            "Events on 2025-06-02:\n" +
+                    "• Meeting (09:00 - 10:00)\n" +
+                    "No events found on 2025-06-02.\n";
+    assertEquals(expected, out.toString());
+  }
+
+  @Test
+  public void testShowExportedAndImported() throws IOException {
+    LocalDateTime s = LocalDateTime.of(2025, 6, 2, 9, 0);
+    IEvent meet = SingleEvent.getBuilder().subject("Meeting").start(s)
+            .end(s.plusHours(1)).build();
+    ImportReport report = new Calendar().addAll(Arrays.asList(meet, null, meet));
+
+    view.showExported("out.ics", 3);
+    view.showImported("in.ics", report);
+
+    String expected =
+            "Exported 3 events to out.ics\n" +
+                    "Imported 1 events from in.ics; 2 skipped:\n" +
+                    "• #1: INVALID\n" +
+                    "• #2 Meeting: DUPLICATE_IN_BATCH\n";
+    assertEquals(expected, out.toString());
+  }
+}